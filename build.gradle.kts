@@ -2,8 +2,10 @@ import com.vanniktech.maven.publish.SonatypeHost
 
 plugins {
     id("java-library")
+    id("java-test-fixtures")
     id("maven-publish")
     id("com.vanniktech.maven.publish") version "0.30.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 mavenPublishing {
@@ -46,6 +48,7 @@ buildscript {
     val lombokVersion by extra("1.18.30")
     val slf4jVersion by extra("2.0.16")
     val log4jVersion by extra("2.24.3")
+    val gsonVersion by extra("2.10.1")
 }
 
 dependencies {
@@ -53,21 +56,43 @@ dependencies {
     val lombokVersion : String by rootProject.extra
     val slf4jVersion : String by rootProject.extra
     val log4jVersion : String by rootProject.extra
+    val gsonVersion : String by rootProject.extra
 
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 
     annotationProcessor("org.projectlombok:lombok:${lombokVersion}")
     compileOnly("org.projectlombok:lombok:${lombokVersion}")
 
     implementation("com.github.seratch:notion-sdk-jvm-core:${notionSdkVersion}")
+    implementation("com.google.code.gson:gson:${gsonVersion}")
 
     implementation("org.slf4j:slf4j-api:${slf4jVersion}")
     testImplementation("org.apache.logging.log4j:log4j-core:${log4jVersion}")
     testImplementation("org.apache.logging.log4j:log4j-api:${log4jVersion}")
     testImplementation("org.apache.logging.log4j:log4j-slf4j2-impl:${log4jVersion}")
+
+    testFixturesImplementation("com.google.code.gson:gson:${gsonVersion}")
+    testFixturesImplementation("org.slf4j:slf4j-api:${slf4jVersion}")
+
+    jmhImplementation(testFixtures(project))
+
+    jmhRuntimeOnly("org.apache.logging.log4j:log4j-core:${log4jVersion}")
+    jmhRuntimeOnly("org.apache.logging.log4j:log4j-slf4j2-impl:${log4jVersion}")
 }
 
+// FakeNotionServer and the fixtures only serve tests and benchmarks, so they are not published
+val javaComponent = components["java"] as AdhocComponentWithVariants
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesApiElements"]) { skip() }
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesRuntimeElements"]) { skip() }
+
 tasks.test {
     useJUnitPlatform()
+}
+
+jmh {
+    includes.set(listOf(providers.gradleProperty("jmhIncludes").getOrElse(".*")))
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package adaptor.notion.benchmark;
+
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import adaptor.notion.utils.NotionUtil;
+import notion.api.v1.json.GsonSerializer;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.BlockType;
+import notion.api.v1.model.pages.PageProperty;
+import notion.api.v1.model.pages.PageProperty.RichText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the stages of the conversion pipeline on synthetic pages.
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate of every stage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+    @Param({"SMALL", "TYPICAL", "PATHOLOGICAL"})
+    public PageShape shape;
+
+    private List<Block> rawBlocks;
+    private Map<String, PageProperty> pageInfo;
+    private List<List<RichText>> richTexts;
+    private List<MdBlocks> mdBlocks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GsonSerializer serializer = new GsonSerializer(false);
+        rawBlocks = serializer.toBlocks(NotionFixtures.blocksJson(shape)).getResults();
+        pageInfo = serializer.toPage(NotionFixtures.pageJson(NotionFixtures.id(0, 1), "Benchmark page")).getProperties();
+
+        richTexts = new ArrayList<>();
+        for (Block block : rawBlocks) {
+            if (BlockType.Paragraph.equals(block.getType())) {
+                richTexts.add(block.asParagraph().getParagraph().getRichText());
+            }
+        }
+        mdBlocks = NotionUtil.notionPageToMdBlocks(rawBlocks, pageInfo);
+    }
+
+    @Benchmark
+    public void richTextParser(Blackhole blackhole) {
+        for (List<RichText> richText : richTexts) {
+            blackhole.consume(NotionUtil.richTextParser(richText));
+        }
+    }
+
+    @Benchmark
+    public void markdownParser(Blackhole blackhole) {
+        for (Block block : rawBlocks) {
+            blackhole.consume(NotionUtil.markdownParser(block));
+        }
+    }
+
+    @Benchmark
+    public List<MdBlocks> notionPageToMdBlocks() {
+        return NotionUtil.notionPageToMdBlocks(rawBlocks, pageInfo);
+    }
+
+    @Benchmark
+    public String generateMarkdownString() {
+        return NotionUtil.generateMarkdownString(mdBlocks);
+    }
+}
@@ -0,0 +1,90 @@
+package adaptor.notion.benchmark;
+
+import adaptor.notion.MarkdownConverter;
+import adaptor.notion.http.RateLimiter;
+import adaptor.notion.testing.FakeNotionServer;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test of the converter against a local {@link FakeNotionServer}.
+ * Every operation converts one whole page over HTTP, so throughput is pages per second and
+ * the sample mode reports the latency percentiles of a page, including rate limit retries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class ConverterLoadBenchmark {
+    private static final int PAGE_COUNT = 20;
+
+    @Param({"0.0", "0.02"})
+    public double rateLimitProbability;
+
+    @Param({"20"})
+    public int latencyMillis;
+
+    private final AtomicInteger nextPage = new AtomicInteger();
+    private FakeNotionServer server;
+    private MarkdownConverter converter;
+    private String[] pageIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Duration latency = Duration.ofMillis(latencyMillis);
+        server = FakeNotionServer.builder()
+                .latency(latency, latency.multipliedBy(2))
+                .rateLimitProbability(rateLimitProbability, 0)
+                .build();
+        pageIds = new String[PAGE_COUNT];
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            pageIds[i] = NotionFixtures.id(0, i + 1);
+            server.addGeneratedPage(pageIds[i], PageShape.TYPICAL, i + 1);
+        }
+        server.start();
+
+        converter = MarkdownConverter.builder()
+                .token("secret_benchmark")
+                .baseUrl(server.getBaseUrl())
+                .maxConcurrency(32)
+                .rateLimiter(RateLimiter.builder()
+                        .requestsPerSecond(10_000)
+                        .maxConcurrency(64)
+                        .build())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        converter.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String convertPage() {
+        String pageId = pageIds[Math.floorMod(nextPage.getAndIncrement(), PAGE_COUNT)];
+        return converter.toMarkdownString(converter.pageToMarkdownBlocks(pageId));
+    }
+}
@@ -0,0 +1,70 @@
+package adaptor.notion.benchmark;
+
+import adaptor.notion.json.StreamingJsonSerializer;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import notion.api.v1.json.GsonSerializer;
+import notion.api.v1.json.NotionJsonSerializer;
+import notion.api.v1.model.blocks.Blocks;
+import notion.api.v1.model.pages.Page;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the SDK serializer with {@link StreamingJsonSerializer} on block children and page responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializerBenchmark {
+    @Param({"SMALL", "TYPICAL", "PATHOLOGICAL"})
+    public PageShape shape;
+
+    private NotionJsonSerializer gsonSerializer;
+    private NotionJsonSerializer streamingSerializer;
+    private String blocksJson;
+    private String pageJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gsonSerializer = new GsonSerializer(false);
+        streamingSerializer = StreamingJsonSerializer.create();
+        blocksJson = NotionFixtures.blocksJson(shape);
+        pageJson = NotionFixtures.pageJson(NotionFixtures.id(0, 1), "Benchmark page");
+    }
+
+    @Benchmark
+    public Blocks gsonBlocks() {
+        return gsonSerializer.toBlocks(blocksJson);
+    }
+
+    @Benchmark
+    public Blocks streamingBlocks() {
+        return streamingSerializer.toBlocks(blocksJson);
+    }
+
+    @Benchmark
+    public Page gsonPage() {
+        return gsonSerializer.toPage(pageJson);
+    }
+
+    @Benchmark
+    public Page streamingPage() {
+        return streamingSerializer.toPage(pageJson);
+    }
+}
@@ -0,0 +1,297 @@
+package adaptor.notion;
+
+import adaptor.notion.http.JavaNetHttpClient;
+import adaptor.notion.http.NonClosingHttpClient;
+import adaptor.notion.http.RateLimiter;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.ConcurrencyUtil;
+import notion.api.v1.http.NotionHttpClient;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Registry of MarkdownConverter instances keyed by Notion API secret, for serving several
+ * workspaces from one JVM. Every tenant shares the registry's http client and executor,
+ * so connections are pooled across tenants. Converters are reference counted: each
+ * {@link #acquire(String)} must be matched by a {@link MarkdownConverter#close()}, and a
+ * converter no longer in use is torn down once it has been idle for the configured timeout.
+ */
+public class ConverterRegistry implements Closeable {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(ConverterRegistry.class);
+
+    /**
+     * Default time an unused converter is kept before being torn down
+     */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private static volatile ConverterRegistry defaultRegistry;
+
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private final Map<MarkdownConverter, Tenant> tenantsByConverter = new IdentityHashMap<>();
+    private final NotionHttpClient httpClient;
+    private final boolean ownsHttpClient;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxConcurrency;
+    private final Supplier<RateLimiter> rateLimiterFactory;
+    private final long idleTimeoutNanos;
+    private final ScheduledExecutorService evictionScheduler;
+    private boolean closed;
+
+    private ConverterRegistry(Builder builder) {
+        this.ownsHttpClient = builder.httpClient == null;
+        this.httpClient = ownsHttpClient ? JavaNetHttpClient.shared() : builder.httpClient;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? ConcurrencyUtil.newVirtualThreadExecutor("notion-to-md") : builder.executor;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.rateLimiterFactory = builder.rateLimiterFactory;
+        this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+
+        this.evictionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notion-to-md-registry-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1, builder.idleTimeout.toMillis() / 2);
+        evictionScheduler.scheduleWithFixedDelay(this::evictIdle, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the registry backing {@link MarkdownConverter#getInstance(String)}
+     * @return Process-wide registry with default settings
+     */
+    public static ConverterRegistry getDefault() {
+        if (defaultRegistry == null) {
+            synchronized (ConverterRegistry.class) {
+                if (defaultRegistry == null) {
+                    defaultRegistry = builder().build();
+                }
+            }
+        }
+        return defaultRegistry;
+    }
+
+    /**
+     * Gets the converter for a Notion API secret, creating it on first use.
+     * The caller holds a reference until it closes the returned converter.
+     * @param notionApiSecret Notion API secret key
+     * @return MarkdownConverter for the secret
+     * @throws IllegalArgumentException if API secret is null/empty
+     * @throws IllegalStateException if the registry is closed
+     */
+    public synchronized MarkdownConverter acquire(String notionApiSecret) {
+        Tenant tenant = tenant(notionApiSecret);
+        tenant.references++;
+        return tenant.converter;
+    }
+
+    /**
+     * Gets the converter for a Notion API secret without taking a reference, creating it on first use.
+     * The tenant is pinned: it is never evicted and only torn down with the registry,
+     * so callers that never close the converter do not leak references.
+     * Backs {@link MarkdownConverter#getInstance(String)}.
+     * @param notionApiSecret Notion API secret key
+     * @return MarkdownConverter for the secret
+     * @throws IllegalArgumentException if API secret is null/empty
+     * @throws IllegalStateException if the registry is closed
+     */
+    synchronized MarkdownConverter getPinned(String notionApiSecret) {
+        Tenant tenant = tenant(notionApiSecret);
+        tenant.pinned = true;
+        return tenant.converter;
+    }
+
+    private Tenant tenant(String notionApiSecret) {
+        if (notionApiSecret == null || notionApiSecret.trim().isEmpty()) {
+            throw new IllegalArgumentException("API secret cannot be null or empty");
+        }
+        if (closed) {
+            throw new IllegalStateException("Converter registry is closed");
+        }
+        Tenant tenant = tenants.get(notionApiSecret);
+        if (tenant == null) {
+            tenant = new Tenant(createConverter(notionApiSecret));
+            tenants.put(notionApiSecret, tenant);
+            tenantsByConverter.put(tenant.converter, tenant);
+            log.debug("Created converter for new tenant, {} tenants registered", tenants.size());
+        }
+        return tenant;
+    }
+
+    /**
+     * @return Number of tenants with a live converter
+     */
+    public synchronized int size() {
+        return tenants.size();
+    }
+
+    /**
+     * Releases a reference taken by {@link #acquire(String)}.
+     * Called by {@link MarkdownConverter#close()} for converters owned by this registry.
+     */
+    synchronized void release(MarkdownConverter converter) {
+        Tenant tenant = tenantsByConverter.get(converter);
+        if (tenant == null) {
+            log.debug("Released converter is no longer registered");
+            return;
+        }
+        if (tenant.references > 0) {
+            tenant.references--;
+        }
+        tenant.lastReleasedNanos = System.nanoTime();
+    }
+
+    /**
+     * Tears down every converter, and the shared http client and executor if the registry created them.
+     */
+    @Override
+    public void close() {
+        List<MarkdownConverter> converters = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Tenant tenant : tenants.values()) {
+                converters.add(tenant.converter);
+            }
+            tenants.clear();
+            tenantsByConverter.clear();
+        }
+        evictionScheduler.shutdown();
+        converters.forEach(MarkdownConverter::shutdown);
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+        if (ownsHttpClient) {
+            try {
+                httpClient.close();
+            } catch (Exception e) {
+                log.warn("Failed to close shared http client", e);
+            }
+        }
+    }
+
+    private MarkdownConverter createConverter(String notionApiSecret) {
+        return MarkdownConverter.builder()
+                .token(notionApiSecret)
+                .httpClient(new NonClosingHttpClient(httpClient))
+                .executor(executor)
+                .maxConcurrency(maxConcurrency)
+                .rateLimiter(rateLimiterFactory == null ? null : rateLimiterFactory.get())
+                .registry(this)
+                .build();
+    }
+
+    void evictIdle() {
+        List<MarkdownConverter> evicted = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            Iterator<Tenant> iterator = tenants.values().iterator();
+            while (iterator.hasNext()) {
+                Tenant tenant = iterator.next();
+                if (!tenant.pinned && tenant.references == 0 && now - tenant.lastReleasedNanos >= idleTimeoutNanos) {
+                    iterator.remove();
+                    tenantsByConverter.remove(tenant.converter);
+                    evicted.add(tenant.converter);
+                }
+            }
+        }
+        if (!evicted.isEmpty()) {
+            log.debug("Evicting {} idle tenants", evicted.size());
+            evicted.forEach(MarkdownConverter::shutdown);
+        }
+    }
+
+    private static class Tenant {
+        private final MarkdownConverter converter;
+        private int references;
+        private boolean pinned;
+        private long lastReleasedNanos = System.nanoTime();
+
+        private Tenant(MarkdownConverter converter) {
+            this.converter = converter;
+        }
+    }
+
+    public static class Builder {
+        private NotionHttpClient httpClient;
+        private ExecutorService executor;
+        private int maxConcurrency = MarkdownConverter.DEFAULT_MAX_CONCURRENCY;
+        private Supplier<RateLimiter> rateLimiterFactory;
+        private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the http client shared by every tenant.
+         * A caller-supplied client is not closed when the registry is closed.
+         */
+        public Builder httpClient(NotionHttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Sets the executor shared by every tenant.
+         * A caller-supplied executor is not shut down when the registry is closed.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of API requests in flight per tenant
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the factory creating the rate limiter of each tenant, since every token has its own quota
+         */
+        public Builder rateLimiterFactory(Supplier<RateLimiter> rateLimiterFactory) {
+            this.rateLimiterFactory = rateLimiterFactory;
+            return this;
+        }
+
+        /**
+         * Sets how long an unused converter is kept before being torn down
+         */
+        public Builder idleTimeout(Duration idleTimeout) {
+            if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+                throw new IllegalArgumentException("idleTimeout must be positive");
+            }
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public ConverterRegistry build() {
+            return new ConverterRegistry(this);
+        }
+    }
+}
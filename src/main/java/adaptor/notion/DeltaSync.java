@@ -0,0 +1,196 @@
+package adaptor.notion;
+
+import adaptor.notion.domain.BatchResult;
+import adaptor.notion.domain.PageResult;
+import adaptor.notion.journal.SyncWatermark;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.ConcurrencyUtil;
+import notion.api.v1.model.search.PageSearchResult;
+import notion.api.v1.model.search.SearchResult;
+import notion.api.v1.model.search.SearchResults;
+import notion.api.v1.request.search.SearchRequest;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Converts the pages edited since the previous sync. Pages are listed through the search endpoint,
+ * most recently edited first, and the listing stops at the first page edited before the persisted
+ * watermark, so a sync where little has changed takes a handful of requests. Changed pages are
+ * converted while the listing continues, reusing the properties returned by the search. Changed
+ * pages bypass the converter's block caches, since Notion does not move the timestamp of a block
+ * when only its nested blocks are edited.
+ *
+ * <p>The watermark only moves past pages that were converted and accepted by the listener: when a
+ * page fails, or the listener throws for it, the next sync starts again from that page.</p>
+ */
+public class DeltaSync {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(DeltaSync.class);
+    private static final int SEARCH_PAGE_SIZE = 100;
+
+    private final MarkdownConverter converter;
+    private final Path watermarkFile;
+
+    /**
+     * Creates a new DeltaSync
+     *
+     * @param converter Converter listing and converting the pages, not closed by the sync
+     * @param watermarkFile File holding the watermark between syncs, see {@link SyncWatermark}
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public DeltaSync(MarkdownConverter converter, Path watermarkFile) {
+        if (converter == null || watermarkFile == null) {
+            throw new IllegalArgumentException("Converter and watermark file cannot be null");
+        }
+        this.converter = converter;
+        this.watermarkFile = watermarkFile;
+    }
+
+    /**
+     * Converts the pages edited since the previous sync
+     * @return Converted and failed pages, keyed by page ID, most recently edited first
+     * @see #sync(Consumer)
+     */
+    public BatchResult sync() {
+        return sync(pageResult -> { });
+    }
+
+    /**
+     * Converts the pages edited since the previous sync, reporting every page to the listener as soon as it completes.
+     * The first sync converts every page. The watermark is saved once every page was reported,
+     * so outputs stored by the listener are never skipped by the next sync. A page the listener
+     * throws for is recorded as failed with the listener's exception.
+     * @param listener Callback invoked with the result of each page, in completion order
+     * @return Converted and failed pages, keyed by page ID, most recently edited first
+     * @throws IllegalArgumentException if listener is null
+     * @throws UncheckedIOException if the watermark cannot be read or saved
+     */
+    public BatchResult sync(Consumer<PageResult> listener) {
+        if (listener == null) {
+            log.error("Listener cannot be null");
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        SyncWatermark watermark = loadWatermark();
+        log.info("Syncing pages edited since {}", watermark);
+
+        Map<String, Instant> editedTimes = new HashMap<>();
+        List<CompletableFuture<PageResult>> pages = new ArrayList<>();
+        String cursor = null;
+        int requests = 0;
+        do {
+            String startCursor = cursor;
+            SearchResults results = ConcurrencyUtil.await(converter.request(notionClient -> notionClient.search(
+                    new SearchRequest("",
+                            new SearchRequest.SearchFilter("page", "object"),
+                            new SearchRequest.SearchSort("descending", "last_edited_time"),
+                            startCursor, SEARCH_PAGE_SIZE))));
+            requests++;
+            cursor = Boolean.TRUE.equals(results.getHasMore()) ? results.getNextCursor() : null;
+
+            for (SearchResult result : results.getResults()) {
+                if (!(result instanceof PageSearchResult)) {
+                    continue;
+                }
+                PageSearchResult page = (PageSearchResult) result;
+                Instant editedTime = Instant.parse(page.getLastEditedTime());
+                if (watermark.isBefore(editedTime)) {
+                    cursor = null;
+                    break;
+                }
+                if (!watermark.isChanged(page.getId(), editedTime) || page.getArchived()) {
+                    continue;
+                }
+                editedTimes.put(page.getId(), editedTime);
+                pages.add(converter.convertFetchedPage(page.getId(), page.getLastEditedTime(), page.getProperties(), false, true)
+                        .thenApply(pageResult -> notifyListener(listener, pageResult)));
+            }
+        } while (cursor != null);
+        log.debug("Found {} changed pages in {} search requests", pages.size(), requests);
+
+        ConcurrencyUtil.await(CompletableFuture.allOf(pages.toArray(new CompletableFuture[0])));
+        List<PageResult> pageResults = new ArrayList<>(pages.size());
+        for (CompletableFuture<PageResult> page : pages) {
+            pageResults.add(page.join());
+        }
+        BatchResult batchResult = new BatchResult(pageResults);
+        saveWatermark(advance(watermark, pageResults, editedTimes));
+        log.info("Sync finished: {} converted, {} failed",
+                batchResult.getResults().size(), batchResult.getFailures().size());
+        return batchResult;
+    }
+
+    /**
+     * Moves the watermark to the most recently edited converted page, or to the least recently
+     * edited failed page if any failed, so that page and everything edited after it are synced again
+     */
+    private static SyncWatermark advance(SyncWatermark watermark, List<PageResult> pageResults,
+                                         Map<String, Instant> editedTimes) {
+        if (pageResults.isEmpty()) {
+            return watermark;
+        }
+        Instant newest = null;
+        Instant oldestFailure = null;
+        for (PageResult pageResult : pageResults) {
+            Instant editedTime = editedTimes.get(pageResult.getPageId());
+            if (pageResult.isSuccess()) {
+                newest = newest == null || editedTime.isAfter(newest) ? editedTime : newest;
+            } else {
+                oldestFailure = oldestFailure == null || editedTime.isBefore(oldestFailure) ? editedTime : oldestFailure;
+            }
+        }
+        Instant lastEditedTime = oldestFailure != null ? oldestFailure : newest;
+        Set<String> pageIds = new LinkedHashSet<>();
+        if (lastEditedTime.equals(watermark.getLastEditedTime())) {
+            pageIds.addAll(watermark.getPageIds());
+        }
+        for (PageResult pageResult : pageResults) {
+            if (pageResult.isSuccess() && lastEditedTime.equals(editedTimes.get(pageResult.getPageId()))) {
+                pageIds.add(pageResult.getPageId());
+            }
+        }
+        return new SyncWatermark(lastEditedTime, pageIds);
+    }
+
+    private SyncWatermark loadWatermark() {
+        try {
+            return SyncWatermark.load(watermarkFile);
+        } catch (IOException e) {
+            log.error("Failed to read sync watermark {}", watermarkFile, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void saveWatermark(SyncWatermark watermark) {
+        try {
+            watermark.save(watermarkFile);
+            log.debug("Saved {}", watermark);
+        } catch (IOException e) {
+            log.error("Failed to save sync watermark {}", watermarkFile, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The page result, or a failure if the listener did not accept it
+     */
+    private static PageResult notifyListener(Consumer<PageResult> listener, PageResult pageResult) {
+        try {
+            listener.accept(pageResult);
+            return pageResult;
+        } catch (RuntimeException e) {
+            log.error("Sync listener failed for page {}", pageResult.getPageId(), e);
+            return pageResult.isSuccess() ? PageResult.failure(pageResult.getPageId(), e) : pageResult;
+        }
+    }
+}
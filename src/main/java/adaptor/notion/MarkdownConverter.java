@@ -1,16 +1,56 @@
 package adaptor.notion;
 
+import adaptor.notion.asset.AssetPipeline;
+import adaptor.notion.behavior.BehaviorRegistry;
+import adaptor.notion.behavior.EnumBehaviorManager.BehaviorStrategy;
+import adaptor.notion.cache.DiskBlockCache;
+import adaptor.notion.cache.IncrementalBlockCache;
+import adaptor.notion.domain.BatchResult;
 import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.domain.PageResult;
+import adaptor.notion.http.CachingHttpClient;
+import adaptor.notion.http.RateLimiter;
 import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.BlockIterator;
+import adaptor.notion.utils.BlockPublisher;
+import adaptor.notion.utils.BlockTreeLoader;
+import adaptor.notion.utils.ConcurrencyUtil;
 import adaptor.notion.utils.NotionClientWrapper;
 import adaptor.notion.log.NotionLoggerWrapper;
 import adaptor.notion.utils.NotionUtil;
-import notion.api.v1.model.blocks.Block;
+import adaptor.notion.utils.RequestExecutor;
+import adaptor.notion.utils.Utf8ChannelWriter;
+import notion.api.v1.NotionClient;
+import notion.api.v1.exception.NotionAPIError;
+import notion.api.v1.http.NotionHttpClient;
+import notion.api.v1.json.NotionJsonSerializer;
+import notion.api.v1.model.blocks.BlockType;
+import notion.api.v1.model.blocks.Blocks;
+import notion.api.v1.model.databases.QueryResults;
+import notion.api.v1.model.pages.Page;
 import notion.api.v1.model.pages.PageProperty;
+import notion.api.v1.request.databases.QueryDatabaseRequest;
 import org.slf4j.Logger;
 import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Converts Notion pages to Markdown format
@@ -18,38 +58,106 @@ import java.util.Map;
 
 public class MarkdownConverter implements Closeable {
     private static final Logger log = LoggerFactoryWrapper.getLogger(MarkdownConverter.class);
-    private static volatile MarkdownConverter instance;
+
+    /**
+     * Default maximum number of concurrent API requests per converter
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 3;
+
+    /**
+     * Maximum number of blocks a publisher converts ahead of its subscriber
+     */
+    public static final int DEFAULT_PUBLISHER_PREFETCH = 16;
+
+    /**
+     * Number of rows requested per database query, the maximum allowed by the API
+     */
+    private static final int QUERY_PAGE_SIZE = 100;
+
+    /**
+     * Number of pages of a batch converting at the same time, per concurrent request
+     */
+    private static final int PAGES_IN_FLIGHT_PER_REQUEST = 4;
+
+    /**
+     * Number of idle channel writers kept for reuse, with their encoding buffers
+     */
+    private static final int POOLED_CHANNEL_WRITERS = 4;
+
     private final NotionClientWrapper clientWrapper;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final RequestExecutor requestExecutor;
+    private final BlockTreeLoader blockTreeLoader;
+    private final ConverterRegistry registry;
+    private final AssetPipeline assets;
+    private final int pagesInFlight;
+    private final Queue<Utf8ChannelWriter> channelWriters = new ArrayBlockingQueue<>(POOLED_CHANNEL_WRITERS);
 
     /**
      * Creates a new MarkdownConverter
-     * @param notionApiSecret Notion API secret key
+     * @param builder Builder holding the converter configuration
      * @throws IllegalArgumentException if API secret is null/empty
      */
-    private MarkdownConverter(final String notionApiSecret) {
-        if (notionApiSecret == null || notionApiSecret.trim().isEmpty()) {
+    private MarkdownConverter(final Builder builder) {
+        if (builder.notionApiSecret == null || builder.notionApiSecret.trim().isEmpty()) {
             throw new IllegalArgumentException("API secret cannot be null or empty");
         }
         this.clientWrapper = NotionClientWrapper.builder()
-                .token(notionApiSecret)
+                .token(builder.notionApiSecret)
                 .logger(new NotionLoggerWrapper())
+                .httpClient(builder.httpClient)
+                .baseUrl(builder.baseUrl)
+                .jsonSerializer(builder.jsonSerializer)
+                .rateLimiter(builder.rateLimiter)
+                .diskCache(builder.diskCache)
                 .build();
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? ConcurrencyUtil.newVirtualThreadExecutor("notion-to-md") : builder.executor;
+        this.requestExecutor = new RequestExecutor(executor, builder.maxConcurrency, builder.rateLimiter);
+        this.pagesInFlight = builder.maxConcurrency * PAGES_IN_FLIGHT_PER_REQUEST;
+        this.assets = builder.assets;
+        this.blockTreeLoader = new BlockTreeLoader(clientWrapper, requestExecutor, builder.blockCache,
+                behaviors(builder));
+        this.registry = builder.registry;
     }
 
     /**
-     * Gets singleton instance of MarkdownConverter
-     * @param notionApiSecret Notion API secret key
-     * @return MarkdownConverter instance
+     * With an asset pipeline, image and file blocks start downloading their asset as soon as they are rendered
      */
-    public static MarkdownConverter getInstance(final String notionApiSecret) {
-        if (instance == null) {
-            synchronized (MarkdownConverter.class) {
-                if (instance == null) {
-                    instance = new MarkdownConverter(notionApiSecret);
+    private static BehaviorRegistry behaviors(Builder builder) {
+        BehaviorRegistry behaviors = builder.behaviors == null ? BehaviorRegistry.create() : builder.behaviors.copy();
+        if (builder.assets != null) {
+            for (BlockType type : new BlockType[]{BlockType.Image, BlockType.File}) {
+                BehaviorStrategy behavior = behaviors.get(type);
+                if (behavior != null) {
+                    behaviors.register(type, builder.assets.prefetching(behavior));
                 }
             }
         }
-        return instance;
+        return behaviors;
+    }
+
+    /**
+     * Gets the shared MarkdownConverter for a Notion API secret from the default registry.
+     * Each secret gets its own converter, which lives as long as the process: callers do not need
+     * to close it, and closing it does not tear it down for other callers.
+     * Use {@link ConverterRegistry#acquire(String)} for converters that are released once unused.
+     * @param notionApiSecret Notion API secret key
+     * @return MarkdownConverter instance
+     * @throws IllegalArgumentException if API secret is null/empty
+     * @see ConverterRegistry
+     */
+    public static MarkdownConverter getInstance(final String notionApiSecret) {
+        return ConverterRegistry.getDefault().getPinned(notionApiSecret);
+    }
+
+    /**
+     * Creates a builder for a MarkdownConverter with custom settings
+     * @return MarkdownConverter builder
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
@@ -59,13 +167,389 @@ public class MarkdownConverter implements Closeable {
      * @throws IllegalArgumentException if page ID is invalid
      */
     public List<MdBlocks> pageToMarkdownBlocks(String pageId) {
+        return ConcurrencyUtil.await(pageToMarkdownBlocksAsync(pageId));
+    }
+
+    /**
+     * Asynchronously converts a Notion page to markdown blocks.
+     * The page properties and the page's blocks are requested at the same time.
+     * @param pageId Notion page ID
+     * @return Future completing with the list of markdown blocks
+     * @throws IllegalArgumentException if page ID is invalid
+     */
+    public CompletableFuture<List<MdBlocks>> pageToMarkdownBlocksAsync(String pageId) {
+        if (pageId == null || pageId.trim().isEmpty()) {
+            log.error("Page ID cannot be null or empty");
+            throw new IllegalArgumentException("Page ID cannot be null or empty");
+        }
+        CompletableFuture<Page> page = pageAsync(pageId);
+        return page.thenCombine(pageBlocksAsync(pageId, page),
+                (fetched, blocks) -> withTitle(null, fetched.getProperties(), blocks));
+    }
+
+    CompletableFuture<Page> pageAsync(String pageId) {
+        return request(notionClient -> NotionUtil.getNotionPage(pageId, notionClient));
+    }
+
+    /**
+     * Version keying the top-level children of a page in the disk cache, read from a new request for the
+     * page so that a page of children is never looked up under an older version
+     */
+    private CompletableFuture<String> pageVersionAsync(String pageId) {
+        return clientWrapper.cachesBlockChildren()
+                ? pageAsync(pageId).thenApply(Page::getLastEditedTime)
+                : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Version keying the top-level children of a page in the disk cache. Without a disk cache the
+     * children are not keyed, so they are requested without waiting for the page.
+     */
+    private CompletableFuture<String> pageVersionAsync(CompletableFuture<Page> page) {
+        return clientWrapper.cachesBlockChildren()
+                ? page.thenApply(Page::getLastEditedTime)
+                : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Fetches one page of a block's children. Children cached on disk for the parent version are
+     * read right away; the others are requested within the converter's request limit.
+     */
+    private CompletableFuture<Blocks> blockChildrenAsync(String blockId, String cursor, String parentVersion) {
+        if (clientWrapper.cachesBlockChildren()) {
+            try {
+                return CompletableFuture.completedFuture(
+                        clientWrapper.getClient(parentVersion, CachingHttpClient.Mode.ONLY_IF_CACHED)
+                                .retrieveBlockChildren(blockId, cursor, BlockIterator.PAGE_SIZE));
+            } catch (NotionAPIError e) {
+                log.trace("Children of blockId: {} are not cached", blockId);
+            }
+        }
+        NotionClient notionClient = clientWrapper.getClient(parentVersion, CachingHttpClient.Mode.CACHED);
+        return requestExecutor.submit(() -> notionClient.retrieveBlockChildren(blockId, cursor, BlockIterator.PAGE_SIZE));
+    }
+
+    /**
+     * Runs an API call within the converter's request limit
+     */
+    <T> CompletableFuture<T> request(Function<NotionClient, T> call) {
+        NotionClient notionClient = clientWrapper.getClient();
+        return requestExecutor.submit(() -> call.apply(notionClient));
+    }
+
+    /**
+     * Converts the blocks of a page that is being retrieved, with their assets localized if the converter
+     * has an asset pipeline. With a disk cache, the blocks wait for the page, whose last_edited_time keys
+     * its cached children; otherwise both are requested at the same time.
+     */
+    CompletableFuture<List<MdBlocks>> pageBlocksAsync(String pageId, CompletableFuture<Page> page) {
+        return pageVersionAsync(page).thenCompose(lastEditedTime -> pageBlocksAsync(pageId, lastEditedTime, false));
+    }
+
+    /**
+     * Converts the blocks of a page whose last_edited_time is known. When fresh, neither cached blocks
+     * nor cached block children are reused, so edits Notion does not report on the page's blocks are
+     * picked up; the caches are refreshed.
+     */
+    CompletableFuture<List<MdBlocks>> pageBlocksAsync(String pageId, String lastEditedTime, boolean fresh) {
+        CompletableFuture<List<MdBlocks>> blocks = blockTreeLoader.loadChildrenAsync(pageId, lastEditedTime, fresh);
+        return assets == null ? blocks : blocks.thenCompose(assets::localize);
+    }
+
+    static List<MdBlocks> withTitle(MdBlocks frontMatter, Map<String, PageProperty> properties,
+                                            List<MdBlocks> blocks) {
+        List<MdBlocks> mdBlocks = new ArrayList<>(blocks.size() + 2);
+        if (frontMatter != null) {
+            mdBlocks.add(frontMatter);
+        }
+        MdBlocks titleBlock = NotionUtil.pageTitleToMdBlocks(properties);
+        if (titleBlock != null) {
+            mdBlocks.add(titleBlock);
+        }
+        mdBlocks.addAll(blocks);
+        return mdBlocks;
+    }
+
+    /**
+     * Converts many Notion pages concurrently
+     * @param pageIds IDs of the Notion pages to convert
+     * @return Converted pages and failed pages, keyed by page ID
+     * @throws IllegalArgumentException if page IDs are null
+     * @see #convertAll(Collection, Consumer)
+     */
+    public BatchResult convertAll(Collection<String> pageIds) {
+        return convertAll(pageIds, pageResult -> { });
+    }
+
+    /**
+     * Converts many Notion pages concurrently, reporting every page to the listener as soon as it completes.
+     * A failing page is reported and recorded without failing the rest of the batch.
+     * @param pageIds IDs of the Notion pages to convert
+     * @param listener Callback invoked with the result of each page, in completion order
+     * @return Converted pages and failed pages, keyed by page ID
+     * @throws IllegalArgumentException if page IDs or listener are null
+     */
+    public BatchResult convertAll(Collection<String> pageIds, Consumer<PageResult> listener) {
+        return ConcurrencyUtil.await(convertAllAsync(pageIds, listener));
+    }
+
+    /**
+     * Asynchronously converts many Notion pages concurrently.
+     * At most four pages per concurrent request are converting at any time; the next page starts
+     * as earlier ones finish, so a large batch does not hold every page's blocks in memory at once.
+     * @param pageIds IDs of the Notion pages to convert
+     * @param listener Callback invoked with the result of each page, in completion order
+     * @return Future completing with the converted and failed pages once every page is done
+     * @throws IllegalArgumentException if page IDs or listener are null
+     */
+    public CompletableFuture<BatchResult> convertAllAsync(Collection<String> pageIds, Consumer<PageResult> listener) {
+        if (pageIds == null || listener == null) {
+            log.error("Page IDs and listener cannot be null");
+            throw new IllegalArgumentException("Page IDs and listener cannot be null");
+        }
+        log.info("Converting batch of {} pages", pageIds.size());
+
+        List<CompletableFuture<PageResult>> pages = new ArrayList<>(pageIds.size());
+        for (String pageId : pageIds) {
+            startInWindow(pages, () -> convertForBatch(pageId).thenApply(pageResult -> {
+                notifyListener(listener, pageResult);
+                return pageResult;
+            }));
+        }
+        return CompletableFuture.allOf(pages.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<PageResult> pageResults = new ArrayList<>(pages.size());
+                    for (CompletableFuture<PageResult> page : pages) {
+                        pageResults.add(page.join());
+                    }
+                    BatchResult batchResult = new BatchResult(pageResults);
+                    log.info("Batch conversion finished: {} converted, {} failed",
+                            batchResult.getResults().size(), batchResult.getFailures().size());
+                    return batchResult;
+                });
+    }
+
+    /**
+     * Starts a page conversion once the page {@code pagesInFlight} places before it is done. Every
+     * window slot holds one page at a time, so at most {@code pagesInFlight} pages are converting.
+     */
+    private CompletableFuture<PageResult> startInWindow(List<CompletableFuture<PageResult>> started,
+                                                        Supplier<CompletableFuture<PageResult>> conversion) {
+        int index = started.size();
+        CompletableFuture<PageResult> previous = index < pagesInFlight
+                ? CompletableFuture.completedFuture(null)
+                : started.get(index - pagesInFlight);
+        CompletableFuture<PageResult> page = previous.handle((pageResult, error) -> null)
+                .thenCompose(ignored -> conversion.get());
+        started.add(page);
+        return page;
+    }
+
+    private CompletableFuture<PageResult> convertForBatch(String pageId) {
+        try {
+            return toPageResult(pageId, pageToMarkdownBlocksAsync(pageId));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(PageResult.failure(pageId, e));
+        }
+    }
+
+    private static CompletableFuture<PageResult> toPageResult(String pageId, CompletableFuture<List<MdBlocks>> page) {
+        return page.handle((mdBlocks, error) -> {
+            if (error == null) {
+                return PageResult.success(pageId, mdBlocks);
+            }
+            Throwable cause = ConcurrencyUtil.unwrap(error);
+            log.warn("Failed to convert page {} in batch: {}", pageId, cause.getMessage());
+            return PageResult.failure(pageId, cause);
+        });
+    }
+
+    /**
+     * Converts every row page of a Notion database
+     * @param databaseId Notion database ID
+     * @return Converted rows and failed rows, keyed by page ID
+     * @throws IllegalArgumentException if database ID is invalid
+     * @see #exportDatabase(String, Consumer)
+     */
+    public BatchResult exportDatabase(String databaseId) {
+        return exportDatabase(databaseId, pageResult -> { });
+    }
+
+    /**
+     * Converts every row page of a Notion database, reporting every row to the listener as soon as it completes.
+     * Each row starts with its properties as YAML front matter, followed by its title and its blocks.
+     * @param databaseId Notion database ID
+     * @param listener Callback invoked with the result of each row, in completion order
+     * @return Converted rows and failed rows, keyed by page ID
+     * @throws IllegalArgumentException if database ID is invalid or listener is null
+     */
+    public BatchResult exportDatabase(String databaseId, Consumer<PageResult> listener) {
+        return ConcurrencyUtil.await(exportDatabaseAsync(databaseId, listener));
+    }
+
+    /**
+     * Asynchronously converts every row page of a Notion database.
+     * Query results are paged through while the rows already received are converted concurrently,
+     * with at most four rows per concurrent request converting at any time. The next page of results
+     * is requested once the last row of the current page has started converting, so exactly one page
+     * is fetched ahead of the conversions and a large database is never held in memory at once.
+     * Row properties come with the query results, so no extra
+     * request is made per row for them. A failing row is reported and recorded without failing
+     * the rest of the export; a failing query fails the export.
+     * @param databaseId Notion database ID
+     * @param listener Callback invoked with the result of each row, in completion order
+     * @return Future completing with the converted and failed rows, in database order, once every row is done
+     * @throws IllegalArgumentException if database ID is invalid or listener is null
+     */
+    public CompletableFuture<BatchResult> exportDatabaseAsync(String databaseId, Consumer<PageResult> listener) {
+        if (databaseId == null || databaseId.trim().isEmpty() || listener == null) {
+            log.error("Database ID cannot be null or empty and listener cannot be null");
+            throw new IllegalArgumentException("Database ID cannot be null or empty and listener cannot be null");
+        }
+        log.info("Exporting database {}", databaseId);
+
+        List<CompletableFuture<PageResult>> rows = new ArrayList<>();
+        return exportRows(databaseId, null, rows, listener)
+                .thenCompose(queried -> CompletableFuture.allOf(rows.toArray(new CompletableFuture[0]))
+                        .thenApply(ignored -> {
+                            List<PageResult> pageResults = new ArrayList<>(rows.size());
+                            for (CompletableFuture<PageResult> row : rows) {
+                                pageResults.add(row.join());
+                            }
+                            BatchResult batchResult = new BatchResult(pageResults);
+                            log.info("Database export finished: {} converted, {} failed",
+                                    batchResult.getResults().size(), batchResult.getFailures().size());
+                            return batchResult;
+                        }));
+    }
+
+    /**
+     * Queries one page of rows and queues their conversions behind the rows before them, then queries
+     * the following page once the last of these rows has started. Pages are queried one after another,
+     * so the rows list is only ever appended to by one query at a time.
+     * Completes once every query page is received and every row is queued.
+     */
+    private CompletableFuture<Void> exportRows(String databaseId, String cursor,
+                                               List<CompletableFuture<PageResult>> rows,
+                                               Consumer<PageResult> listener) {
+        CompletableFuture<QueryResults> query = request(notionClient -> notionClient.queryDatabase(
+                new QueryDatabaseRequest(databaseId, null, null, cursor, QUERY_PAGE_SIZE)));
+        return query.thenCompose(results -> {
+            log.debug("Database {} returned {} rows", databaseId, results.getResults().size());
+            for (Page row : results.getResults()) {
+                startInWindow(rows, () -> convertFetchedPage(row, true).thenApply(pageResult -> {
+                    notifyListener(listener, pageResult);
+                    return pageResult;
+                }));
+            }
+            if (!Boolean.TRUE.equals(results.getHasMore()) || results.getNextCursor() == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            int lastRowGate = rows.size() - 1 - pagesInFlight;
+            CompletableFuture<?> lastRowStarted = lastRowGate < 0
+                    ? CompletableFuture.completedFuture(null)
+                    : rows.get(lastRowGate);
+            return lastRowStarted.handle((pageResult, error) -> null)
+                    .thenCompose(ignored -> exportRows(databaseId, results.getNextCursor(), rows, listener));
+        });
+    }
+
+    /**
+     * Converts a page whose properties were already returned by a query or search, without requesting them again
+     */
+    CompletableFuture<PageResult> convertFetchedPage(Page page, boolean withFrontMatter) {
+        return convertFetchedPage(page, withFrontMatter, false);
+    }
+
+    /**
+     * Converts a page whose properties were already returned, bypassing the block caches when fresh
+     * @see #pageBlocksAsync(String, boolean)
+     */
+    CompletableFuture<PageResult> convertFetchedPage(Page page, boolean withFrontMatter, boolean fresh) {
+        return convertFetchedPage(page.getId(), page.getLastEditedTime(), page.getProperties(), withFrontMatter, fresh);
+    }
+
+    /**
+     * Converts a page from its ID and already returned properties, e.g. those of a search result
+     * @see #convertFetchedPage(Page, boolean, boolean)
+     */
+    CompletableFuture<PageResult> convertFetchedPage(String pageId, String lastEditedTime,
+                                                     Map<String, PageProperty> pageProperties,
+                                                     boolean withFrontMatter, boolean fresh) {
+        Map<String, PageProperty> properties = pageProperties == null ? Map.of() : pageProperties;
+        MdBlocks frontMatter = withFrontMatter ? NotionUtil.pagePropertiesToFrontMatter(properties) : null;
+        return toPageResult(pageId, pageBlocksAsync(pageId, lastEditedTime, fresh)
+                .thenApply(blocks -> withTitle(frontMatter, properties, blocks)));
+    }
+
+    private static void notifyListener(Consumer<PageResult> listener, PageResult pageResult) {
+        try {
+            listener.accept(pageResult);
+        } catch (RuntimeException e) {
+            log.error("Batch listener failed for page {}", pageResult.getPageId(), e);
+        }
+    }
+
+    /**
+     * Lazily converts a Notion page to markdown blocks.
+     * The page title is emitted first, followed by the page's blocks in document order.
+     * The page properties and the first page of block children are requested right away, within the
+     * converter's request limit; further pages of children are fetched one at a time as the stream is
+     * consumed, and the nested children of each block are loaded before it is emitted.
+     * @param pageId Notion page ID
+     * @return Sequential stream of markdown blocks
+     * @throws IllegalArgumentException if page ID is invalid
+     */
+    public Stream<MdBlocks> streamMarkdownBlocks(String pageId) {
+        if (pageId == null || pageId.trim().isEmpty()) {
+            log.error("Page ID cannot be null or empty");
+            throw new IllegalArgumentException("Page ID cannot be null or empty");
+        }
+        CompletableFuture<Page> page = pageAsync(pageId);
+        CompletableFuture<String> pageVersion = pageVersionAsync(page);
+        CompletableFuture<Blocks> firstPage = pageVersion.thenCompose(version -> blockChildrenAsync(pageId, null, version));
+        Stream<MdBlocks> title = Stream.of(page)
+                .map(fetched -> NotionUtil.pageTitleToMdBlocks(ConcurrencyUtil.await(fetched).getProperties()))
+                .filter(Objects::nonNull);
+        BlockIterator iterator = new BlockIterator(pageId, cursor -> ConcurrencyUtil.await(cursor == null
+                ? firstPage
+                : blockChildrenAsync(pageId, cursor, ConcurrencyUtil.await(pageVersion))));
+        Stream<MdBlocks> blocks = StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(blockTreeLoader::loadBlock)
+                .filter(Objects::nonNull);
+        if (assets != null) {
+            blocks = blocks.map(mdBlock -> ConcurrencyUtil.await(assets.localize(List.of(mdBlock))).get(0));
+        }
+        return Stream.concat(title, blocks);
+    }
+
+    /**
+     * Publishes the converted blocks of a Notion page as they are ready, honoring subscriber demand.
+     * The page title is emitted first, followed by the page's blocks in document order.
+     * Block children are only requested from the API while the subscriber has outstanding demand, through
+     * the same request limit as the other conversions, and up to {@link #DEFAULT_PUBLISHER_PREFETCH} requested blocks are converted concurrently.
+     * Nothing is requested until a subscriber subscribes, and every subscriber gets its own pass over the page.
+     * @param pageId Notion page ID
+     * @return Publisher of markdown blocks
+     * @throws IllegalArgumentException if page ID is invalid
+     */
+    public Flow.Publisher<MdBlocks> publishMarkdownBlocks(String pageId) {
         if (pageId == null || pageId.trim().isEmpty()) {
             log.error("Page ID cannot be null or empty");
             throw new IllegalArgumentException("Page ID cannot be null or empty");
         }
-        List<Block> notionBlocks = NotionUtil.getNotionBlocks(pageId, clientWrapper.getClient());
-        Map<String, PageProperty> pageInfo = NotionUtil.getNotionPageInfo(pageId, clientWrapper.getClient());
-        return NotionUtil.notionPageToMdBlocks(notionBlocks, pageInfo);
+        return new BlockPublisher(
+                () -> pageAsync(pageId).thenApply(page -> NotionUtil.pageTitleToMdBlocks(page.getProperties())),
+                cursor -> pageVersionAsync(pageId).thenCompose(version -> blockChildrenAsync(pageId, cursor, version)),
+                block -> {
+                    CompletableFuture<MdBlocks> mdBlock = blockTreeLoader.loadBlockAsync(block);
+                    return assets == null ? mdBlock : mdBlock.thenCompose(converted -> converted == null
+                            ? CompletableFuture.completedFuture(null)
+                            : assets.localize(List.of(converted)).thenApply(localized -> localized.get(0)));
+                },
+                executor,
+                DEFAULT_PUBLISHER_PREFETCH);
     }
 
     /**
@@ -82,8 +566,240 @@ public class MarkdownConverter implements Closeable {
         return NotionUtil.generateMarkdownString(mdBlocks);
     }
 
+    /**
+     * Writes markdown blocks to an output without building the whole document in memory
+     * @param mdBlocks List of markdown blocks
+     * @param out Output receiving the markdown text, e.g. a Writer or StringBuilder
+     * @throws IOException if the output fails
+     * @throws IllegalArgumentException if blocks or output are null
+     */
+    public void writeMarkdown(List<MdBlocks> mdBlocks, Appendable out) throws IOException {
+        if (mdBlocks == null || out == null) {
+            log.error("MdBlocks and output cannot be null");
+            throw new IllegalArgumentException("MdBlocks and output cannot be null");
+        }
+        NotionUtil.writeMarkdown(mdBlocks.iterator(), out);
+    }
+
+    /**
+     * Writes markdown blocks to a channel as UTF-8, producing the same bytes as the UTF-8 encoding of
+     * {@link #toMarkdownString(List)}. The channel is written to completion but not closed, and the
+     * encoding buffers are reused across calls.
+     * @param mdBlocks List of markdown blocks
+     * @param channel Channel receiving the encoded markdown
+     * @throws IOException if the channel fails
+     * @throws IllegalArgumentException if blocks or channel are null
+     */
+    public void writeMarkdown(List<MdBlocks> mdBlocks, WritableByteChannel channel) throws IOException {
+        if (channel == null) {
+            log.error("Channel cannot be null");
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        Utf8ChannelWriter writer = channelWriters.poll();
+        writer = writer == null ? new Utf8ChannelWriter(channel) : writer.reset(channel);
+        writeMarkdown(mdBlocks, writer);
+        writer.finish();
+        channelWriters.offer(writer);
+    }
+
+    /**
+     * Converts a Notion page and writes its markdown to an output block by block.
+     * Blocks are fetched, converted and written as the page is read, so neither the
+     * block list nor the markdown document is held in memory as a whole.
+     * @param pageId Notion page ID
+     * @param out Output receiving the markdown text
+     * @throws IOException if the output fails
+     * @throws IllegalArgumentException if page ID is invalid or output is null
+     */
+    public void writePageMarkdown(String pageId, Appendable out) throws IOException {
+        if (out == null) {
+            log.error("Output cannot be null");
+            throw new IllegalArgumentException("Output cannot be null");
+        }
+        try (Stream<MdBlocks> mdBlocks = streamMarkdownBlocks(pageId)) {
+            NotionUtil.writeMarkdown(mdBlocks.iterator(), out);
+        }
+    }
+
+    /**
+     * Releases the converter. A converter obtained from a {@link ConverterRegistry} only
+     * releases the caller's reference; a standalone converter is torn down immediately.
+     */
     @Override
     public void close() {
+        if (registry != null) {
+            registry.release(this);
+        } else {
+            shutdown();
+        }
+    }
+
+    void shutdown() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
         clientWrapper.close();
     }
+
+    public static class Builder {
+        private String notionApiSecret;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        private ExecutorService executor;
+        private RateLimiter rateLimiter;
+        private NotionHttpClient httpClient;
+        private String baseUrl;
+        private NotionJsonSerializer jsonSerializer;
+        private IncrementalBlockCache blockCache;
+        private DiskBlockCache diskCache;
+        private BehaviorRegistry behaviors;
+        private AssetPipeline assets;
+        private ConverterRegistry registry;
+
+        private Builder() {
+
+        }
+
+        public Builder token(String notionApiSecret) {
+            this.notionApiSecret = notionApiSecret;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of API requests in flight, shared by page, block and batch conversions
+         * @param maxConcurrency Maximum number of concurrent requests
+         * @return This builder
+         * @throws IllegalArgumentException if maxConcurrency is not positive
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the executor running API requests and conversions.
+         * A caller-supplied executor is not shut down when the converter is closed.
+         * Defaults to a virtual thread per task executor.
+         * @param executor Executor to use
+         * @return This builder
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Throttles every API request of the converter, retrying rate limited requests.
+         * Disabled by default.
+         * @param rateLimiter Rate limiter to use
+         * @return This builder
+         */
+        public Builder rateLimiter(RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Sets the http client used for API requests. Defaults to a pooled HTTP/2 {@link adaptor.notion.http.JavaNetHttpClient}.
+         * @param httpClient Http client to use
+         * @return This builder
+         */
+        public Builder httpClient(NotionHttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Sets the base URL of the Notion API, e.g. to point the converter at a local stand-in server.
+         * Defaults to the public Notion API.
+         * @param baseUrl API base URL including the version prefix, e.g. {@code http://localhost:8080/v1}
+         * @return This builder
+         */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * Sets the serializer reading API responses. Defaults to the Notion SDK serializer;
+         * {@link adaptor.notion.json.StreamingJsonSerializer#create()} parses faster by skipping
+         * fields that are never rendered.
+         * @param jsonSerializer Serializer to use
+         * @return This builder
+         */
+        public Builder jsonSerializer(NotionJsonSerializer jsonSerializer) {
+            this.jsonSerializer = jsonSerializer;
+            return this;
+        }
+
+        /**
+         * Enables incremental re-conversion: blocks whose last_edited_time has not moved since
+         * the previous conversion are reused instead of being rendered again. This saves rendering only,
+         * not API requests: the children of every container block are still listed, so a re-sync
+         * issues as many requests as a full conversion. Use a disk cache to save requests.
+         * @param blockCache Cache of converted blocks, may be shared between converters of the same workspace
+         * @return This builder
+         */
+        public Builder blockCache(IncrementalBlockCache blockCache) {
+            this.blockCache = blockCache;
+            return this;
+        }
+
+        /**
+         * Serves block children responses from a persistent cache, so a restarted process
+         * does not crawl the workspace again. The cache is not closed with the converter.
+         * @param diskCache Persistent cache of block children responses
+         * @return This builder
+         */
+        public Builder diskCache(DiskBlockCache diskCache) {
+            this.diskCache = diskCache;
+            return this;
+        }
+
+        /**
+         * Sets the behaviors rendering each block type. Defaults to the built-in behaviors.
+         * @param behaviors Registry of behaviors, copied when the converter is built
+         * @return This builder
+         * @see #behavior(BlockType, BehaviorStrategy)
+         */
+        public Builder behaviors(BehaviorRegistry behaviors) {
+            this.behaviors = behaviors;
+            return this;
+        }
+
+        /**
+         * Renders a block type with a custom behavior, replacing the built-in one if any.
+         * A registry passed to {@link #behaviors(BehaviorRegistry)} is copied, not modified.
+         * @param type Block type rendered by the behavior
+         * @param strategy Behavior writing the markdown content of the block
+         * @return This builder
+         * @throws IllegalArgumentException if type or strategy is null
+         */
+        public Builder behavior(BlockType type, BehaviorStrategy strategy) {
+            behaviors = (behaviors == null ? BehaviorRegistry.create() : behaviors.copy()).register(type, strategy);
+            return this;
+        }
+
+        /**
+         * Downloads the images and files of converted pages while they are converted and points
+         * their links at the local copies. The pipeline is not closed with the converter.
+         * @param assets Asset pipeline, may be shared between converters
+         * @return This builder
+         */
+        public Builder assets(AssetPipeline assets) {
+            this.assets = assets;
+            return this;
+        }
+
+        Builder registry(ConverterRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        public MarkdownConverter build() {
+            return new MarkdownConverter(this);
+        }
+    }
 }
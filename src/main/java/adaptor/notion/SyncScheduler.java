@@ -0,0 +1,497 @@
+package adaptor.notion;
+
+import adaptor.notion.domain.PageResult;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.ConcurrencyUtil;
+import notion.api.v1.model.pages.Page;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a set of pages in sync in the background, checking the pages most likely to have changed first.
+ * Each page has a check interval, adapted multiplicatively to how often the page is edited: a check
+ * finding the page edited halves it, a check finding it unchanged lengthens it by half, within the
+ * shortest and longest intervals. The interval estimates the time between edits, so a page's staleness,
+ * the time since it was last checked over its interval, is the expected number of edits since then.
+ * A page becomes due once its interval has passed, with jitter so pages added together spread out.
+ * When more pages are due than the workers can check, the stalest due page is checked first, which
+ * spends the request budget on the pages most likely to have changed.
+ *
+ * <p>A check requests the page alone, and the page is only converted, bypassing the converter's block
+ * caches, and handed to the listener when its last_edited_time moved. Queue depth and lag tell
+ * whether the workers keep up.</p>
+ */
+public class SyncScheduler implements Closeable {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(SyncScheduler.class);
+    private static final int DEFAULT_WORKERS = 4;
+    private static final Duration DEFAULT_MIN_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_MAX_INTERVAL = Duration.ofHours(24);
+    private static final double DEFAULT_JITTER = 0.2;
+    private static final double EDITED_INTERVAL_FACTOR = 0.5;
+    private static final double UNCHANGED_INTERVAL_FACTOR = 1.5;
+
+    private final MarkdownConverter converter;
+    private final Consumer<PageResult> listener;
+    private final int workers;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double jitter;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queueChanged = lock.newCondition();
+    private final PriorityQueue<PageState> waiting = new PriorityQueue<>(Comparator.comparingLong(state -> state.dueAtMillis));
+    private final List<PageState> due = new ArrayList<>();
+    private final Map<String, PageState> pages = new HashMap<>();
+    private final Semaphore idleWorkers;
+    private final ExecutorService executor;
+    private final AtomicInteger activeChecks = new AtomicInteger();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong conversions = new AtomicLong();
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private SyncScheduler(Builder builder) {
+        this.converter = builder.converter;
+        this.listener = builder.listener;
+        this.workers = builder.workers;
+        this.minIntervalMillis = builder.minInterval.toMillis();
+        this.maxIntervalMillis = builder.maxInterval.toMillis();
+        this.jitter = builder.jitter;
+        this.idleWorkers = new Semaphore(workers);
+        this.executor = ConcurrencyUtil.newVirtualThreadExecutor("notion-sync", workers);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts syncing pages in the background
+     * @throws IllegalStateException if the scheduler was already started or is closed
+     */
+    public void start() {
+        lock.lock();
+        try {
+            if (dispatcher != null || executor.isShutdown()) {
+                throw new IllegalStateException("Sync scheduler already started or closed");
+            }
+            running = true;
+            dispatcher = new Thread(this::dispatch, "notion-to-md-sync-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        } finally {
+            lock.unlock();
+        }
+        log.info("Sync scheduler started with {} workers", workers);
+    }
+
+    /**
+     * Adds a page to keep in sync. A new page is due right away, so it is converted
+     * after the pages already due. Adding a page twice has no effect.
+     * @param pageId Notion page ID
+     * @throws IllegalArgumentException if page ID is invalid
+     */
+    public void add(String pageId) {
+        if (pageId == null || pageId.trim().isEmpty()) {
+            log.error("Page ID cannot be null or empty");
+            throw new IllegalArgumentException("Page ID cannot be null or empty");
+        }
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (pages.containsKey(pageId)) {
+                return;
+            }
+            PageState state = new PageState(pageId, minIntervalMillis);
+            state.lastCheckedMillis = now;
+            state.dueAtMillis = now + (long) (ThreadLocalRandom.current().nextDouble() * jitter * minIntervalMillis);
+            pages.put(pageId, state);
+            waiting.add(state);
+            queueChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds pages to keep in sync
+     * @param pageIds Notion page IDs
+     * @throws IllegalArgumentException if a page ID is invalid
+     * @see #add(String)
+     */
+    public void addAll(Collection<String> pageIds) {
+        for (String pageId : pageIds) {
+            add(pageId);
+        }
+    }
+
+    /**
+     * Stops syncing a page. A check already running for the page completes.
+     * @param pageId Notion page ID
+     */
+    public void remove(String pageId) {
+        lock.lock();
+        try {
+            PageState state = pages.remove(pageId);
+            if (state != null && !waiting.remove(state)) {
+                due.remove(state);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of pages whose check is due but has not started
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            moveDuePages(System.currentTimeMillis());
+            return due.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return How long the most overdue page has been waiting for its check, zero if no page is overdue
+     */
+    public Duration getLag() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            moveDuePages(now);
+            long lagMillis = 0;
+            for (PageState state : due) {
+                lagMillis = Math.max(lagMillis, now - state.dueAtMillis);
+            }
+            return Duration.ofMillis(lagMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of pages kept in sync
+     */
+    public int getPageCount() {
+        lock.lock();
+        try {
+            return pages.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of checks running right now
+     */
+    public int getActiveWorkers() {
+        return activeChecks.get();
+    }
+
+    /**
+     * @return Number of checks made since the scheduler was created
+     */
+    public long getCheckCount() {
+        return checks.get();
+    }
+
+    /**
+     * @return Number of changed pages converted since the scheduler was created
+     */
+    public long getConversionCount() {
+        return conversions.get();
+    }
+
+    /**
+     * Stops the scheduler. Running checks complete, but their pages are not checked again.
+     * The converter is not closed.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            queueChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        executor.shutdown();
+        log.info("Sync scheduler stopped after {} checks and {} conversions", checks.get(), conversions.get());
+    }
+
+    /**
+     * Hands due pages to idle workers, waiting for the next page to become due or for a worker to become idle
+     */
+    private void dispatch() {
+        try {
+            while (running) {
+                idleWorkers.acquire();
+                PageState state = takeDuePage();
+                if (state == null) {
+                    idleWorkers.release();
+                    return;
+                }
+                try {
+                    executor.execute(() -> {
+                        activeChecks.incrementAndGet();
+                        try {
+                            check(state);
+                        } finally {
+                            activeChecks.decrementAndGet();
+                            idleWorkers.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    log.debug("Sync scheduler closed while dispatching page {}", state.pageId);
+                    idleWorkers.release();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Sync dispatcher failed", e);
+        }
+    }
+
+    /**
+     * @return Stalest due page, or null once the scheduler is stopped
+     */
+    private PageState takeDuePage() throws InterruptedException {
+        lock.lock();
+        try {
+            while (running) {
+                long now = System.currentTimeMillis();
+                moveDuePages(now);
+                if (!due.isEmpty()) {
+                    return takeStalest(now);
+                }
+                PageState next = waiting.peek();
+                if (next == null) {
+                    queueChanged.await();
+                } else {
+                    queueChanged.await(next.dueAtMillis - now, TimeUnit.MILLISECONDS);
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void moveDuePages(long now) {
+        while (!waiting.isEmpty() && waiting.peek().dueAtMillis <= now) {
+            due.add(waiting.poll());
+        }
+    }
+
+    /**
+     * Pages with different intervals grow stale at different rates, so their order changes over time
+     * and the due pages are scanned rather than kept sorted
+     */
+    private PageState takeStalest(long now) {
+        int stalest = 0;
+        for (int i = 1; i < due.size(); i++) {
+            if (due.get(i).staleness(now) > due.get(stalest).staleness(now)) {
+                stalest = i;
+            }
+        }
+        PageState state = due.get(stalest);
+        due.set(stalest, due.get(due.size() - 1));
+        due.remove(due.size() - 1);
+        return state;
+    }
+
+    private void check(PageState state) {
+        long checkedAt = System.currentTimeMillis();
+        Boolean edited = null;
+        try {
+            Page page = ConcurrencyUtil.await(converter.request(notionClient -> notionClient.retrievePage(state.pageId, null)));
+            checks.incrementAndGet();
+            if (page.getLastEditedTime().equals(state.lastEditedTime)) {
+                log.trace("Page {} unchanged since {}", state.pageId, state.lastEditedTime);
+                edited = false;
+            } else {
+                PageResult pageResult = ConcurrencyUtil.await(converter.convertFetchedPage(page, false, true));
+                if (notifyListener(pageResult) && pageResult.isSuccess()) {
+                    conversions.incrementAndGet();
+                    edited = state.lastEditedTime == null ? null : true;
+                    state.lastEditedTime = page.getLastEditedTime();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to check page {}: {}", state.pageId, ConcurrencyUtil.unwrap(e).getMessage());
+        }
+        reschedule(state, checkedAt, edited);
+    }
+
+    /**
+     * Halves the interval of an edited page and lengthens the interval of an unchanged one by half.
+     * A failed check or the first conversion of a page tells nothing about its edits, so it leaves the interval as is.
+     *
+     * @param edited Whether the check found the page edited, or null if it tells nothing
+     */
+    private void reschedule(PageState state, long checkedAt, Boolean edited) {
+        lock.lock();
+        try {
+            if (edited != null) {
+                double factor = edited ? EDITED_INTERVAL_FACTOR : UNCHANGED_INTERVAL_FACTOR;
+                state.intervalMillis = Math.min(maxIntervalMillis,
+                        Math.max(minIntervalMillis, (long) (state.intervalMillis * factor)));
+            }
+            state.lastCheckedMillis = checkedAt;
+            double spread = 1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * jitter;
+            state.dueAtMillis = checkedAt + (long) (state.intervalMillis * spread);
+            if (running && pages.get(state.pageId) == state) {
+                waiting.add(state);
+                queueChanged.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the listener threw, so the page is converted again on its next check
+     */
+    private boolean notifyListener(PageResult pageResult) {
+        try {
+            listener.accept(pageResult);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Sync listener failed for page {}", pageResult.getPageId(), e);
+            return false;
+        }
+    }
+
+    private static final class PageState {
+        private final String pageId;
+        private long intervalMillis;
+        private long lastCheckedMillis;
+        private long dueAtMillis;
+        private volatile String lastEditedTime;
+
+        private PageState(String pageId, long intervalMillis) {
+            this.pageId = pageId;
+            this.intervalMillis = intervalMillis;
+        }
+
+        /**
+         * @return Expected number of edits since the page was last checked
+         */
+        private double staleness(long now) {
+            return (double) (now - lastCheckedMillis) / intervalMillis;
+        }
+    }
+
+    public static class Builder {
+        private MarkdownConverter converter;
+        private Consumer<PageResult> listener;
+        private int workers = DEFAULT_WORKERS;
+        private Duration minInterval = DEFAULT_MIN_INTERVAL;
+        private Duration maxInterval = DEFAULT_MAX_INTERVAL;
+        private double jitter = DEFAULT_JITTER;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the converter checking and converting the pages. It is not closed by the scheduler.
+         */
+        public Builder converter(MarkdownConverter converter) {
+            this.converter = converter;
+            return this;
+        }
+
+        /**
+         * Sets the callback invoked with the conversion of every changed page, from the worker that converted it
+         */
+        public Builder listener(Consumer<PageResult> listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages checked at the same time. API requests are further limited
+         * by the converter's {@link MarkdownConverter.Builder#maxConcurrency(int)}.
+         */
+        public Builder workers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("workers must be positive");
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Sets the shortest time between two checks of a page, however often it is edited
+         */
+        public Builder minInterval(Duration minInterval) {
+            if (minInterval == null || minInterval.isNegative() || minInterval.isZero()) {
+                throw new IllegalArgumentException("minInterval must be positive");
+            }
+            this.minInterval = minInterval;
+            return this;
+        }
+
+        /**
+         * Sets the longest time between two checks of a page, however rarely it is edited
+         */
+        public Builder maxInterval(Duration maxInterval) {
+            if (maxInterval == null || maxInterval.isNegative() || maxInterval.isZero()) {
+                throw new IllegalArgumentException("maxInterval must be positive");
+            }
+            this.maxInterval = maxInterval;
+            return this;
+        }
+
+        /**
+         * Sets the fraction by which check intervals are randomly lengthened or shortened, between 0 and 1
+         */
+        public Builder jitter(double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if converter or listener is null, or the shortest interval is longer than the longest
+         */
+        public SyncScheduler build() {
+            if (converter == null || listener == null) {
+                throw new IllegalArgumentException("Converter and listener cannot be null");
+            }
+            if (minInterval.compareTo(maxInterval) > 0) {
+                throw new IllegalArgumentException("minInterval cannot be longer than maxInterval");
+            }
+            return new SyncScheduler(this);
+        }
+    }
+}
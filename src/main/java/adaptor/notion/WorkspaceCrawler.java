@@ -0,0 +1,512 @@
+package adaptor.notion;
+
+import adaptor.notion.domain.CrawlResult;
+import adaptor.notion.domain.MdBlockKind;
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.journal.ExportJournal;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.ConcurrencyUtil;
+import adaptor.notion.utils.NotionUtil;
+import notion.api.v1.model.pages.Page;
+import notion.api.v1.model.pages.PageProperty;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Exports a page and every page below it to a directory tree of markdown files.
+ * Pages are crawled breadth-first from the root, following child page blocks and, optionally,
+ * link to page blocks. A fixed number of workers convert pages concurrently, all sharing the
+ * request limit of the converter. Every page is fetched once, however many pages link to it,
+ * so cycles end the walk instead of repeating it.
+ *
+ * <p>A page is written to {@code <title>.md} and its sub-pages to the {@code <title>} directory
+ * beside it. A linked page that is not a sub-page of an exported page is placed as a sub-page of
+ * the first page linking to it. Links between exported pages are rewritten to relative links;
+ * links to pages that failed or were left out keep their Notion URL.</p>
+ *
+ * <p>With an {@link ExportJournal}, every discovered page and every written file is recorded,
+ * and a crawl started again with the same journal picks up where the previous one stopped.
+ * Completed pages whose files are missing or were changed since are exported again.</p>
+ */
+public class WorkspaceCrawler {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(WorkspaceCrawler.class);
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+    private static final int MAX_FILE_NAME_LENGTH = 100;
+    private static final Pattern PAGE_LINK = Pattern.compile(
+            "\\]\\((?:https://www\\.notion\\.so)?/(?:[^()\\s]*-)?([0-9a-f]{32})(?:[?#][^()\\s]*)?\\)");
+    private static final Pattern UNSAFE_FILE_NAME_CHARS = Pattern.compile("[\\\\/:*?\"<>|\\p{Cntrl}]");
+
+    private final MarkdownConverter converter;
+    private final Path outputDirectory;
+    private final int maxConcurrency;
+    private final int maxPages;
+    private final boolean followLinks;
+    private final ExportJournal journal;
+
+    private WorkspaceCrawler(Builder builder) {
+        this.converter = builder.converter;
+        this.outputDirectory = builder.outputDirectory;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.maxPages = builder.maxPages;
+        this.followLinks = builder.followLinks;
+        this.journal = builder.journal;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Exports a page and every page below it. A page that fails is recorded, and the pages
+     * below it are not exported, without stopping the rest of the crawl.
+     * With a journal that already holds progress, pages recorded as completed are not exported
+     * again and the crawl continues from the pages that were queued or in flight.
+     * @param rootPageId ID of the page to start from, the same as for the crawl that started the journal
+     * @return Exported pages and failed pages, keyed by page ID
+     * @throws IllegalArgumentException if root page ID is invalid
+     */
+    public CrawlResult crawl(String rootPageId) {
+        if (rootPageId == null || rootPageId.trim().isEmpty()) {
+            log.error("Root page ID cannot be null or empty");
+            throw new IllegalArgumentException("Root page ID cannot be null or empty");
+        }
+        log.info("Crawling page tree of {} into {}", rootPageId, outputDirectory);
+        Crawl crawl = new Crawl();
+        CrawlResult crawlResult = crawl.run(rootPageId);
+        log.info("Crawl finished: {} pages exported, {} failed",
+                crawlResult.getPages().size(), crawlResult.getFailures().size());
+        return crawlResult;
+    }
+
+    /**
+     * A discovered page. Its file name is only known once its title is, so pages linking to it wait for
+     * {@link #path}; {@link #file} completes once the file is written, or with null if the page failed.
+     */
+    private static final class PageNode {
+        private final String pageId;
+        private final Path directory;
+        private final CompletableFuture<Path> path = new CompletableFuture<>();
+        private final CompletableFuture<Path> file = new CompletableFuture<>();
+        private volatile List<PageNode> links = List.of();
+
+        private PageNode(String pageId, Path directory) {
+            this.pageId = pageId;
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * State of one crawl. Workers take pages from a FIFO queue, which keeps the walk breadth-first;
+     * the number of queued and running pages tells when the walk is over.
+     */
+    private final class Crawl {
+        private final PageNode endOfCrawl = new PageNode(null, null);
+        private final BlockingQueue<PageNode> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Map<String, PageNode> visited = new ConcurrentHashMap<>();
+        private final Set<String> reservedFiles = new HashSet<>();
+        private final List<CompletableFuture<Void>> writes = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, Path> pages = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        private final ExecutorService workers = ConcurrencyUtil.newVirtualThreadExecutor("notion-crawler",
+                maxConcurrency + ConcurrencyUtil.DEFAULT_MAX_PLATFORM_THREADS);
+
+        private CrawlResult run(String rootPageId) {
+            try {
+                if (journal != null && !journal.isEmpty()) {
+                    resume();
+                } else {
+                    discover(rootPageId, Path.of(""));
+                }
+                if (pending.get() == 0) {
+                    // Nothing left to export: no worker will finish a page and end the crawl
+                    endCrawl();
+                }
+                List<CompletableFuture<Void>> running = new ArrayList<>(maxConcurrency);
+                for (int i = 0; i < maxConcurrency; i++) {
+                    running.add(CompletableFuture.runAsync(this::work, workers));
+                }
+                ConcurrencyUtil.await(CompletableFuture.allOf(running.toArray(new CompletableFuture[0])));
+                // Pages left out by the page limit are never exported, so links to them keep their Notion URL
+                visited.values().forEach(node -> node.path.complete(null));
+                ConcurrencyUtil.await(CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])));
+                visited.values().forEach(node -> node.file.complete(null));
+                restoreLinksToFailedPages();
+                if (journal != null) {
+                    journal.sync();
+                }
+            } catch (IOException e) {
+                log.warn("Failed to sync export journal", e);
+            } finally {
+                workers.shutdown();
+            }
+            synchronized (pages) {
+                return new CrawlResult(pages, failures);
+            }
+        }
+
+        /**
+         * Seeds the crawl from the journal. A completed page whose file is missing or no longer matches
+         * the recorded hash is queued again into the directory of that file.
+         */
+        private void resume() {
+            Map<String, ExportJournal.Entry> completed = journal.getCompleted();
+            Map<String, String> pending = journal.getPending();
+            log.info("Resuming crawl: {} pages already exported, {} queued", completed.size(), pending.size());
+            Map<String, Path> changed = new LinkedHashMap<>();
+            completed.forEach((pageId, entry) -> {
+                Path file = entry.getLocation() == null ? null : Path.of(entry.getLocation());
+                if (file != null && !isUnchanged(file, entry.getOutputHash())) {
+                    changed.put(pageId, file.getParent() == null ? Path.of("") : file.getParent());
+                    return;
+                }
+                PageNode node = new PageNode(pageId, null);
+                node.path.complete(file);
+                node.file.complete(file);
+                if (visited.putIfAbsent(normalize(pageId), node) == null && file != null) {
+                    reservedFiles.add(file.toString().toLowerCase(Locale.ROOT));
+                    pages.put(pageId, file);
+                }
+            });
+            if (!changed.isEmpty()) {
+                log.info("Exporting {} pages again whose files are missing or changed", changed.size());
+            }
+            changed.forEach(this::discover);
+            pending.forEach((pageId, directory) -> discover(pageId, Path.of(directory == null ? "" : directory)));
+        }
+
+        /**
+         * @return true if the file of a completed page still holds the output recorded in the journal
+         */
+        private boolean isUnchanged(Path file, String outputHash) {
+            Path target = outputDirectory.resolve(file);
+            if (!Files.isRegularFile(target)) {
+                return false;
+            }
+            try {
+                return ExportJournal.hash(Files.readString(target, StandardCharsets.UTF_8)).equals(outputHash);
+            } catch (IOException | UncheckedIOException e) {
+                log.debug("Failed to read exported file {}: {}", target, e.getMessage());
+                return false;
+            }
+        }
+
+        private void discover(String pageId, Path directory) {
+            PageNode node = new PageNode(pageId, directory);
+            if (visited.putIfAbsent(normalize(pageId), node) != null) {
+                return;
+            }
+            if (maxPages > 0 && visited.size() > maxPages) {
+                log.debug("Page limit reached, skipping page {}", pageId);
+                node.path.complete(null);
+                node.file.complete(null);
+                return;
+            }
+            if (journal != null) {
+                journal.pending(pageId, directory.toString());
+            }
+            pending.incrementAndGet();
+            queue.add(node);
+        }
+
+        private void work() {
+            while (true) {
+                PageNode node;
+                try {
+                    node = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (node == endOfCrawl) {
+                    return;
+                }
+                try {
+                    export(node);
+                } catch (RuntimeException e) {
+                    Throwable cause = ConcurrencyUtil.unwrap(e);
+                    log.warn("Failed to export page {}: {}", node.pageId, cause.getMessage());
+                    failures.put(node.pageId, cause);
+                    node.file.complete(null);
+                } finally {
+                    node.path.complete(null);
+                    if (pending.decrementAndGet() == 0) {
+                        endCrawl();
+                    }
+                }
+            }
+        }
+
+        private void endCrawl() {
+            for (int i = 0; i < maxConcurrency; i++) {
+                queue.add(endOfCrawl);
+            }
+        }
+
+        /**
+         * Converts a page, queues the pages it links to, then writes it once the file names of those pages
+         * are known. Its file is reported only once it is written. A linked page may still fail after its
+         * name is known; links to it are restored once every page is written.
+         */
+        private void export(PageNode node) {
+            CompletableFuture<Page> page = converter.pageAsync(node.pageId);
+            CompletableFuture<List<MdBlocks>> blocks = converter.pageBlocksAsync(node.pageId, page);
+            Map<String, PageProperty> properties = ConcurrencyUtil.await(page).getProperties();
+            String title = NotionUtil.getPageTitle(properties);
+            Path file = reserveFile(node.directory, title == null ? "" : title);
+            node.path.complete(file);
+
+            List<MdBlocks> mdBlocks = MarkdownConverter.withTitle(null, properties, ConcurrencyUtil.await(blocks));
+            Path subPageDirectory = file.resolveSibling(stem(file));
+            discoverLinkedPages(mdBlocks, subPageDirectory);
+            String markdown = NotionUtil.generateMarkdownString(mdBlocks);
+
+            Map<String, PageNode> linkedPages = new LinkedHashMap<>();
+            Matcher matcher = PAGE_LINK.matcher(markdown);
+            while (matcher.find()) {
+                PageNode linked = visited.get(matcher.group(1));
+                if (linked != null) {
+                    linkedPages.put(matcher.group(1), linked);
+                }
+            }
+            node.links = List.copyOf(linkedPages.values());
+            CompletableFuture<?>[] linkedPaths = linkedPages.values().stream()
+                    .map(linked -> linked.path)
+                    .toArray(CompletableFuture[]::new);
+            writes.add(CompletableFuture.allOf(linkedPaths)
+                    .thenRunAsync(() -> {
+                        write(node.pageId, file, rewriteLinks(markdown, file, linkedPages));
+                        node.file.complete(file);
+                    }, workers)
+                    .exceptionally(error -> {
+                        Throwable cause = ConcurrencyUtil.unwrap(error);
+                        log.warn("Failed to write page {}: {}", node.pageId, cause.getMessage());
+                        failures.put(node.pageId, cause);
+                        node.file.complete(null);
+                        return null;
+                    }));
+        }
+
+        /**
+         * Points links to pages that got a file name but were never written back at their Notion URL
+         */
+        private void restoreLinksToFailedPages() {
+            for (PageNode node : visited.values()) {
+                Path file = node.file.join();
+                if (file == null || node.links.isEmpty()) {
+                    continue;
+                }
+                List<PageNode> failed = new ArrayList<>();
+                for (PageNode linked : node.links) {
+                    if (linked.path.join() != null && linked.file.join() == null) {
+                        failed.add(linked);
+                    }
+                }
+                if (failed.isEmpty()) {
+                    continue;
+                }
+                try {
+                    String markdown = Files.readString(outputDirectory.resolve(file), StandardCharsets.UTF_8);
+                    Path directory = file.getParent() == null ? Path.of("") : file.getParent();
+                    for (PageNode linked : failed) {
+                        markdown = markdown.replace("](" + encodeLink(directory.relativize(linked.path.join())) + ")",
+                                "](" + NotionUtil.getPageUrl(linked.pageId) + ")");
+                    }
+                    write(node.pageId, file, markdown);
+                } catch (IOException | UncheckedIOException e) {
+                    log.warn("Failed to restore links to failed pages in {}", file, e);
+                }
+            }
+        }
+
+        private void discoverLinkedPages(List<MdBlocks> mdBlocks, Path directory) {
+            for (MdBlocks mdBlock : mdBlocks) {
+                if (mdBlock.getKind() == MdBlockKind.CHILD_PAGE) {
+                    discover(mdBlock.getBlockId(), directory);
+                } else if (followLinks && mdBlock.getKind() == MdBlockKind.LINK_TO_PAGE) {
+                    Matcher matcher = PAGE_LINK.matcher(mdBlock.getContent());
+                    if (matcher.find()) {
+                        discover(matcher.group(1), directory);
+                    }
+                }
+                discoverLinkedPages(mdBlock.getChildren(), directory);
+            }
+        }
+
+        /**
+         * Picks a file name that no other page of the crawl uses, ignoring case for case-insensitive file systems
+         */
+        private Path reserveFile(Path directory, String title) {
+            String name = fileName(title);
+            synchronized (reservedFiles) {
+                Path file = directory.resolve(name + ".md");
+                for (int i = 2; !reservedFiles.add(file.toString().toLowerCase(Locale.ROOT)); i++) {
+                    file = directory.resolve(name + " (" + i + ").md");
+                }
+                return file;
+            }
+        }
+
+        private void write(String pageId, Path file, String markdown) {
+            Path target = outputDirectory.resolve(file);
+            try {
+                Files.createDirectories(target.getParent());
+                Files.writeString(target, markdown, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pages.put(pageId, file);
+            if (journal != null) {
+                journal.completed(pageId, file.toString(), ExportJournal.hash(markdown));
+            }
+            log.debug("Exported page {} to {}", pageId, file);
+        }
+    }
+
+    private static String rewriteLinks(String markdown, Path file, Map<String, PageNode> linkedPages) {
+        if (linkedPages.isEmpty()) {
+            return markdown;
+        }
+        Path directory = file.getParent() == null ? Path.of("") : file.getParent();
+        Matcher matcher = PAGE_LINK.matcher(markdown);
+        StringBuilder rewritten = new StringBuilder(markdown.length());
+        while (matcher.find()) {
+            PageNode linked = linkedPages.get(matcher.group(1));
+            Path linkedFile = linked == null ? null : linked.path.join();
+            String replacement = linkedFile == null
+                    ? matcher.group()
+                    : "](" + encodeLink(directory.relativize(linkedFile)) + ")";
+            matcher.appendReplacement(rewritten, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(rewritten);
+        return rewritten.toString();
+    }
+
+    private static String encodeLink(Path relative) {
+        return relative.toString().replace('\\', '/')
+                .replace("%", "%25")
+                .replace(" ", "%20")
+                .replace("(", "%28")
+                .replace(")", "%29");
+    }
+
+    private static String fileName(String title) {
+        String name = UNSAFE_FILE_NAME_CHARS.matcher(title).replaceAll("-").trim();
+        if (name.length() > MAX_FILE_NAME_LENGTH) {
+            name = name.substring(0, MAX_FILE_NAME_LENGTH).trim();
+        }
+        while (name.startsWith(".")) {
+            name = name.substring(1);
+        }
+        return name.isEmpty() ? "Untitled" : name;
+    }
+
+    private static String stem(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - ".md".length());
+    }
+
+    private static String normalize(String pageId) {
+        return pageId.replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    public static class Builder {
+        private MarkdownConverter converter;
+        private Path outputDirectory;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        private int maxPages;
+        private boolean followLinks = true;
+        private ExportJournal journal;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the converter fetching and converting the pages. It is not closed by the crawler.
+         */
+        public Builder converter(MarkdownConverter converter) {
+            this.converter = converter;
+            return this;
+        }
+
+        /**
+         * Sets the directory receiving the markdown files, created if missing
+         */
+        public Builder outputDirectory(Path outputDirectory) {
+            this.outputDirectory = outputDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages converted at the same time. API requests are further limited
+         * by the converter's {@link MarkdownConverter.Builder#maxConcurrency(int)}.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Stops discovering pages once this many have been found. Unlimited by default.
+         */
+        public Builder maxPages(int maxPages) {
+            if (maxPages < 1) {
+                throw new IllegalArgumentException("maxPages must be positive");
+            }
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        /**
+         * Sets whether pages referenced by link to page blocks are exported too. Enabled by default.
+         */
+        public Builder followLinks(boolean followLinks) {
+            this.followLinks = followLinks;
+            return this;
+        }
+
+        /**
+         * Records the progress of the crawl, so a crawl started again with the same journal
+         * resumes instead of starting over. The journal is not closed by the crawler.
+         */
+        public Builder journal(ExportJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if converter or output directory is null
+         */
+        public WorkspaceCrawler build() {
+            if (converter == null || outputDirectory == null) {
+                throw new IllegalArgumentException("Converter and output directory cannot be null");
+            }
+            return new WorkspaceCrawler(this);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package adaptor.notion.asset;
+
+import adaptor.notion.behavior.EnumBehaviorManager.BehaviorStrategy;
+import adaptor.notion.domain.MdBlockKind;
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.ConcurrencyUtil;
+import adaptor.notion.utils.NotionUtil;
+import adaptor.notion.utils.RequestExecutor;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads the images and files of converted pages into an {@link AssetStore} and points
+ * the markdown links at the local copies, so exports keep working after Notion's signed
+ * URLs expire. Downloads start as soon as a block is rendered and run concurrently with the
+ * rest of the conversion, at most {@code maxConcurrency} at a time. Each asset is downloaded
+ * once per pipeline, however many blocks reference it: the paths of the most recently used
+ * {@code maxCachedAssets} downloaded assets are remembered, and an asset evicted from them is
+ * downloaded again when next requested.
+ */
+public class AssetPipeline implements Closeable {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(AssetPipeline.class);
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+    private static final int DEFAULT_MAX_CACHED_ASSETS = 10_000;
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(2);
+    private static final Pattern LINK_TARGET = Pattern.compile("\\]\\(([^)\\s]+)\\)");
+    private static final Pattern EXTENSION = Pattern.compile("\\.([A-Za-z0-9]{1,5})$");
+    private static final String NOTION_S3_BUCKET = "prod-files-secure";
+    private static final String NOTION_LEGACY_S3_BUCKET = "secure.notion-static.com";
+
+    private final AssetStore store;
+    private final String linkPrefix;
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final ExecutorService executor;
+    private final RequestExecutor downloadExecutor;
+    private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    private final Map<String, Path> downloaded;
+
+    private AssetPipeline(Builder builder) throws IOException {
+        this.store = new AssetStore(builder.directory);
+        this.linkPrefix = builder.linkPrefix != null
+                ? builder.linkPrefix
+                : store.getDirectory().toString().replace('\\', '/') + "/";
+        this.timeout = builder.timeout;
+        int maxCachedAssets = builder.maxCachedAssets;
+        this.downloaded = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+                return size() > maxCachedAssets;
+            }
+        };
+        this.executor = ConcurrencyUtil.newVirtualThreadExecutor("notion-assets");
+        this.downloadExecutor = new RequestExecutor(executor, builder.maxConcurrency);
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts downloading an asset unless it is already downloaded or in progress.
+     * Only downloads in progress are tracked by their future; once finished, the path of the asset
+     * is remembered among the recently downloaded ones. A failed download is forgotten, so the asset
+     * is downloaded again when next requested.
+     *
+     * @param url URL of the asset
+     * @return Future completing with the path of the stored asset, relative to the store directory
+     */
+    public CompletableFuture<Path> fetch(String url) {
+        String key = assetKey(url);
+        Path path = downloadedPath(key);
+        if (path != null) {
+            return CompletableFuture.completedFuture(path);
+        }
+        CompletableFuture<Path> download = downloads.computeIfAbsent(key, ignored -> {
+            Path finished = downloadedPath(key);
+            return finished != null
+                    ? CompletableFuture.completedFuture(finished)
+                    : downloadExecutor.submit(() -> download(url));
+        });
+        download.whenComplete((stored, error) -> {
+            if (error == null) {
+                synchronized (downloaded) {
+                    downloaded.put(key, stored);
+                }
+            }
+            downloads.remove(key, download);
+        });
+        return download;
+    }
+
+    /**
+     * Wraps a behavior so that rendering an image or file block starts downloading its asset
+     * @param behavior Behavior rendering the block
+     * @return Behavior starting the download, then rendering the block with the given behavior
+     */
+    public BehaviorStrategy prefetching(BehaviorStrategy behavior) {
+        return (block, out) -> {
+            NotionUtil.getAssetUrl(block)
+                    .filter(AssetPipeline::isRemote)
+                    .ifPresent(this::fetch);
+            behavior.format(block, out);
+        };
+    }
+
+    /**
+     * Points the image and file links of markdown blocks at the stored assets, waiting for their
+     * downloads. A link whose download failed keeps its original URL.
+     *
+     * @param mdBlocks Converted markdown blocks
+     * @return Future completing with the blocks, rebuilt where a link was rewritten
+     */
+    public CompletableFuture<List<MdBlocks>> localize(List<MdBlocks> mdBlocks) {
+        Map<String, CompletableFuture<Path>> pending = new ConcurrentHashMap<>();
+        collectLinks(mdBlocks, pending);
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(mdBlocks);
+        }
+        List<CompletableFuture<Path>> settled = new ArrayList<>(pending.size());
+        for (CompletableFuture<Path> download : pending.values()) {
+            settled.add(download.exceptionally(error -> null));
+        }
+        return CompletableFuture.allOf(settled.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<String, String> localLinks = new HashMap<>();
+                    pending.forEach((url, download) -> {
+                        Path path = download.exceptionally(error -> null).join();
+                        if (path != null) {
+                            localLinks.put(url, linkPrefix + path.toString().replace('\\', '/'));
+                        }
+                    });
+                    return rewrite(mdBlocks, localLinks);
+                });
+    }
+
+    /**
+     * @return Number of assets being downloaded or remembered as downloaded
+     */
+    public int size() {
+        synchronized (downloaded) {
+            return downloads.size() + downloaded.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Path downloadedPath(String key) {
+        synchronized (downloaded) {
+            return downloaded.get(key);
+        }
+    }
+
+    private void collectLinks(List<MdBlocks> mdBlocks, Map<String, CompletableFuture<Path>> pending) {
+        for (MdBlocks mdBlock : mdBlocks) {
+            if (isAsset(mdBlock)) {
+                String url = linkTarget(mdBlock.getContent());
+                if (url != null && isRemote(url)) {
+                    pending.put(url, fetch(url));
+                }
+            }
+            collectLinks(mdBlock.getChildren(), pending);
+        }
+    }
+
+    private List<MdBlocks> rewrite(List<MdBlocks> mdBlocks, Map<String, String> localLinks) {
+        List<MdBlocks> result = new ArrayList<>(mdBlocks.size());
+        boolean changed = false;
+        for (MdBlocks mdBlock : mdBlocks) {
+            MdBlocks updated = rewrite(mdBlock, localLinks);
+            changed |= updated != mdBlock;
+            result.add(updated);
+        }
+        return changed ? result : mdBlocks;
+    }
+
+    private MdBlocks rewrite(MdBlocks mdBlock, Map<String, String> localLinks) {
+        String content = mdBlock.getContent();
+        if (isAsset(mdBlock)) {
+            String url = linkTarget(content);
+            String localLink = url == null ? null : localLinks.get(url);
+            if (localLink != null) {
+                content = content.replace("](" + url + ")", "](" + localLink + ")");
+            }
+        }
+        List<MdBlocks> children = rewrite(mdBlock.getChildren(), localLinks);
+        if (content.equals(mdBlock.getContent()) && children == mdBlock.getChildren()) {
+            return mdBlock;
+        }
+        return new MdBlocks(mdBlock.getBlockId(), mdBlock.getKind(), content, children);
+    }
+
+    private Path download(String url) {
+        log.debug("Downloading asset {}", url);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(timeout).GET().build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new IOException("Asset download failed with status " + response.statusCode() + ": " + url);
+                }
+                String contentType = response.headers().firstValue("Content-Type").orElse(null);
+                return store.store(body, extension(url, contentType));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to download asset {}: {}", url, e.getMessage());
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while downloading " + url, e);
+        }
+    }
+
+    private static boolean isAsset(MdBlocks mdBlock) {
+        return mdBlock.getKind() == MdBlockKind.IMAGE || mdBlock.getKind() == MdBlockKind.FILE;
+    }
+
+    private static boolean isRemote(String url) {
+        return url.startsWith("https://") || url.startsWith("http://");
+    }
+
+    private static String linkTarget(String content) {
+        Matcher matcher = LINK_TARGET.matcher(content);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Files uploaded to Notion get a newly signed URL on every request, so their signature parameters
+     * are left out to recognize the same file across conversions. Other URLs are kept whole:
+     * their query string may well tell different files apart.
+     */
+    static String assetKey(String url) {
+        int query = url.indexOf('?');
+        if (query < 0 || !isNotionHosted(url.substring(0, query))) {
+            return url;
+        }
+        StringBuilder key = new StringBuilder(url.length()).append(url, 0, query);
+        char separator = '?';
+        for (String parameter : url.substring(query + 1).split("&")) {
+            if (parameter.isEmpty() || isSignatureParameter(parameter)) {
+                continue;
+            }
+            key.append(separator).append(parameter);
+            separator = '&';
+        }
+        return key.toString();
+    }
+
+    private static boolean isNotionHosted(String address) {
+        return address.contains(NOTION_S3_BUCKET) || address.contains(NOTION_LEGACY_S3_BUCKET);
+    }
+
+    private static boolean isSignatureParameter(String parameter) {
+        String name = parameter.toLowerCase(Locale.ROOT);
+        return name.startsWith("x-amz-") || name.startsWith("x-id=");
+    }
+
+    private static String extension(String url, String contentType) {
+        String path = URI.create(url).getPath();
+        Matcher matcher = EXTENSION.matcher(path == null ? "" : path);
+        if (matcher.find()) {
+            return matcher.group(1).toLowerCase(Locale.ROOT);
+        }
+        if (contentType == null) {
+            return null;
+        }
+        String mediaType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+        switch (mediaType) {
+            case "image/png":
+                return "png";
+            case "image/jpeg":
+                return "jpg";
+            case "image/gif":
+                return "gif";
+            case "image/webp":
+                return "webp";
+            case "image/svg+xml":
+                return "svg";
+            case "application/pdf":
+                return "pdf";
+            default:
+                return null;
+        }
+    }
+
+    public static class Builder {
+        private Path directory;
+        private String linkPrefix;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        private int maxCachedAssets = DEFAULT_MAX_CACHED_ASSETS;
+        private Duration timeout = DEFAULT_TIMEOUT;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the directory of the content-addressed asset store
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets the prefix of rewritten links, e.g. a path relative to the exported markdown files.
+         * Defaults to the store directory.
+         */
+        public Builder linkPrefix(String linkPrefix) {
+            this.linkPrefix = linkPrefix;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent downloads
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the number of downloaded assets whose paths are remembered, so that they are not
+         * downloaded again. The least recently used are forgotten first. Defaults to 10000.
+         */
+        public Builder maxCachedAssets(int maxCachedAssets) {
+            if (maxCachedAssets < 1) {
+                throw new IllegalArgumentException("maxCachedAssets must be positive");
+            }
+            this.maxCachedAssets = maxCachedAssets;
+            return this;
+        }
+
+        /**
+         * Sets the time allowed for a single download to respond
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("timeout must be positive");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if no directory is set
+         * @throws IOException if the directory cannot be created
+         */
+        public AssetPipeline build() throws IOException {
+            if (directory == null) {
+                throw new IllegalArgumentException("Asset directory cannot be null");
+            }
+            return new AssetPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package adaptor.notion.asset;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed store of downloaded assets. Every asset is saved under the SHA-256 hash
+ * of its bytes, as {@code <first two hex digits>/<hash>.<extension>}, so identical files
+ * referenced from several pages or exports are stored once.
+ * Files are written to a temporary file first and moved into place, so readers never see
+ * a partially written asset.
+ */
+public class AssetStore {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(AssetStore.class);
+
+    private final Path directory;
+
+    /**
+     * Creates a new AssetStore
+     *
+     * @param directory Directory holding the assets, created if missing
+     * @throws IllegalArgumentException if directory is null
+     * @throws IOException if the directory cannot be created
+     */
+    public AssetStore(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Asset directory cannot be null");
+        }
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Saves an asset, reading it to the end
+     *
+     * @param content Bytes of the asset
+     * @param extension File extension without the dot, or null for none
+     * @return Path of the stored asset, relative to the store directory
+     * @throws IOException if the asset cannot be read or written
+     */
+    public Path store(InputStream content, String extension) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temp = Files.createTempFile(directory, "asset-", ".tmp");
+        try {
+            try (DigestInputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path relative = Path.of(hash.substring(0, 2),
+                    extension == null || extension.isEmpty() ? hash : hash + "." + extension);
+            Path target = directory.resolve(relative);
+            if (Files.exists(target)) {
+                log.trace("Asset {} already stored", relative);
+                return relative;
+            }
+            Files.createDirectories(target.getParent());
+            moveIntoPlace(temp, target);
+            log.debug("Stored asset {}", relative);
+            return relative;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return Directory holding the assets
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            log.trace("Asset {} stored concurrently", target);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
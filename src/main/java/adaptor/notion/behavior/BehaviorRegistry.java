@@ -0,0 +1,118 @@
+package adaptor.notion.behavior;
+
+import adaptor.notion.behavior.EnumBehaviorManager.BehaviorStrategy;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.BlockType;
+import org.slf4j.Logger;
+
+/**
+ * Behaviors used by a converter to render Notion blocks, indexed by block type.
+ * A registry starts from the built-in behaviors of {@link EnumBehaviorManager}; behaviors can be
+ * registered for unsupported types or override the built-in ones without affecting other converters.
+ * Lookups are a single array access by block type ordinal. Registration copies the array,
+ * so a registry can be read concurrently while behaviors are registered.
+ */
+public class BehaviorRegistry {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(BehaviorRegistry.class);
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+    private static final BehaviorRegistry DEFAULTS = new BehaviorRegistry();
+
+    private volatile BehaviorStrategy[] strategies;
+
+    private BehaviorRegistry() {
+        this.strategies = new BehaviorStrategy[BLOCK_TYPES.length];
+        EnumBehaviorManager.registerDefaults(this);
+    }
+
+    private BehaviorRegistry(BehaviorStrategy[] strategies) {
+        this.strategies = strategies.clone();
+    }
+
+    /**
+     * Creates a registry holding the built-in behaviors
+     * @return New registry that can be modified independently of every other registry
+     */
+    public static BehaviorRegistry create() {
+        return new BehaviorRegistry(DEFAULTS.strategies);
+    }
+
+    /**
+     * Gets the shared registry of built-in behaviors. It must not be modified;
+     * use {@link #create()} to customize behaviors.
+     * @return Registry of built-in behaviors
+     */
+    static BehaviorRegistry defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Registers a behavior, replacing the current behavior of the type if any
+     * @param type Block type rendered by the behavior
+     * @param strategy Behavior rendering blocks of the type
+     * @return This registry
+     * @throws IllegalArgumentException if type or strategy is null
+     */
+    public synchronized BehaviorRegistry register(BlockType type, BehaviorStrategy strategy) {
+        if (type == null || strategy == null) {
+            log.error("Block type and behavior cannot be null");
+            throw new IllegalArgumentException("Block type and behavior cannot be null");
+        }
+        BehaviorStrategy[] updated = strategies.clone();
+        updated[type.ordinal()] = strategy;
+        strategies = updated;
+        return this;
+    }
+
+    /**
+     * Removes the behavior of a type, so blocks of the type are skipped as unsupported
+     * @param type Block type to remove
+     * @return This registry
+     */
+    public synchronized BehaviorRegistry unregister(BlockType type) {
+        if (type != null) {
+            BehaviorStrategy[] updated = strategies.clone();
+            updated[type.ordinal()] = null;
+            strategies = updated;
+        }
+        return this;
+    }
+
+    /**
+     * @param type Block type
+     * @return Behavior registered for the type, or null if the type is not supported
+     */
+    public BehaviorStrategy get(BlockType type) {
+        return type == null ? null : strategies[type.ordinal()];
+    }
+
+    /**
+     * @param type Block type
+     * @return true if a behavior is registered for the type
+     */
+    public boolean supports(BlockType type) {
+        return get(type) != null;
+    }
+
+    /**
+     * Renders a block with the behavior registered for its type
+     * @param block Block to render
+     * @param out Builder receiving the markdown content
+     * @return true if the block was rendered, false if its type is not supported
+     */
+    public boolean render(Block block, StringBuilder out) {
+        BehaviorStrategy strategy = get(block.getType());
+        if (strategy == null) {
+            return false;
+        }
+        strategy.format(block, out);
+        return true;
+    }
+
+    /**
+     * @return Copy of this registry that can be modified independently
+     */
+    public BehaviorRegistry copy() {
+        return new BehaviorRegistry(strategies);
+    }
+}
@@ -1,136 +1,339 @@
 package adaptor.notion.behavior;
 
-import adaptor.notion.domain.SerialNumberedListBlock;
 import adaptor.notion.utils.NotionUtil;
 import notion.api.v1.model.blocks.Block;
 import notion.api.v1.model.blocks.BlockType;
+import notion.api.v1.model.common.Emoji;
 import notion.api.v1.model.pages.PageProperty.RichText;
 
-import java.util.EnumMap;
 import java.util.List;
+import java.util.function.Function;
 
+/**
+ * Built-in behaviors rendering each supported Notion block type to markdown.
+ * Converters look behaviors up in a {@link BehaviorRegistry}, which starts from these defaults
+ * and can be extended or overridden per converter.
+ */
 public class EnumBehaviorManager {
-    private static final EnumMap<BlockType, BehaviorStrategy> behaviorMap = new EnumMap<>(BlockType.class);
-
-    static {
-        behaviorMap.put(BlockType.Paragraph, new ParagraphBehavior());
-        behaviorMap.put(BlockType.HeadingOne, new Heading1Behavior());
-        behaviorMap.put(BlockType.HeadingTwo, new Heading2Behavior());
-        behaviorMap.put(BlockType.HeadingThree, new Heading3Behavior());
-        behaviorMap.put(BlockType.Quote, new QuoteBehavior());
-        behaviorMap.put(BlockType.BulletedListItem, new BulletedListBehavior());
-        behaviorMap.put(BlockType.NumberedListItem, new NumberedListBehavior());
-        behaviorMap.put(BlockType.Code, new CodeBehavior());
-        behaviorMap.put(BlockType.Bookmark, new BookmarkBehavior());
-        behaviorMap.put(BlockType.Divider, new DividerBehavior());
-        behaviorMap.put(BlockType.Image, new ImageBehavior());
 
+    /**
+     * Registers the built-in behaviors into a registry
+     * @param registry Registry receiving the behaviors
+     */
+    static void registerDefaults(BehaviorRegistry registry) {
+        registry.register(BlockType.Paragraph, new ParagraphBehavior());
+        registry.register(BlockType.HeadingOne, new Heading1Behavior());
+        registry.register(BlockType.HeadingTwo, new Heading2Behavior());
+        registry.register(BlockType.HeadingThree, new Heading3Behavior());
+        registry.register(BlockType.Quote, new QuoteBehavior());
+        registry.register(BlockType.BulletedListItem, new BulletedListBehavior());
+        registry.register(BlockType.NumberedListItem, new NumberedListBehavior());
+        registry.register(BlockType.Code, new CodeBehavior());
+        registry.register(BlockType.Bookmark, new BookmarkBehavior());
+        registry.register(BlockType.Divider, new DividerBehavior());
+        registry.register(BlockType.Image, new ImageBehavior());
+        registry.register(BlockType.File, new FileBehavior());
+        registry.register(BlockType.ToDo, new ToDoBehavior());
+        registry.register(BlockType.Toggle, new ToggleBehavior());
+        registry.register(BlockType.Callout, new CalloutBehavior());
+        registry.register(BlockType.Equation, new EquationBehavior());
+        registry.register(BlockType.Table, new TableBehavior());
+        registry.register(BlockType.TableRow, new TableRowBehavior());
+        registry.register(BlockType.ColumnList, new ContainerBehavior());
+        registry.register(BlockType.Column, new ContainerBehavior());
+        registry.register(BlockType.ChildPage, new ChildPageBehavior());
+        registry.register(BlockType.LinkToPage, new LinkToPageBehavior());
     }
 
+    /**
+     * Renders a block with the default behavior of its type
+     * @param type Type of the block
+     * @param block Block to render
+     * @return Markdown content of the block
+     * @throws IllegalArgumentException if the type has no default behavior
+     */
     public static String executeBehavior(BlockType type, Block block) {
-        BehaviorStrategy strategy = behaviorMap.get(type);
+        BehaviorStrategy strategy = BehaviorRegistry.defaults().get(type);
         if (strategy != null) {
-            return strategy.format(block);
+            StringBuilder markdown = new StringBuilder();
+            strategy.format(block, markdown);
+            return markdown.toString();
         } else {
             throw new IllegalArgumentException("No behavior found for element: " + type);
         }
     }
 
+    /**
+     * Renders one Notion block type to markdown
+     */
+    @FunctionalInterface
     public interface BehaviorStrategy {
-        String format(Block block);
+        /**
+         * Writes the markdown content of a block
+         * @param block Block to render, of the type the strategy is registered for
+         * @param out Builder receiving the markdown content
+         */
+        void format(Block block, StringBuilder out);
+
+        /**
+         * Renders the markdown content of a block to a string
+         * @param block Block to render, of the type the strategy is registered for
+         * @return Markdown content of the block
+         * @deprecated Behaviors write into the document, use {@link #format(Block, StringBuilder)}
+         */
+        @Deprecated
+        default String format(Block block) {
+            StringBuilder markdown = new StringBuilder();
+            format(block, markdown);
+            return markdown.toString();
+        }
+
+        /**
+         * Adapts a behavior returning the markdown content of a block as a string
+         * @param behavior Behavior written against the former {@code String format(Block)} signature
+         * @return Behavior appending the returned content
+         * @throws IllegalArgumentException if behavior is null
+         */
+        static BehaviorStrategy of(Function<Block, String> behavior) {
+            if (behavior == null) {
+                throw new IllegalArgumentException("Behavior cannot be null");
+            }
+            return (block, out) -> {
+                String markdown = behavior.apply(block);
+                if (markdown != null) {
+                    out.append(markdown);
+                }
+            };
+        }
     }
 
     public static class ParagraphBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asParagraph().getParagraph().getRichText();
-            return NotionUtil.richTextParser(richTexts);
+            NotionUtil.appendRichText(richTexts, out);
         }
     }
 
     public static class Heading1Behavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asHeadingOne().getHeading1().getRichText();
-            return "# " + NotionUtil.richTextParser(richTexts);
+            out.append("# ");
+            NotionUtil.appendRichText(richTexts, out);
         }
     }
 
     public static class Heading2Behavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asHeadingTwo().getHeading2().getRichText();
-            return "## " + NotionUtil.richTextParser(richTexts);
+            out.append("## ");
+            NotionUtil.appendRichText(richTexts, out);
         }
     }
 
     public static class Heading3Behavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asHeadingThree().getHeading3().getRichText();
-            return "### " + NotionUtil.richTextParser(richTexts);
+            out.append("### ");
+            NotionUtil.appendRichText(richTexts, out);
         }
     }
 
     public static class QuoteBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asQuote().getQuote().getRichText();
-            return "> " + NotionUtil.richTextParser(richTexts);
+            out.append("> ");
+            NotionUtil.appendRichText(richTexts, out);
         }
     }
 
+    /**
+     * Renders the text of a numbered list item. Its number depends on the preceding
+     * siblings, so the "1. " marker is written when the list is rendered.
+     */
     public static class NumberedListBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asNumberedListItem().getNumberedListItem().getRichText();
-            return ((SerialNumberedListBlock) block).getSerialNumber()
-                    + ". "
-                    + NotionUtil.richTextParser(richTexts);
+            NotionUtil.appendRichText(richTexts, out);
         }
     }
 
     public static class CodeBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asCode().getCode().getRichText();
-            return "```"
-                    + NotionUtil.getCodeLanguage(block) + "\n"
-                    + NotionUtil.richTextParser(richTexts) + "\n"
-                    + "```";
+            out.append("```")
+                    .append(NotionUtil.getCodeLanguage(block).orElse(""))
+                    .append('\n');
+            NotionUtil.appendRichText(richTexts, out);
+            out.append('\n')
+                    .append("```");
         }
     }
 
     public static class BulletedListBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
+        public void format(Block block, StringBuilder out) {
             List<RichText> richTexts = block.asBulletedListItem().getBulletedListItem().getRichText();
-            return "- " + NotionUtil.richTextParser(richTexts);
+            out.append("- ");
+            NotionUtil.appendRichText(richTexts, out);
         }
     }
 
     public static class BookmarkBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
-            return "[Bookmark]("
-                    + block.asBookmark().getBookmark().getUrl()
-                    + ")";
+        public void format(Block block, StringBuilder out) {
+            out.append("[Bookmark](")
+                    .append(block.asBookmark().getBookmark().getUrl())
+                    .append(')');
         }
     }
 
     public static class DividerBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
-            return "---";
+        public void format(Block block, StringBuilder out) {
+            out.append("---");
         }
     }
 
     public static class ImageBehavior implements BehaviorStrategy {
         @Override
-        public String format(Block block) {
-            return "![Image]("
-                    + block.asImage().getImage().getFile().getUrl()
-                    + ")";
+        public void format(Block block, StringBuilder out) {
+            out.append("![Image](")
+                    .append(NotionUtil.getAssetUrl(block).orElse(""))
+                    .append(')');
+        }
+    }
+
+    public static class FileBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            out.append("[File](")
+                    .append(NotionUtil.getAssetUrl(block).orElse(""))
+                    .append(')');
+        }
+    }
+
+    public static class ToDoBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            List<RichText> richTexts = block.asToDo().getToDo().getRichText();
+            out.append(Boolean.TRUE.equals(block.asToDo().getToDo().getChecked()) ? "- [x] " : "- [ ] ");
+            NotionUtil.appendRichText(richTexts, out);
+        }
+    }
+
+    /**
+     * Renders the summary of a toggle. The children go inside the details element,
+     * which is closed when the toggle is rendered.
+     */
+    public static class ToggleBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            List<RichText> richTexts = block.asToggle().getToggle().getRichText();
+            out.append("<details>\n<summary>");
+            NotionUtil.appendRichText(richTexts, out);
+            out.append("</summary>");
+        }
+    }
+
+    public static class CalloutBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            List<RichText> richTexts = block.asCallout().getCallout().getRichText();
+            out.append("> ");
+            if (block.asCallout().getCallout().getIcon() instanceof Emoji) {
+                out.append(((Emoji) block.asCallout().getCallout().getIcon()).getEmoji()).append(' ');
+            }
+            NotionUtil.appendRichText(richTexts, out);
+        }
+    }
+
+    public static class EquationBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            out.append("$$\n")
+                    .append(block.asEquation().getEquation().getExpression())
+                    .append("\n$$");
+        }
+    }
+
+    /**
+     * Renders the header separator of a table. The rows are the table's children,
+     * and the separator is written after the first of them when the table is rendered.
+     */
+    public static class TableBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            Integer width = block.asTable().getTable().getTableWidth();
+            out.append('|');
+            for (int i = 0; i < (width == null || width < 1 ? 1 : width); i++) {
+                out.append(" --- |");
+            }
+        }
+    }
+
+    public static class TableRowBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            out.append('|');
+            for (List<RichText> cell : block.asTableRow().getTableRow().getCells()) {
+                out.append(' ');
+                int start = out.length();
+                NotionUtil.appendRichText(cell, out);
+                for (int i = start; i < out.length(); i++) {
+                    char c = out.charAt(i);
+                    if (c == '|') {
+                        out.insert(i++, '\\');
+                    } else if (c == '\n') {
+                        out.replace(i, i + 1, "<br>");
+                        i += 3;
+                    }
+                }
+                out.append(" |");
+            }
+        }
+    }
+
+    /**
+     * Renders a link to a sub-page. The sub-page's content is not part of the page;
+     * the link can be pointed at the exported sub-page, see {@code WorkspaceCrawler}.
+     */
+    public static class ChildPageBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            out.append('[')
+                    .append(block.asChildPage().getChildPage().getTitle())
+                    .append("](")
+                    .append(NotionUtil.getPageUrl(block.getId()))
+                    .append(')');
+        }
+    }
+
+    public static class LinkToPageBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+            String pageId = block.asLinkToPage().getLinkToPage().getPageId();
+            if (pageId != null) {
+                out.append("[Page](")
+                        .append(NotionUtil.getPageUrl(pageId))
+                        .append(')');
+            }
+        }
+    }
+
+    /**
+     * Renders nothing for blocks that only lay out their children, such as columns
+     */
+    public static class ContainerBehavior implements BehaviorStrategy {
+        @Override
+        public void format(Block block, StringBuilder out) {
+
         }
     }
 }
@@ -0,0 +1,367 @@
+package adaptor.notion.cache;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent cache of raw Notion API responses, kept across process restarts.
+ * Entries are appended to a single segment file and read back through a memory mapping.
+ * The mapping grows in doubling chunks, ahead of the written data, and is only replaced when a read
+ * goes past its end, so appends do not remap the segment.
+ * An index of key to offset, length and creation time is held in memory, saved to a small
+ * index file on close, and rebuilt by scanning the segment when the index file is missing.
+ *
+ * <p>Entries older than the maximum age are treated as missing. When the segment grows past
+ * the maximum size, the newest live entries are copied to a fresh segment and the rest,
+ * including expired and overwritten entries, are dropped.</p>
+ */
+public class DiskBlockCache implements Closeable {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(DiskBlockCache.class);
+
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(1);
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final String SEGMENT_FILE = "blocks.seg";
+    private static final String INDEX_FILE = "blocks.idx";
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final double COMPACTION_TARGET = 0.75;
+    private static final long MIN_MAPPED_BYTES = 1024 * 1024;
+
+    private final Path segmentPath;
+    private final Path indexPath;
+    private final long maxAgeMillis;
+    private final long maxBytes;
+    private Map<String, Entry> index = new HashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long size;
+    private boolean closed;
+
+    private DiskBlockCache(Path directory, Duration maxAge, long maxBytes) {
+        this.segmentPath = directory.resolve(SEGMENT_FILE);
+        this.indexPath = directory.resolve(INDEX_FILE);
+        this.maxAgeMillis = maxAge.toMillis();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the cache stored in the given directory with the default age and size limits
+     *
+     * @param directory Directory holding the cache files, created if missing
+     * @return Opened cache
+     * @throws IOException if the cache files cannot be opened
+     */
+    public static DiskBlockCache open(Path directory) throws IOException {
+        return open(directory, DEFAULT_MAX_AGE, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Opens the cache stored in the given directory
+     *
+     * @param directory Directory holding the cache files, created if missing
+     * @param maxAge Age after which an entry is no longer served
+     * @param maxBytes Segment size that triggers eviction, at most 2 GiB
+     * @return Opened cache
+     * @throws IOException if the cache files cannot be opened
+     * @throws IllegalArgumentException if an argument is null or out of range
+     */
+    public static DiskBlockCache open(Path directory, Duration maxAge, long maxBytes) throws IOException {
+        if (directory == null || maxAge == null || maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Directory and a positive max age are required");
+        }
+        if (maxBytes <= 0 || maxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBytes must be between 1 and " + Integer.MAX_VALUE);
+        }
+        Files.createDirectories(directory);
+        DiskBlockCache cache = new DiskBlockCache(directory, maxAge, maxBytes);
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * Gets a cached value
+     *
+     * @param key Cache key
+     * @return Cached value, or null if missing or expired
+     */
+    public synchronized String get(String key) {
+        if (closed) {
+            return null;
+        }
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            index.remove(key);
+            return null;
+        }
+        try {
+            ensureMapped(entry.offset + entry.length);
+        } catch (IOException e) {
+            log.warn("Failed to map block cache segment", e);
+            return null;
+        }
+        ByteBuffer value = mapped.duplicate();
+        value.limit((int) (entry.offset + entry.length)).position((int) entry.offset);
+        return StandardCharsets.UTF_8.decode(value).toString();
+    }
+
+    /**
+     * Appends a value to the cache, replacing any previous value of the key
+     *
+     * @param key Cache key
+     * @param value Value to cache
+     */
+    public synchronized void put(String key, String value) {
+        if (closed || key == null || key.isEmpty() || value == null) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        long createdMillis = System.currentTimeMillis();
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + valueBytes.length);
+        record.putInt(keyBytes.length).putInt(valueBytes.length).putLong(createdMillis)
+                .put(keyBytes).put(valueBytes)
+                .flip();
+        try {
+            writeFully(channel, record, size);
+        } catch (IOException e) {
+            log.warn("Failed to append to block cache", e);
+            return;
+        }
+        index.put(key, new Entry(size + HEADER_BYTES + keyBytes.length, valueBytes.length, createdMillis));
+        size += record.limit();
+
+        if (size > maxBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                log.warn("Failed to compact block cache", e);
+            }
+        }
+    }
+
+    /**
+     * @return Number of keys currently indexed, including expired ones not yet evicted
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return Size of the segment file in bytes
+     */
+    public synchronized long sizeInBytes() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        mapped = null;
+        channel.truncate(size);
+        channel.force(false);
+        writeIndex();
+        channel.close();
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(segmentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long segmentSize = channel.size();
+        long indexed = readIndex(segmentSize);
+        size = scan(indexed, segmentSize);
+        if (size < segmentSize) {
+            log.warn("Discarding {} bytes of incomplete records or padding from block cache", segmentSize - size);
+            channel.truncate(size);
+        }
+        log.debug("Opened block cache with {} entries, {} bytes", index.size(), size);
+    }
+
+    private long scan(long from, long end) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long position = from;
+        while (position + HEADER_BYTES <= end) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            long createdMillis = header.getLong();
+            long recordEnd = position + HEADER_BYTES + keyLength + valueLength;
+            if (keyLength <= 0 || valueLength < 0 || recordEnd > end) {
+                break;
+            }
+            ByteBuffer key = ByteBuffer.allocate(keyLength);
+            readFully(channel, key, position + HEADER_BYTES);
+            index.put(new String(key.array(), StandardCharsets.UTF_8),
+                    new Entry(position + HEADER_BYTES + keyLength, valueLength, createdMillis));
+            position = recordEnd;
+        }
+        return position;
+    }
+
+    private long readIndex(long segmentSize) {
+        if (!Files.exists(indexPath)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            long indexedSize = in.readLong();
+            if (indexedSize > segmentSize) {
+                log.warn("Block cache index is ahead of its segment, rebuilding");
+                return 0;
+            }
+            int count = in.readInt();
+            Map<String, Entry> loaded = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                loaded.put(key, new Entry(in.readLong(), in.readInt(), in.readLong()));
+            }
+            index = loaded;
+            return indexedSize;
+        } catch (EOFException e) {
+            log.warn("Block cache index is truncated, rebuilding");
+        } catch (IOException e) {
+            log.warn("Failed to read block cache index, rebuilding", e);
+        }
+        index = new HashMap<>();
+        return 0;
+    }
+
+    private void writeIndex() throws IOException {
+        Path tmp = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeLong(size);
+            out.writeInt(index.size());
+            for (Map.Entry<String, Entry> item : index.entrySet()) {
+                Entry entry = item.getValue();
+                out.writeUTF(item.getKey());
+                out.writeLong(entry.offset);
+                out.writeInt(entry.length);
+                out.writeLong(entry.createdMillis);
+            }
+        }
+        Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Entry>> live = new ArrayList<>(index.size());
+        for (Map.Entry<String, Entry> item : index.entrySet()) {
+            if (!isExpired(item.getValue(), now)) {
+                live.add(item);
+            }
+        }
+        live.sort((a, b) -> Long.compare(b.getValue().createdMillis, a.getValue().createdMillis));
+        ensureMapped(size);
+
+        long target = (long) (maxBytes * COMPACTION_TARGET);
+        Path tmp = segmentPath.resolveSibling(SEGMENT_FILE + ".tmp");
+        Map<String, Entry> compacted = new HashMap<>(live.size() * 2);
+        long position = 0;
+        try (FileChannel out = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Entry> item : live) {
+                Entry entry = item.getValue();
+                byte[] keyBytes = item.getKey().getBytes(StandardCharsets.UTF_8);
+                long recordSize = HEADER_BYTES + keyBytes.length + entry.length;
+                if (position + recordSize > target) {
+                    break;
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length);
+                header.putInt(keyBytes.length).putInt(entry.length).putLong(entry.createdMillis).put(keyBytes).flip();
+                writeFully(out, header, position);
+
+                ByteBuffer value = mapped.duplicate();
+                value.limit((int) (entry.offset + entry.length)).position((int) entry.offset);
+                writeFully(out, value, position + header.limit());
+
+                compacted.put(item.getKey(), new Entry(position + header.limit(), entry.length, entry.createdMillis));
+                position += recordSize;
+            }
+        }
+
+        mapped = null;
+        channel.close();
+        Files.move(tmp, segmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(indexPath);
+        channel = FileChannel.open(segmentPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.debug("Compacted block cache from {} to {} bytes, {} of {} entries kept",
+                size, position, compacted.size(), index.size());
+        index = compacted;
+        size = position;
+    }
+
+    /**
+     * Maps at least the first {@code end} bytes of the segment. A new mapping doubles the previous one, up to
+     * the maximum size, which extends the file ahead of the appends; the padding past the written records
+     * is cut off on close, and ends the scan of a segment left padded by a crash.
+     */
+    private void ensureMapped(long end) throws IOException {
+        if (mapped != null && mapped.capacity() >= end) {
+            return;
+        }
+        long capacity = mapped == null ? MIN_MAPPED_BYTES : 2L * mapped.capacity();
+        capacity = Math.max(end, Math.min(Math.max(capacity, MIN_MAPPED_BYTES), maxBytes));
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(capacity, Integer.MAX_VALUE));
+        log.trace("Mapped {} bytes of block cache segment", mapped.capacity());
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdMillis > maxAgeMillis;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of block cache segment");
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static class Entry {
+        private final long offset;
+        private final int length;
+        private final long createdMillis;
+
+        private Entry(long offset, int length, long createdMillis) {
+            this.offset = offset;
+            this.length = length;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package adaptor.notion.cache;
+
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of converted blocks keyed by block ID, used for incremental re-conversion.
+ * Each entry keeps the block's {@code last_edited_time} and its converted markdown block,
+ * including the converted children. On re-sync a block whose timestamp has not moved is
+ * reused as is instead of being rendered again.
+ *
+ * <p>Notion reports {@code last_edited_time} with minute precision, so a block edited less than
+ * a minute before it was cached is not reused. Notion also does not always move a parent's
+ * timestamp when only a nested child changes, so callers must list the children of a cached
+ * container again and only reuse it when its children are unchanged too. The cache therefore saves
+ * rendering only: a re-sync issues the same number of API requests as a full conversion.
+ * Cached markdown blocks are shared between conversions and must not be modified.</p>
+ */
+public class IncrementalBlockCache {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(IncrementalBlockCache.class);
+
+    /**
+     * Default maximum number of cached blocks
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private static final Duration TIMESTAMP_PRECISION = Duration.ofMinutes(1);
+
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    public IncrementalBlockCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache that evicts the least recently used blocks beyond the given size
+     *
+     * @param maxEntries Maximum number of cached blocks
+     * @throws IllegalArgumentException if maxEntries is not positive
+     */
+    public IncrementalBlockCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the converted block if it has not been edited since it was cached
+     *
+     * @param blockId ID of the block
+     * @param version Version of the block, derived from its last_edited_time
+     * @return Cached markdown block, or null if missing or outdated
+     */
+    public synchronized MdBlocks get(String blockId, String version) {
+        Entry entry = entries.get(blockId);
+        if (entry == null || !entry.settled || !entry.version.equals(version)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.mdBlock;
+    }
+
+    /**
+     * Caches a converted block together with its children
+     *
+     * @param blockId ID of the block
+     * @param version Version of the block, derived from its last_edited_time
+     * @param lastEditedTime ISO-8601 last_edited_time of the block
+     * @param mdBlock Converted markdown block
+     */
+    public synchronized void put(String blockId, String version, String lastEditedTime, MdBlocks mdBlock) {
+        if (blockId == null || version == null || mdBlock == null) {
+            return;
+        }
+        entries.put(blockId, new Entry(version, isSettled(lastEditedTime), mdBlock));
+    }
+
+    public synchronized void invalidate(String blockId) {
+        entries.remove(blockId);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static boolean isSettled(String lastEditedTime) {
+        if (lastEditedTime == null) {
+            return false;
+        }
+        try {
+            return Instant.parse(lastEditedTime).plus(TIMESTAMP_PRECISION).isBefore(Instant.now());
+        } catch (DateTimeParseException e) {
+            log.debug("Unparseable last_edited_time: {}", lastEditedTime);
+            return false;
+        }
+    }
+
+    private static class Entry {
+        private final String version;
+        private final boolean settled;
+        private final MdBlocks mdBlock;
+
+        private Entry(String version, boolean settled, MdBlocks mdBlock) {
+            this.version = version;
+            this.settled = settled;
+            this.mdBlock = mdBlock;
+        }
+    }
+}
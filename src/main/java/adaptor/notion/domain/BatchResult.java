@@ -0,0 +1,43 @@
+package adaptor.notion.domain;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch conversion, split into converted pages and failed pages.
+ * Both maps are keyed by page ID and keep the order in which the pages were requested.
+ */
+@Getter
+public class BatchResult {
+    /**
+     * Markdown blocks of every page that was converted successfully
+     */
+    private final Map<String, List<MdBlocks>> results;
+
+    /**
+     * Failure of every page that could not be converted
+     */
+    private final Map<String, Throwable> failures;
+
+    public BatchResult(List<PageResult> pageResults) {
+        Map<String, List<MdBlocks>> converted = new LinkedHashMap<>();
+        Map<String, Throwable> failed = new LinkedHashMap<>();
+        for (PageResult pageResult : pageResults) {
+            if (pageResult.isSuccess()) {
+                converted.put(pageResult.getPageId(), pageResult.getMdBlocks());
+            } else {
+                failed.put(pageResult.getPageId(), pageResult.getError());
+            }
+        }
+        this.results = Collections.unmodifiableMap(converted);
+        this.failures = Collections.unmodifiableMap(failed);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
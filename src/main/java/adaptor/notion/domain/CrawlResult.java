@@ -0,0 +1,30 @@
+package adaptor.notion.domain;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of crawling a page tree, split into exported pages and failed pages.
+ * Both maps are keyed by page ID.
+ */
+@Getter
+public class CrawlResult {
+    /**
+     * Markdown file of every exported page, relative to the output directory, in the order the files were written
+     */
+    private final Map<String, Path> pages;
+
+    /**
+     * Failure of every page that could not be exported
+     */
+    private final Map<String, Throwable> failures;
+
+    public CrawlResult(Map<String, Path> pages, Map<String, Throwable> failures) {
+        this.pages = Collections.unmodifiableMap(new LinkedHashMap<>(pages));
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+}
@@ -0,0 +1,100 @@
+package adaptor.notion.domain;
+
+import notion.api.v1.model.blocks.BlockType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kind of a markdown block, one per Notion block type plus the page title and front matter.
+ * Kinds are compared by identity while rendering instead of comparing type names.
+ */
+public enum MdBlockKind {
+    PAGE_TITLE("pageTitle"),
+    FRONT_MATTER("frontMatter"),
+    PARAGRAPH("paragraph"),
+    HEADING_1("heading_1"),
+    HEADING_2("heading_2"),
+    HEADING_3("heading_3"),
+    BULLETED_LIST_ITEM("bulleted_list_item"),
+    NUMBERED_LIST_ITEM("numbered_list_item"),
+    TO_DO("to_do"),
+    TOGGLE("toggle"),
+    QUOTE("quote"),
+    CALLOUT("callout"),
+    CODE("code"),
+    EQUATION("equation"),
+    DIVIDER("divider"),
+    IMAGE("image"),
+    VIDEO("video"),
+    AUDIO("audio"),
+    FILE("file"),
+    PDF("pdf"),
+    BOOKMARK("bookmark"),
+    EMBED("embed"),
+    LINK_PREVIEW("link_preview"),
+    TABLE("table"),
+    TABLE_ROW("table_row"),
+    COLUMN_LIST("column_list"),
+    COLUMN("column"),
+    CHILD_PAGE("child_page"),
+    CHILD_DATABASE("child_database"),
+    LINK_TO_PAGE("link_to_page"),
+    SYNCED_BLOCK("synced_block"),
+    TABLE_OF_CONTENTS("table_of_contents"),
+    BREADCRUMB("breadcrumb"),
+    TEMPLATE("template"),
+    UNSUPPORTED("unsupported");
+
+    private static final MdBlockKind[] VALUES = values();
+    private static final Map<String, MdBlockKind> BY_TYPE_NAME = new HashMap<>();
+
+    static {
+        for (MdBlockKind kind : VALUES) {
+            BY_TYPE_NAME.put(kind.typeName, kind);
+        }
+    }
+
+    private final String typeName;
+
+    MdBlockKind(String typeName) {
+        this.typeName = typeName;
+    }
+
+    /**
+     * @return Notion type name of the kind, e.g. {@code bulleted_list_item}
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return true for bulleted, numbered and to-do list items
+     */
+    public boolean isListItem() {
+        return this == BULLETED_LIST_ITEM || this == NUMBERED_LIST_ITEM || this == TO_DO;
+    }
+
+    /**
+     * Gets the kind of a type name
+     * @param typeName Notion type name, {@code pageTitle} or {@code frontMatter}
+     * @return Matching kind, or {@link #UNSUPPORTED} for unknown names
+     */
+    public static MdBlockKind of(String typeName) {
+        MdBlockKind kind = typeName == null ? null : BY_TYPE_NAME.get(typeName);
+        return kind == null ? UNSUPPORTED : kind;
+    }
+
+    /**
+     * Gets the kind of a Notion block type
+     * @param blockType Notion block type
+     * @return Matching kind, or {@link #UNSUPPORTED} for unknown types
+     */
+    public static MdBlockKind of(BlockType blockType) {
+        return blockType == null ? UNSUPPORTED : of(blockType.toString());
+    }
+
+    static MdBlockKind ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
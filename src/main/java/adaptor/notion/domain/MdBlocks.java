@@ -1,35 +1,72 @@
 package adaptor.notion.domain;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 import java.util.List;
 
 /**
  * Represents a Markdown block converted from a Notion block.
- * Each block contains its unique identifier, type, content,
+ * Each block contains its unique identifier, kind, content,
  * and optional child blocks for nested content structures.
+ * Blocks are immutable, so converted trees can be cached and shared safely.
  */
-@Data
-@AllArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
 public class MdBlocks {
     /**
      * Unique identifier of the block, inherited from Notion block
      */
-    private String blockId;
+    private final String blockId;
 
     /**
-     * Type of the block
+     * Kind of the block
      */
-    private String type;
+    private final MdBlockKind kind;
 
     /**
      * Markdown-formatted content of the block
      */
-    private String content;
+    private final String content;
 
     /**
-     * List of child blocks, if any
+     * List of child blocks, empty if none
      */
-    private List<MdBlocks> children;
+    private final List<MdBlocks> children;
+
+    /**
+     * Creates a markdown block
+     * @param blockId Unique identifier of the block
+     * @param kind Kind of the block
+     * @param content Markdown-formatted content of the block
+     * @param children Child blocks in document order, or null if none
+     */
+    public MdBlocks(String blockId, MdBlockKind kind, String content, List<MdBlocks> children) {
+        this.blockId = blockId;
+        this.kind = kind == null ? MdBlockKind.UNSUPPORTED : kind;
+        this.content = content == null ? "" : content;
+        this.children = children == null || children.isEmpty() ? List.of() : List.copyOf(children);
+    }
+
+    /**
+     * Creates a markdown block from a type name
+     * @param blockId Unique identifier of the block
+     * @param type Notion type name of the block
+     * @param content Markdown-formatted content of the block
+     * @param children Child blocks in document order, or null if none
+     * @return Markdown block of the kind named by type
+     * @see MdBlockKind#of(String)
+     */
+    public static MdBlocks ofType(String blockId, String type, String content, List<MdBlocks> children) {
+        return new MdBlocks(blockId, MdBlockKind.of(type), content, children);
+    }
+
+    /**
+     * @return Notion type name of the block, e.g. {@code paragraph}
+     */
+    public String getType() {
+        return kind.getTypeName();
+    }
 }
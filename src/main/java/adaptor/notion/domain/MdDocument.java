@@ -0,0 +1,184 @@
+package adaptor.notion.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact, columnar representation of a converted page for holding many pages in memory.
+ * Every block is a row of a few primitive columns: the block IDs and contents are stored back to
+ * back in a single string, blocks are laid out in document pre-order, and the tree is encoded as
+ * the end of each block's subtree, so a document costs little more than its text.
+ *
+ * <p>The document can be read row by row, or as {@link MdBlocks} trees for compatibility with the
+ * rest of the API; iterating materializes one top-level block and its subtree at a time.</p>
+ */
+public final class MdDocument implements Iterable<MdBlocks> {
+    private final String text;
+    private final int[] idStarts;
+    private final int[] contentStarts;
+    private final int[] subtreeEnds;
+    private final byte[] kinds;
+
+    private MdDocument(String text, int[] idStarts, int[] contentStarts, int[] subtreeEnds, byte[] kinds) {
+        this.text = text;
+        this.idStarts = idStarts;
+        this.contentStarts = contentStarts;
+        this.subtreeEnds = subtreeEnds;
+        this.kinds = kinds;
+    }
+
+    /**
+     * Packs markdown blocks and their descendants into a document.
+     * A null block ID is stored, and read back, as an empty string.
+     * @param mdBlocks Top-level markdown blocks in document order
+     * @return Compact document holding the same blocks
+     * @throws IllegalArgumentException if mdBlocks is null
+     */
+    public static MdDocument of(List<MdBlocks> mdBlocks) {
+        if (mdBlocks == null) {
+            throw new IllegalArgumentException("MdBlocks cannot be null");
+        }
+        Packer packer = new Packer();
+        for (MdBlocks mdBlock : mdBlocks) {
+            packer.add(mdBlock);
+        }
+        return packer.build();
+    }
+
+    /**
+     * @return Number of blocks, including nested ones
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    /**
+     * @return Total length of the stored IDs and contents
+     */
+    public int textLength() {
+        return text.length();
+    }
+
+    /**
+     * @param index Pre-order index of the block
+     * @return ID of the block
+     */
+    public String getBlockId(int index) {
+        return text.substring(idStarts[index], contentStarts[index]);
+    }
+
+    /**
+     * @param index Pre-order index of the block
+     * @return Kind of the block
+     */
+    public MdBlockKind getKind(int index) {
+        return MdBlockKind.ofOrdinal(kinds[index]);
+    }
+
+    /**
+     * @param index Pre-order index of the block
+     * @return Markdown content of the block
+     */
+    public String getContent(int index) {
+        return text.substring(contentStarts[index], contentEnd(index));
+    }
+
+    /**
+     * @param index Pre-order index of the block
+     * @return Pre-order index just past the last descendant of the block
+     */
+    public int getSubtreeEnd(int index) {
+        return subtreeEnds[index];
+    }
+
+    /**
+     * Materializes the document as markdown blocks
+     * @return Top-level markdown blocks with their children populated
+     */
+    public List<MdBlocks> toMdBlocks() {
+        List<MdBlocks> mdBlocks = new ArrayList<>();
+        forEach(mdBlocks::add);
+        return mdBlocks;
+    }
+
+    /**
+     * Iterates over the top-level blocks, materializing each with its subtree on demand
+     */
+    @Override
+    public Iterator<MdBlocks> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < kinds.length;
+            }
+
+            @Override
+            public MdBlocks next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MdBlocks mdBlock = materialize(next);
+                next = subtreeEnds[next];
+                return mdBlock;
+            }
+        };
+    }
+
+    private MdBlocks materialize(int index) {
+        List<MdBlocks> children = null;
+        int child = index + 1;
+        if (child < subtreeEnds[index]) {
+            children = new ArrayList<>();
+            while (child < subtreeEnds[index]) {
+                children.add(materialize(child));
+                child = subtreeEnds[child];
+            }
+        }
+        return new MdBlocks(getBlockId(index), getKind(index), getContent(index), children);
+    }
+
+    private int contentEnd(int index) {
+        return index + 1 < idStarts.length ? idStarts[index + 1] : text.length();
+    }
+
+    private static final class Packer {
+        private final StringBuilder text = new StringBuilder();
+        private int[] idStarts = new int[64];
+        private int[] contentStarts = new int[64];
+        private int[] subtreeEnds = new int[64];
+        private byte[] kinds = new byte[64];
+        private int size;
+
+        private void add(MdBlocks mdBlock) {
+            int index = size++;
+            if (index == kinds.length) {
+                int capacity = kinds.length * 2;
+                idStarts = Arrays.copyOf(idStarts, capacity);
+                contentStarts = Arrays.copyOf(contentStarts, capacity);
+                subtreeEnds = Arrays.copyOf(subtreeEnds, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+            }
+            idStarts[index] = text.length();
+            if (mdBlock.getBlockId() != null) {
+                text.append(mdBlock.getBlockId());
+            }
+            contentStarts[index] = text.length();
+            text.append(mdBlock.getContent());
+            kinds[index] = (byte) mdBlock.getKind().ordinal();
+            for (MdBlocks child : mdBlock.getChildren()) {
+                add(child);
+            }
+            subtreeEnds[index] = size;
+        }
+
+        private MdDocument build() {
+            return new MdDocument(text.toString(), Arrays.copyOf(idStarts, size), Arrays.copyOf(contentStarts, size),
+                    Arrays.copyOf(subtreeEnds, size), Arrays.copyOf(kinds, size));
+        }
+    }
+}
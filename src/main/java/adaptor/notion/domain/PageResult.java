@@ -0,0 +1,42 @@
+package adaptor.notion.domain;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Outcome of converting a single page as part of a batch.
+ * Holds either the converted markdown blocks or the failure that stopped the conversion.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PageResult {
+    /**
+     * ID of the converted Notion page
+     */
+    private final String pageId;
+
+    /**
+     * Converted markdown blocks, null if the conversion failed
+     */
+    private final List<MdBlocks> mdBlocks;
+
+    /**
+     * Failure raised while converting the page, null if the conversion succeeded
+     */
+    private final Throwable error;
+
+    public static PageResult success(String pageId, List<MdBlocks> mdBlocks) {
+        return new PageResult(pageId, mdBlocks, null);
+    }
+
+    public static PageResult failure(String pageId, Throwable error) {
+        return new PageResult(pageId, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -3,6 +3,11 @@ package adaptor.notion.domain;
 import lombok.Getter;
 import notion.api.v1.model.blocks.NumberedListItemBlock;
 
+/**
+ * Numbered list item carrying its position in the list.
+ * @deprecated List items are numbered when markdown is rendered, so blocks no longer need to be copied.
+ */
+@Deprecated
 @Getter
 public class SerialNumberedListBlock extends NumberedListItemBlock {
     private final int serialNumber;
@@ -0,0 +1,218 @@
+package adaptor.notion.http;
+
+import adaptor.notion.cache.DiskBlockCache;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import notion.api.v1.http.NotionHttpClient;
+import notion.api.v1.http.NotionHttpResponse;
+import notion.api.v1.logging.NotionLogger;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link NotionHttpClient} decorator that serves block children responses from a {@link DiskBlockCache}.
+ * Successful {@code GET /blocks/{id}/children} responses are stored raw, keyed by a hash of the
+ * integration token, block ID, start cursor and page size, and served until they reach the cache's
+ * maximum age. Every other request goes straight to the delegate.
+ *
+ * <p>Hashing the token keeps integrations sharing a cache directory from reading each other's blocks.
+ * A client returned by {@link #forParentVersion(String, Mode)} also keys its entries by the parent's
+ * {@code last_edited_time}, so an edit to the parent invalidates its cached children. The version is
+ * held by the returned client itself, so requests may be sent from any thread. Notion does not move a
+ * parent's timestamp when only a nested block changes; a client in {@link Mode#REFRESH} mode skips the
+ * cache and refreshes it.</p>
+ */
+public class CachingHttpClient extends ForwardingHttpClient {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(CachingHttpClient.class);
+    private static final Pattern BLOCK_CHILDREN_URL = Pattern.compile(".*/blocks/([^/?]+)/children$");
+    private static final int TOKEN_HASH_CHARS = 16;
+    private static final String CACHE_MISS_BODY =
+            "{\"object\":\"error\",\"status\":504,\"code\":\"cache_miss\",\"message\":\"Block children are not cached\"}";
+
+    /**
+     * How a client uses the cache for block children requests
+     */
+    public enum Mode {
+        /**
+         * Serve cached responses, fetching and caching the missing ones
+         */
+        CACHED,
+        /**
+         * Serve cached responses only. A missing entry is answered with status 504, like an HTTP
+         * {@code only-if-cached} request, without contacting Notion
+         */
+        ONLY_IF_CACHED,
+        /**
+         * Fetch every response from Notion and replace the cached one
+         */
+        REFRESH
+    }
+
+    private final NotionHttpClient delegate;
+    private final DiskBlockCache cache;
+    private final RateLimiter rateLimiter;
+    private final Map<String, String> tokenHashes;
+    private final String parentVersion;
+    private final Mode mode;
+    private final boolean ownsDelegate;
+
+    /**
+     * Creates a new CachingHttpClient
+     *
+     * @param delegate Client sending the requests that miss the cache
+     * @param cache Cache of block children responses
+     * @throws IllegalArgumentException if delegate or cache is null
+     */
+    public CachingHttpClient(NotionHttpClient delegate, DiskBlockCache cache) {
+        this(delegate, cache, null);
+    }
+
+    /**
+     * Creates a new CachingHttpClient in front of a rate limited client. A request served from the
+     * cache gives back the rate token reserved for it, see {@link RateLimiter#reserve()}.
+     *
+     * @param delegate Client sending the requests that miss the cache
+     * @param cache Cache of block children responses
+     * @param rateLimiter Rate limiter of the delegate, or null if it has none
+     * @throws IllegalArgumentException if delegate or cache is null
+     */
+    public CachingHttpClient(NotionHttpClient delegate, DiskBlockCache cache, RateLimiter rateLimiter) {
+        if (delegate == null || cache == null) {
+            throw new IllegalArgumentException("Delegate client and cache cannot be null");
+        }
+        this.delegate = delegate;
+        this.cache = cache;
+        this.rateLimiter = rateLimiter;
+        this.tokenHashes = new ConcurrentHashMap<>();
+        this.parentVersion = null;
+        this.mode = Mode.CACHED;
+        this.ownsDelegate = true;
+    }
+
+    private CachingHttpClient(CachingHttpClient client, String parentVersion, Mode mode) {
+        this.delegate = client.delegate;
+        this.cache = client.cache;
+        this.rateLimiter = client.rateLimiter;
+        this.tokenHashes = client.tokenHashes;
+        this.parentVersion = parentVersion;
+        this.mode = mode;
+        this.ownsDelegate = false;
+    }
+
+    /**
+     * Gets a client sharing this client's cache and delegate whose cached block children are only valid
+     * for the given version of their parent. Closing the returned client does not close the delegate.
+     *
+     * @param lastEditedTime last_edited_time of the parent block or page, or null for unversioned entries
+     * @param mode How the returned client uses the cache
+     * @return Client keyed by the parent version
+     * @throws IllegalArgumentException if mode is null
+     */
+    public CachingHttpClient forParentVersion(String lastEditedTime, Mode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode cannot be null");
+        }
+        return new CachingHttpClient(this, lastEditedTime, mode);
+    }
+
+    @Override
+    public NotionHttpResponse get(NotionLogger logger, String url,
+                                  Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        Matcher matcher = BLOCK_CHILDREN_URL.matcher(url);
+        if (!matcher.matches()) {
+            return delegate.get(logger, url, query, headers);
+        }
+
+        String key = tokenHash(headers) + "|" + matcher.group(1)
+                + "|" + firstValue(query, "start_cursor") + "|" + firstValue(query, "page_size")
+                + (parentVersion == null ? "" : "|" + parentVersion);
+        if (mode != Mode.REFRESH) {
+            String cached = cache.get(key);
+            if (cached != null) {
+                log.trace("Serving block children from disk cache: {}", key);
+                if (rateLimiter != null && mode == Mode.CACHED) {
+                    rateLimiter.refund();
+                }
+                return new NotionHttpResponse(200, cached, Collections.emptyMap());
+            }
+            if (mode == Mode.ONLY_IF_CACHED) {
+                return new NotionHttpResponse(504, CACHE_MISS_BODY, Collections.emptyMap());
+            }
+        }
+
+        NotionHttpResponse response = delegate.get(logger, url, query, headers);
+        if (response.getStatus() == 200) {
+            cache.put(key, response.getBody());
+        }
+        return response;
+    }
+
+    @Override
+    public NotionHttpResponse postTextBody(NotionLogger logger, String url,
+                                           Map<String, ? extends List<String>> query, String body,
+                                           Map<String, String> headers) {
+        return delegate.postTextBody(logger, url, query, body, headers);
+    }
+
+    @Override
+    public NotionHttpResponse patchTextBody(NotionLogger logger, String url,
+                                            Map<String, ? extends List<String>> query, String body,
+                                            Map<String, String> headers) {
+        return delegate.patchTextBody(logger, url, query, body, headers);
+    }
+
+    @Override
+    public NotionHttpResponse delete(NotionLogger logger, String url,
+                                     Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        return delegate.delete(logger, url, query, headers);
+    }
+
+    @Override
+    public void close() {
+        if (ownsDelegate) {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Hash of the Authorization header, so tokens are never written to the cache
+     */
+    private String tokenHash(Map<String, String> headers) {
+        String authorization = null;
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if ("Authorization".equalsIgnoreCase(header.getKey())) {
+                    authorization = header.getValue();
+                    break;
+                }
+            }
+        }
+        if (authorization == null) {
+            return "";
+        }
+        return tokenHashes.computeIfAbsent(authorization, CachingHttpClient::sha256);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest).substring(0, TOKEN_HASH_CHARS);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String firstValue(Map<String, ? extends List<String>> query, String name) {
+        List<String> values = query == null ? null : query.get(name);
+        return values == null || values.isEmpty() ? "" : values.get(0);
+    }
+}
@@ -0,0 +1,50 @@
+package adaptor.notion.http;
+
+import notion.api.v1.http.NotionHttpClient;
+import notion.api.v1.http.NotionHttpResponse;
+import notion.api.v1.logging.NotionLogger;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base of the {@link NotionHttpClient} implementations of this library.
+ * The SDK interface is written in Kotlin, whose default methods are not visible to Java
+ * implementations, so the URL helpers and logging hooks are forwarded to the SDK defaults here.
+ */
+abstract class ForwardingHttpClient implements NotionHttpClient {
+    @Override
+    public void close() {
+
+    }
+
+    @Override
+    public String urlEncode(String value) {
+        return NotionHttpClient.DefaultImpls.urlEncode(this, value);
+    }
+
+    @Override
+    public String buildQueryString(Map<String, ? extends List<String>> query) {
+        return NotionHttpClient.DefaultImpls.buildQueryString(this, query);
+    }
+
+    @Override
+    public String buildFullUrl(String url, String queryString) {
+        return NotionHttpClient.DefaultImpls.buildFullUrl(this, url, queryString);
+    }
+
+    @Override
+    public void debugLogStart(NotionLogger logger, String method, String url, String body) {
+        NotionHttpClient.DefaultImpls.debugLogStart(this, logger, method, url, body);
+    }
+
+    @Override
+    public void debugLogSuccess(NotionLogger logger, long startTimeMillis, NotionHttpResponse response) {
+        NotionHttpClient.DefaultImpls.debugLogSuccess(this, logger, startTimeMillis, response);
+    }
+
+    @Override
+    public void warnLogFailure(NotionLogger logger, Exception e) {
+        NotionHttpClient.DefaultImpls.warnLogFailure(this, logger, e);
+    }
+}
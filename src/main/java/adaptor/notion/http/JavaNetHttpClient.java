@@ -0,0 +1,306 @@
+package adaptor.notion.http;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.ConcurrencyUtil;
+import notion.api.v1.http.NotionHttpClient;
+import notion.api.v1.http.NotionHttpResponse;
+import notion.api.v1.logging.NotionLogger;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link NotionHttpClient} built on {@link java.net.http.HttpClient}.
+ * Requests to the same host are multiplexed over pooled HTTP/2 connections that are kept alive
+ * between requests, falling back to HTTP/1.1 keep-alive where the server does not negotiate HTTP/2.
+ * Responses are requested gzip-compressed and decoded transparently.
+ * Requests and responses are logged to the {@link NotionLogger} of the calling client.
+ *
+ * <p>Clients built without an executor share one process-wide executor, so creating many clients
+ * does not create as many thread pools. {@link #shared()} returns one client with default settings,
+ * the default http client of {@link adaptor.notion.utils.NotionClientWrapper}, so every converter
+ * without its own http client shares one connection pool.</p>
+ */
+public class JavaNetHttpClient extends ForwardingHttpClient {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(JavaNetHttpClient.class);
+
+    /**
+     * Default time allowed to establish a connection
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Default time allowed for a response to arrive once the request is sent
+     */
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * Headers managed by {@link HttpClient} itself, which it refuses to have set on a request
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(List.of("connection", "content-length", "expect", "host", "upgrade"));
+    }
+
+    private static volatile ExecutorService sharedExecutor;
+    private static volatile NotionHttpClient sharedClient;
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final boolean compression;
+
+    /**
+     * Creates a new JavaNetHttpClient with default settings
+     */
+    public JavaNetHttpClient() {
+        this(builder());
+    }
+
+    private JavaNetHttpClient(Builder builder) {
+        ExecutorService executor = builder.executor == null ? sharedExecutor() : builder.executor;
+        this.readTimeout = builder.readTimeout;
+        this.compression = builder.compression;
+        this.httpClient = HttpClient.newBuilder()
+                .version(builder.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(builder.connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the process-wide client with default settings.
+     * The returned view ignores {@link #close()}, so closing a NotionClient using it leaves it open for the others.
+     * @return Shared JavaNetHttpClient
+     */
+    public static NotionHttpClient shared() {
+        if (sharedClient == null) {
+            synchronized (JavaNetHttpClient.class) {
+                if (sharedClient == null) {
+                    sharedClient = new NonClosingHttpClient(new JavaNetHttpClient());
+                }
+            }
+        }
+        return sharedClient;
+    }
+
+    private static ExecutorService sharedExecutor() {
+        if (sharedExecutor == null) {
+            synchronized (JavaNetHttpClient.class) {
+                if (sharedExecutor == null) {
+                    sharedExecutor = ConcurrencyUtil.newVirtualThreadExecutor("notion-http");
+                }
+            }
+        }
+        return sharedExecutor;
+    }
+
+    @Override
+    public NotionHttpResponse get(NotionLogger logger, String url,
+                                  Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        return send(logger, newRequest(url, query, headers).GET());
+    }
+
+    @Override
+    public NotionHttpResponse postTextBody(NotionLogger logger, String url,
+                                           Map<String, ? extends List<String>> query, String body,
+                                           Map<String, String> headers) {
+        return send(logger, newRequest(url, query, headers).POST(bodyPublisher(body)));
+    }
+
+    @Override
+    public NotionHttpResponse patchTextBody(NotionLogger logger, String url,
+                                            Map<String, ? extends List<String>> query, String body,
+                                            Map<String, String> headers) {
+        return send(logger, newRequest(url, query, headers).method("PATCH", bodyPublisher(body)));
+    }
+
+    @Override
+    public NotionHttpResponse delete(NotionLogger logger, String url,
+                                     Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        return send(logger, newRequest(url, query, headers).DELETE());
+    }
+
+    /**
+     * Does nothing: the default executor is shared by every client, and a caller-supplied executor
+     * belongs to the caller. Pooled connections are released once the underlying {@link HttpClient}
+     * is no longer referenced.
+     */
+    @Override
+    public void close() {
+    }
+
+    private HttpRequest.Builder newRequest(String url, Map<String, ? extends List<String>> query,
+                                           Map<String, String> headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + queryString(query)))
+                .timeout(readTimeout);
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (!RESTRICTED_HEADERS.contains(header.getKey())) {
+                    request.setHeader(header.getKey(), header.getValue());
+                }
+            }
+        }
+        if (compression) {
+            request.setHeader("Accept-Encoding", "gzip");
+        }
+        return request;
+    }
+
+    private NotionHttpResponse send(NotionLogger logger, HttpRequest.Builder requestBuilder) {
+        HttpRequest request = requestBuilder.build();
+        boolean debug = logger != null ? logger.isDebugEnabled() : log.isTraceEnabled();
+        if (debug) {
+            debug(logger, "Sending a request: " + request.method() + " " + request.uri());
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            String body = readBody(response);
+            if (debug) {
+                debug(logger, "Received a response: " + request.method() + " " + request.uri()
+                        + " -> " + response.statusCode() + " over " + response.version()
+                        + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+            return new NotionHttpResponse(response.statusCode(), body, response.headers().map());
+        } catch (IOException e) {
+            String message = "Request " + request.method() + " " + request.uri() + " failed";
+            if (logger != null) {
+                logger.error(message, e);
+            } else {
+                log.error(message, e);
+            }
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the Notion API", e);
+        }
+    }
+
+    private static void debug(NotionLogger logger, String message) {
+        if (logger != null) {
+            logger.debug(message);
+        } else {
+            log.trace(message);
+        }
+    }
+
+    private static String readBody(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.trim().equalsIgnoreCase("gzip"))
+                .orElse(false);
+        try (InputStream in = gzip ? new GZIPInputStream(response.body()) : response.body()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static HttpRequest.BodyPublisher bodyPublisher(String body) {
+        return body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8);
+    }
+
+    private static String queryString(Map<String, ? extends List<String>> query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        StringBuilder queryString = new StringBuilder();
+        for (Map.Entry<String, ? extends List<String>> parameter : query.entrySet()) {
+            String name = URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8);
+            for (String value : parameter.getValue()) {
+                queryString.append(queryString.length() == 0 ? '?' : '&')
+                        .append(name)
+                        .append('=')
+                        .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return queryString.toString();
+    }
+
+    public static class Builder {
+        private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        private Duration readTimeout = DEFAULT_READ_TIMEOUT;
+        private ExecutorService executor;
+        private boolean http2 = true;
+        private boolean compression = true;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the time allowed to establish a connection
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            if (connectTimeout == null || connectTimeout.isNegative() || connectTimeout.isZero()) {
+                throw new IllegalArgumentException("connectTimeout must be positive");
+            }
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the time allowed for a response to arrive once the request is sent
+         */
+        public Builder readTimeout(Duration readTimeout) {
+            if (readTimeout == null || readTimeout.isNegative() || readTimeout.isZero()) {
+                throw new IllegalArgumentException("readTimeout must be positive");
+            }
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the executor handling responses.
+         * A caller-supplied executor is not shut down when the client is closed.
+         * Defaults to a virtual thread per task executor shared by every client.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Enables HTTP/2 negotiation. Enabled by default.
+         */
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /**
+         * Requests gzip-compressed responses. Enabled by default.
+         */
+        public Builder compression(boolean compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        public JavaNetHttpClient build() {
+            return new JavaNetHttpClient(this);
+        }
+    }
+}
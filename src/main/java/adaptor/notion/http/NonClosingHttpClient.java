@@ -0,0 +1,55 @@
+package adaptor.notion.http;
+
+import notion.api.v1.http.NotionHttpClient;
+import notion.api.v1.http.NotionHttpResponse;
+import notion.api.v1.logging.NotionLogger;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link NotionHttpClient} view of a shared client that ignores {@link #close()}.
+ * Closing a {@code NotionClient} also closes its http client, so clients sharing one
+ * connection pool are each given this view and the owner closes the pool itself.
+ */
+public class NonClosingHttpClient extends ForwardingHttpClient {
+    private final NotionHttpClient delegate;
+
+    public NonClosingHttpClient(NotionHttpClient delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate client cannot be null");
+        }
+        this.delegate = delegate;
+    }
+
+    @Override
+    public NotionHttpResponse get(NotionLogger logger, String url,
+                                  Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        return delegate.get(logger, url, query, headers);
+    }
+
+    @Override
+    public NotionHttpResponse postTextBody(NotionLogger logger, String url,
+                                           Map<String, ? extends List<String>> query, String body,
+                                           Map<String, String> headers) {
+        return delegate.postTextBody(logger, url, query, body, headers);
+    }
+
+    @Override
+    public NotionHttpResponse patchTextBody(NotionLogger logger, String url,
+                                            Map<String, ? extends List<String>> query, String body,
+                                            Map<String, String> headers) {
+        return delegate.patchTextBody(logger, url, query, body, headers);
+    }
+
+    @Override
+    public NotionHttpResponse delete(NotionLogger logger, String url,
+                                     Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        return delegate.delete(logger, url, query, headers);
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
@@ -0,0 +1,143 @@
+package adaptor.notion.http;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import notion.api.v1.http.NotionHttpClient;
+import notion.api.v1.http.NotionHttpResponse;
+import notion.api.v1.logging.NotionLogger;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link NotionHttpClient} decorator that sends every request through a {@link RateLimiter}.
+ * Responses with status 429 are retried after the pause given by their {@code Retry-After}
+ * header, up to the limiter's retry count, before being handed back to the Notion client.
+ */
+public class RateLimitedHttpClient extends ForwardingHttpClient {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(RateLimitedHttpClient.class);
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final NotionHttpClient delegate;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Creates a new RateLimitedHttpClient
+     *
+     * @param delegate Client sending the actual requests
+     * @param rateLimiter Limiter throttling the requests
+     * @throws IllegalArgumentException if delegate or rateLimiter is null
+     */
+    public RateLimitedHttpClient(NotionHttpClient delegate, RateLimiter rateLimiter) {
+        if (delegate == null || rateLimiter == null) {
+            throw new IllegalArgumentException("Delegate client and rate limiter cannot be null");
+        }
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public NotionHttpResponse get(NotionLogger logger, String url,
+                                  Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        return execute(url, () -> delegate.get(logger, url, query, headers));
+    }
+
+    @Override
+    public NotionHttpResponse postTextBody(NotionLogger logger, String url,
+                                           Map<String, ? extends List<String>> query, String body,
+                                           Map<String, String> headers) {
+        return execute(url, () -> delegate.postTextBody(logger, url, query, body, headers));
+    }
+
+    @Override
+    public NotionHttpResponse patchTextBody(NotionLogger logger, String url,
+                                            Map<String, ? extends List<String>> query, String body,
+                                            Map<String, String> headers) {
+        return execute(url, () -> delegate.patchTextBody(logger, url, query, body, headers));
+    }
+
+    @Override
+    public NotionHttpResponse delete(NotionLogger logger, String url,
+                                     Map<String, ? extends List<String>> query, Map<String, String> headers) {
+        return execute(url, () -> delegate.delete(logger, url, query, headers));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private NotionHttpResponse execute(String url, Supplier<NotionHttpResponse> request) {
+        for (int attempt = 0; ; attempt++) {
+            NotionHttpResponse response = executeOnce(request);
+            if (response.getStatus() != 429) {
+                return response;
+            }
+            if (attempt >= rateLimiter.getMaxRetries()) {
+                log.warn("Request to {} still rate limited after {} retries", url, attempt);
+                return response;
+            }
+            log.debug("Request to {} rate limited, retry {} of {}", url, attempt + 1, rateLimiter.getMaxRetries());
+        }
+    }
+
+    private NotionHttpResponse executeOnce(Supplier<NotionHttpResponse> request) {
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rate limiter", e);
+        }
+
+        long start = System.nanoTime();
+        NotionHttpResponse response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            rateLimiter.abort();
+            throw e;
+        }
+        rateLimiter.release(response.getStatus(), System.nanoTime() - start, retryAfterNanos(response));
+        return response;
+    }
+
+    /**
+     * Pause requested by a 429 response. {@code Retry-After} holds either a number of seconds or an HTTP-date.
+     */
+    static long retryAfterNanos(NotionHttpResponse response) {
+        if (response.getStatus() != 429) {
+            return 0;
+        }
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                Long retryAfter = parseRetryAfterNanos(header.getValue().get(0).trim(), Instant.now());
+                if (retryAfter != null) {
+                    return retryAfter;
+                }
+                log.debug("Ignoring malformed Retry-After header: {}", header.getValue());
+            }
+        }
+        return TimeUnit.SECONDS.toNanos(DEFAULT_RETRY_AFTER_SECONDS);
+    }
+
+    private static Long parseRetryAfterNanos(String value, Instant now) {
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // Not delay-seconds, so it should be an HTTP-date
+        }
+        try {
+            Instant retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, Duration.between(now, retryAt).toNanos());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
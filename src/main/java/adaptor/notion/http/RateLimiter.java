@@ -0,0 +1,274 @@
+package adaptor.notion.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Throttles Notion API requests with a token bucket and an adaptive concurrency limit.
+ * The token bucket keeps the request rate under the configured quota, a {@code Retry-After}
+ * pause holds back every request after a 429, and the concurrency limit follows an
+ * additive-increase/multiplicative-decrease policy driven by 429s and slow responses.
+ * A single instance may be shared by several clients that draw from the same quota.
+ */
+public class RateLimiter {
+    /**
+     * Average request rate allowed by the Notion API
+     */
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 3.0;
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    public static final long DEFAULT_LATENCY_THRESHOLD_MILLIS = 5_000;
+
+    private static final double RATE_LIMITED_DECREASE = 0.5;
+    private static final double SLOW_RESPONSE_DECREASE = 0.9;
+
+    private final double requestsPerSecond;
+    private final double burst;
+    private final int maxConcurrency;
+    private final int maxRetries;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private double concurrencyLimit;
+    private int inFlight;
+    private int reservedTokens;
+
+    private RateLimiter(Builder builder) {
+        this.requestsPerSecond = builder.requestsPerSecond;
+        this.burst = builder.burst;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.maxRetries = builder.maxRetries;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(builder.latencyThresholdMillis);
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.pausedUntilNanos = lastRefillNanos;
+        this.concurrencyLimit = maxConcurrency;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Waits for a rate token, then for a concurrency slot, so a request waiting for its token does not
+     * hold a slot. A request whose token was reserved ahead with {@link #reserve()} only waits out a
+     * {@code Retry-After} pause that started since.
+     * Every successful call must be followed by {@link #release(int, long, long)} or {@link #abort()}.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (reservedTokens > 0) {
+                reservedTokens--;
+                waitNanos = Math.max(0, pausedUntilNanos - now);
+            } else {
+                waitNanos = reserveToken(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+
+        lock.lock();
+        try {
+            while (inFlight >= (int) concurrencyLimit) {
+                slotAvailable.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a rate token ahead of a request without waiting for it, so the caller can wait without
+     * holding any resource of its own. The next {@link #acquire()} uses the reserved token instead of
+     * taking another one.
+     *
+     * @return Time to wait before the token is due, in nanoseconds
+     */
+    public long reserve() {
+        lock.lock();
+        try {
+            reservedTokens++;
+            return reserveToken(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a reserved token that no request used, e.g. because the response was served from a cache.
+     */
+    public void refund() {
+        lock.lock();
+        try {
+            if (reservedTokens > 0) {
+                reservedTokens--;
+                tokens = Math.min(burst, tokens + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a completed request and adapts the concurrency limit to its outcome.
+     *
+     * @param status HTTP status of the response
+     * @param latencyNanos Time the request took
+     * @param retryAfterNanos Pause requested by the server, zero if none
+     */
+    public void release(int status, long latencyNanos, long retryAfterNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (status == 429) {
+                concurrencyLimit = Math.max(1, concurrencyLimit * RATE_LIMITED_DECREASE);
+                pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + retryAfterNanos);
+                tokens = Math.min(tokens, 0);
+            } else if (latencyNanos > latencyThresholdNanos) {
+                concurrencyLimit = Math.max(1, concurrencyLimit * SLOW_RESPONSE_DECREASE);
+            } else {
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+            }
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a request that failed without a response.
+     */
+    public void abort() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Current adaptive concurrency limit
+     */
+    public int getConcurrencyLimit() {
+        lock.lock();
+        try {
+            return (int) concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of requests currently holding a slot
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    private long reserveToken(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+        tokens -= 1;
+        long tokenWaitNanos = tokens >= 0 ? 0 : (long) (-tokens / requestsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        return Math.max(tokenWaitNanos, pausedUntilNanos - now);
+    }
+
+    public static class Builder {
+        private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+        private double burst = DEFAULT_REQUESTS_PER_SECOND;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private long latencyThresholdMillis = DEFAULT_LATENCY_THRESHOLD_MILLIS;
+
+        private Builder() {
+
+        }
+
+        public Builder requestsPerSecond(double requestsPerSecond) {
+            if (requestsPerSecond <= 0) {
+                throw new IllegalArgumentException("requestsPerSecond must be positive");
+            }
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets how many requests may be sent back to back after an idle period
+         * @param burst Capacity of the token bucket
+         * @return This builder
+         */
+        public Builder burst(double burst) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be at least 1");
+            }
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Sets the upper bound of the adaptive concurrency limit
+         * @param maxConcurrency Maximum number of requests in flight
+         * @return This builder
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets how many times a rate limited request is retried before its 429 is returned
+         * @param maxRetries Maximum number of retries
+         * @return This builder
+         */
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries cannot be negative");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Sets the response time above which the concurrency limit is lowered
+         * @param latencyThresholdMillis Latency threshold in milliseconds
+         * @return This builder
+         */
+        public Builder latencyThresholdMillis(long latencyThresholdMillis) {
+            if (latencyThresholdMillis <= 0) {
+                throw new IllegalArgumentException("latencyThresholdMillis must be positive");
+            }
+            this.latencyThresholdMillis = latencyThresholdMillis;
+            return this;
+        }
+
+        public RateLimiter build() {
+            return new RateLimiter(this);
+        }
+    }
+}
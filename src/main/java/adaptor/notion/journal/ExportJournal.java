@@ -0,0 +1,384 @@
+package adaptor.notion.journal;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only record of the progress of an export, so an interrupted export can resume.
+ * Every page is recorded as pending when it is queued and as completed, with the hash of its
+ * output, once its output is written. Reopening the journal restores both sets: completed pages
+ * can be skipped and pending ones, including those that were in flight, queued again.
+ *
+ * <p>Records are buffered and synced to disk together, every sync interval or once enough
+ * records are buffered, so recording progress does not wait for the disk on every page.
+ * Records are written in order, so a completed page found after a crash always comes with
+ * the pending pages recorded before it. A record torn by a crash is detected by its checksum
+ * and dropped when the journal is reopened; at worst the pages of the last interval are exported again.</p>
+ */
+public class ExportJournal implements Closeable {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(ExportJournal.class);
+
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(200);
+
+    private static final int SYNC_BYTES = 64 * 1024;
+    private static final char PENDING = 'Q';
+    private static final char COMPLETED = 'D';
+
+    private final Path file;
+    private final Object syncLock = new Object();
+    private final Map<String, String> pending = new LinkedHashMap<>();
+    private final Map<String, Entry> completed = new LinkedHashMap<>();
+    private final StringBuilder buffer = new StringBuilder();
+    private final ScheduledExecutorService syncScheduler;
+    private FileChannel channel;
+    private boolean closed;
+
+    private ExportJournal(Path file, Duration syncInterval) {
+        this.file = file;
+        this.syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notion-to-md-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = syncInterval.toMillis();
+        syncScheduler.scheduleWithFixedDelay(this::syncQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal stored in the given file, syncing every {@link #DEFAULT_SYNC_INTERVAL}
+     *
+     * @param file Journal file, created with its directories if missing
+     * @return Opened journal holding the progress recorded so far
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public static ExportJournal open(Path file) throws IOException {
+        return open(file, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Opens the journal stored in the given file
+     *
+     * @param file Journal file, created with its directories if missing
+     * @param syncInterval Longest time a record stays buffered before it is synced to disk
+     * @return Opened journal holding the progress recorded so far
+     * @throws IOException if the journal cannot be read or opened
+     * @throws IllegalArgumentException if an argument is null or the interval is not positive
+     */
+    public static ExportJournal open(Path file, Duration syncInterval) throws IOException {
+        if (file == null || syncInterval == null || syncInterval.isNegative() || syncInterval.isZero()) {
+            throw new IllegalArgumentException("File and a positive sync interval are required");
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        ExportJournal journal = new ExportJournal(file, syncInterval);
+        try {
+            journal.load();
+        } catch (IOException | RuntimeException e) {
+            journal.syncScheduler.shutdown();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Hashes the output of a page, as recorded with completed pages
+     *
+     * @param output Output of the page
+     * @return Hex SHA-256 hash of the UTF-8 encoded output
+     */
+    public static String hash(String output) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(output.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Records a page as queued. A page already completed is left completed.
+     *
+     * @param pageId ID of the page
+     * @param location Where the page goes, e.g. its output directory; may be null
+     */
+    public void pending(String pageId, String location) {
+        boolean syncNow;
+        synchronized (this) {
+            if (closed || pageId == null || completed.containsKey(pageId)) {
+                return;
+            }
+            pending.put(pageId, location);
+            syncNow = append(PENDING, pageId, location, null);
+        }
+        if (syncNow) {
+            syncQuietly();
+        }
+    }
+
+    /**
+     * Records a page as completed
+     *
+     * @param pageId ID of the page
+     * @param location Where the output of the page was written; may be null
+     * @param outputHash Hash of the output, see {@link #hash(String)}
+     */
+    public void completed(String pageId, String location, String outputHash) {
+        boolean syncNow;
+        synchronized (this) {
+            if (closed || pageId == null) {
+                return;
+            }
+            pending.remove(pageId);
+            completed.put(pageId, new Entry(location, outputHash));
+            syncNow = append(COMPLETED, pageId, location, outputHash);
+        }
+        if (syncNow) {
+            syncQuietly();
+        }
+    }
+
+    /**
+     * @param pageId ID of the page
+     * @return true if the page is recorded as completed
+     */
+    public synchronized boolean isCompleted(String pageId) {
+        return completed.containsKey(pageId);
+    }
+
+    /**
+     * @return Location of every queued page that has not completed, keyed by page ID in the order they were queued
+     */
+    public synchronized Map<String, String> getPending() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(pending));
+    }
+
+    /**
+     * @return Every completed page, keyed by page ID in the order they completed
+     */
+    public synchronized Map<String, Entry> getCompleted() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(completed));
+    }
+
+    /**
+     * @return true if nothing has been recorded yet
+     */
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty() && completed.isEmpty();
+    }
+
+    /**
+     * Writes the buffered records and syncs them to disk
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public void sync() throws IOException {
+        synchronized (syncLock) {
+            String records;
+            synchronized (this) {
+                if (buffer.length() == 0 || channel == null) {
+                    return;
+                }
+                records = buffer.toString();
+                buffer.setLength(0);
+            }
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(records);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        syncScheduler.shutdown();
+        sync();
+        synchronized (syncLock) {
+            channel.close();
+        }
+        log.debug("Closed export journal {}", file);
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            log.warn("Failed to sync export journal {}", file, e);
+        }
+    }
+
+    /**
+     * @return true if enough records are buffered to sync them right away
+     */
+    private boolean append(char type, String pageId, String location, String outputHash) {
+        int start = buffer.length();
+        buffer.append(type).append('\t');
+        appendEscaped(pageId, buffer);
+        buffer.append('\t');
+        appendEscaped(location, buffer);
+        if (type == COMPLETED) {
+            buffer.append('\t');
+            appendEscaped(outputHash, buffer);
+        }
+        String checksum = checksum(buffer, start, buffer.length());
+        buffer.append('\t').append(checksum).append('\n');
+        return buffer.length() >= SYNC_BYTES;
+    }
+
+    private void load() throws IOException {
+        long valid = 0;
+        if (Files.exists(file)) {
+            byte[] content = Files.readAllBytes(file);
+            int lineStart = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] != '\n') {
+                    continue;
+                }
+                String line = new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                if (!replay(line)) {
+                    break;
+                }
+                lineStart = i + 1;
+                valid = lineStart;
+            }
+            if (valid < content.length) {
+                log.warn("Discarding {} bytes of incomplete records from export journal {}", content.length - valid, file);
+            }
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(valid);
+        channel.position(valid);
+        log.debug("Opened export journal {} with {} completed and {} pending pages", file, completed.size(), pending.size());
+    }
+
+    /**
+     * @return false if the record is torn or corrupt
+     */
+    private boolean replay(String line) {
+        int checksumStart = line.lastIndexOf('\t');
+        if (checksumStart < 0 || !line.substring(checksumStart + 1).equals(checksum(line, 0, checksumStart))) {
+            return false;
+        }
+        String[] fields = line.substring(0, checksumStart).split("\t", -1);
+        if (fields.length == 3 && fields[0].equals(String.valueOf(PENDING))) {
+            String pageId = unescape(fields[1]);
+            if (!completed.containsKey(pageId)) {
+                pending.put(pageId, unescape(fields[2]));
+            }
+            return true;
+        }
+        if (fields.length == 4 && fields[0].equals(String.valueOf(COMPLETED))) {
+            String pageId = unescape(fields[1]);
+            pending.remove(pageId);
+            completed.put(pageId, new Entry(unescape(fields[2]), unescape(fields[3])));
+            return true;
+        }
+        return false;
+    }
+
+    private static String checksum(CharSequence record, int start, int end) {
+        CRC32 crc = new CRC32();
+        crc.update(record.subSequence(start, end).toString().getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Null is written as a lone backslash; tabs, line breaks and backslashes are escaped
+     */
+    private static void appendEscaped(String value, StringBuilder out) {
+        if (value == null) {
+            out.append('\\');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.equals("\\")) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                out.append(c);
+                continue;
+            }
+            char escaped = value.charAt(++i);
+            out.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+        }
+        return out.toString();
+    }
+
+    /**
+     * A completed page
+     */
+    public static final class Entry {
+        private final String location;
+        private final String outputHash;
+
+        private Entry(String location, String outputHash) {
+            this.location = location;
+            this.outputHash = outputHash;
+        }
+
+        /**
+         * @return Where the output of the page was written, or null if not recorded
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        /**
+         * @return Hash of the output of the page
+         */
+        public String getOutputHash() {
+            return outputHash;
+        }
+    }
+}
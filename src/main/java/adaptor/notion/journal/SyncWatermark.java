@@ -0,0 +1,137 @@
+package adaptor.notion.journal;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Point up to which pages have been synced: the last edit time of the most recently edited
+ * synced page, and the IDs of the synced pages edited at exactly that time.
+ * Notion reports edit times to the minute, so pages edited in the same minute as the watermark
+ * may only show up after it was saved; the IDs tell those apart from the pages already synced.
+ */
+public final class SyncWatermark {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(SyncWatermark.class);
+
+    /**
+     * Watermark of a sync that has never run, before every edit
+     */
+    public static final SyncWatermark NONE = new SyncWatermark(null, Set.of());
+
+    private final Instant lastEditedTime;
+    private final Set<String> pageIds;
+
+    /**
+     * Creates a new SyncWatermark
+     *
+     * @param lastEditedTime Last edit time of the most recently edited synced page, or null for none
+     * @param pageIds IDs of the synced pages edited at that time
+     * @throws IllegalArgumentException if page IDs are null
+     */
+    public SyncWatermark(Instant lastEditedTime, Set<String> pageIds) {
+        if (pageIds == null) {
+            throw new IllegalArgumentException("Page IDs cannot be null");
+        }
+        this.lastEditedTime = lastEditedTime;
+        this.pageIds = Collections.unmodifiableSet(new LinkedHashSet<>(pageIds));
+    }
+
+    /**
+     * Loads a watermark saved by {@link #save(Path)}
+     *
+     * @param file Watermark file
+     * @return Saved watermark, or {@link #NONE} if the file is missing or unreadable
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static SyncWatermark load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return NONE;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || lines.get(0).isEmpty()) {
+            return NONE;
+        }
+        try {
+            Instant lastEditedTime = Instant.parse(lines.get(0));
+            return new SyncWatermark(lastEditedTime, new LinkedHashSet<>(lines.subList(1, lines.size())));
+        } catch (DateTimeParseException e) {
+            log.warn("Ignoring unreadable sync watermark {}", file, e);
+            return NONE;
+        }
+    }
+
+    /**
+     * Saves the watermark, replacing the file atomically so a crash never leaves a partial watermark
+     *
+     * @param file Watermark file, created with its directories if missing
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        List<String> lines = new ArrayList<>(pageIds.size() + 1);
+        lines.add(lastEditedTime == null ? "" : lastEditedTime.toString());
+        lines.addAll(pageIds);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param pageId ID of a page
+     * @param pageLastEditedTime Last edit time of the page
+     * @return true if the page was edited after the watermark and needs to be synced
+     */
+    public boolean isChanged(String pageId, Instant pageLastEditedTime) {
+        if (lastEditedTime == null) {
+            return true;
+        }
+        int order = pageLastEditedTime.compareTo(lastEditedTime);
+        return order > 0 || order == 0 && !pageIds.contains(pageId);
+    }
+
+    /**
+     * @param pageLastEditedTime Last edit time of a page
+     * @return true if the page, and every page edited before it, was synced before the watermark
+     */
+    public boolean isBefore(Instant pageLastEditedTime) {
+        return lastEditedTime != null && pageLastEditedTime.isBefore(lastEditedTime);
+    }
+
+    /**
+     * @return Last edit time of the most recently edited synced page, or null if nothing was synced
+     */
+    public Instant getLastEditedTime() {
+        return lastEditedTime;
+    }
+
+    /**
+     * @return IDs of the synced pages edited at the watermark time
+     */
+    public Set<String> getPageIds() {
+        return pageIds;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncWatermark(" + lastEditedTime + ", " + pageIds.size() + " pages)";
+    }
+}
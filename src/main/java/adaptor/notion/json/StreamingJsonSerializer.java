@@ -0,0 +1,494 @@
+package adaptor.notion.json;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import notion.api.v1.json.GsonSerializer;
+import notion.api.v1.json.NotionJsonSerializer;
+import notion.api.v1.json.gson.CoverParser;
+import notion.api.v1.json.gson.IconParser;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.BlockType;
+import notion.api.v1.model.blocks.Blocks;
+import notion.api.v1.model.comments.Comment;
+import notion.api.v1.model.comments.Comments;
+import notion.api.v1.model.common.Cover;
+import notion.api.v1.model.common.Icon;
+import notion.api.v1.model.databases.Database;
+import notion.api.v1.model.databases.Databases;
+import notion.api.v1.model.databases.QueryResults;
+import notion.api.v1.model.error.Error;
+import notion.api.v1.model.error.OAuthError;
+import notion.api.v1.model.oauth.OAuthTokenResult;
+import notion.api.v1.model.pages.Page;
+import notion.api.v1.model.pages.PagePropertyItem;
+import notion.api.v1.model.search.SearchResults;
+import notion.api.v1.model.users.User;
+import notion.api.v1.model.users.Users;
+import notion.api.v1.request.blocks.AppendBlockChildrenRequest;
+import notion.api.v1.request.comments.CreateCommentRequest;
+import notion.api.v1.request.databases.CreateDatabaseRequest;
+import notion.api.v1.request.databases.QueryDatabaseRequest;
+import notion.api.v1.request.databases.UpdateDatabaseRequest;
+import notion.api.v1.request.oauth.ExchangeAuthCodeRequest;
+import notion.api.v1.request.pages.CreatePageRequest;
+import notion.api.v1.request.pages.UpdatePageRequest;
+import notion.api.v1.request.search.SearchRequest;
+import org.slf4j.Logger;
+import sun.reflect.ReflectionFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link NotionJsonSerializer} that binds API responses straight from a streaming parser and drops
+ * the top-level metadata of every block and page, such as {@code created_by}, {@code parent} or
+ * {@code request_id}, which no behavior renders. Each block and page is read field by field from the
+ * {@link JsonReader}: skipped fields are stepped over without allocating anything for them, and every
+ * other field is read by the Gson adapter of its declared type and set on the object. Only the top
+ * level of a block or page is pruned, so values nested deeper, e.g. {@code created_by} properties,
+ * are kept.
+ *
+ * <p>The resulting objects are the same types the default serializer produces, only with the skipped
+ * fields left null. The concrete class of each block type is learned once from the SDK serializer.
+ * A response that cannot be bound this way is parsed again by the SDK serializer. Only the responses
+ * read during a conversion (pages, blocks, block lists and database queries) are bound this way;
+ * every other call is passed to a {@link GsonSerializer} unchanged.</p>
+ */
+public final class StreamingJsonSerializer implements NotionJsonSerializer {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(StreamingJsonSerializer.class);
+
+    /**
+     * Top-level fields of blocks and pages skipped by default, none of which is read when rendering markdown
+     */
+    public static final Set<String> DEFAULT_SKIPPED_FIELDS = Set.of(
+            "created_by", "last_edited_by", "parent", "request_id", "developer_survey", "public_url", "icon", "cover");
+
+    private static final Map<String, BlockType> BLOCK_TYPES = blockTypes();
+
+    private final GsonSerializer delegate;
+    private final Gson gson;
+    private final Set<String> skippedFields;
+    private final Map<String, Optional<ObjectBinding<Block>>> blockBindings = new ConcurrentHashMap<>();
+    private volatile ObjectBinding<Block> commonBlockFields;
+
+    private StreamingJsonSerializer(Set<String> skippedFields) {
+        this.delegate = new GsonSerializer(false);
+        this.skippedFields = skippedFields;
+        this.gson = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .registerTypeAdapter(Icon.class, new IconParser(false))
+                .registerTypeAdapter(Cover.class, new CoverParser(false))
+                .registerTypeAdapterFactory(new PrunedTypeAdapterFactory())
+                .create();
+    }
+
+    /**
+     * Creates a serializer skipping {@link #DEFAULT_SKIPPED_FIELDS}
+     * @return Serializer to pass to {@code NotionClientWrapper.Builder.jsonSerializer}
+     */
+    public static StreamingJsonSerializer create() {
+        return create(DEFAULT_SKIPPED_FIELDS);
+    }
+
+    /**
+     * Creates a serializer skipping the given fields
+     * @param skippedFields Names of the top-level block and page fields to drop
+     * @return Serializer to pass to {@code NotionClientWrapper.Builder.jsonSerializer}
+     * @throws IllegalArgumentException if skippedFields is null
+     */
+    public static StreamingJsonSerializer create(Set<String> skippedFields) {
+        if (skippedFields == null) {
+            log.error("Skipped fields cannot be null");
+            throw new IllegalArgumentException("Skipped fields cannot be null");
+        }
+        return new StreamingJsonSerializer(Set.copyOf(skippedFields));
+    }
+
+    @Override
+    public Block toBlock(String body) {
+        return bind(body, Block.class, delegate::toBlock);
+    }
+
+    @Override
+    public Blocks toBlocks(String body) {
+        return bind(body, Blocks.class, delegate::toBlocks);
+    }
+
+    @Override
+    public Page toPage(String body) {
+        return bind(body, Page.class, delegate::toPage);
+    }
+
+    @Override
+    public QueryResults toQueryResults(String body) {
+        return bind(body, QueryResults.class, delegate::toQueryResults);
+    }
+
+    @Override
+    public Comment toComment(String body) {
+        return delegate.toComment(body);
+    }
+
+    @Override
+    public Comments toComments(String body) {
+        return delegate.toComments(body);
+    }
+
+    @Override
+    public Database toDatabase(String body) {
+        return delegate.toDatabase(body);
+    }
+
+    @Override
+    public Databases toDatabases(String body) {
+        return delegate.toDatabases(body);
+    }
+
+    @Override
+    public Error toError(String body) {
+        return delegate.toError(body);
+    }
+
+    @Override
+    public OAuthError toOAuthError(String body) {
+        return delegate.toOAuthError(body);
+    }
+
+    @Override
+    public PagePropertyItem toPagePropertyItem(String body) {
+        return delegate.toPagePropertyItem(body);
+    }
+
+    @Override
+    public SearchResults toSearchResults(String body) {
+        return delegate.toSearchResults(body);
+    }
+
+    @Override
+    public OAuthTokenResult toOAuthTokenResult(String body) {
+        return delegate.toOAuthTokenResult(body);
+    }
+
+    @Override
+    public User toUser(String body) {
+        return delegate.toUser(body);
+    }
+
+    @Override
+    public Users toUsers(String body) {
+        return delegate.toUsers(body);
+    }
+
+    @Override
+    public String toJsonString(CreateDatabaseRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(UpdateDatabaseRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(Map<String, ?> request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(AppendBlockChildrenRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(CreatePageRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(CreateCommentRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(SearchRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(QueryDatabaseRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(UpdatePageRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    @Override
+    public String toJsonString(ExchangeAuthCodeRequest request) {
+        return delegate.toJsonString(request);
+    }
+
+    private <T> T bind(String json, Class<T> type, Function<String, T> fallback) {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return gson.getAdapter(type).read(reader);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cannot bind {} response from the stream, using the SDK serializer", type.getSimpleName(), e);
+            return fallback.apply(json);
+        }
+    }
+
+    /**
+     * The SDK resolves the class of a block from its type; it is asked once per type with an empty block
+     */
+    private Optional<ObjectBinding<Block>> blockBinding(String type) {
+        return blockBindings.computeIfAbsent(type, key -> {
+            JsonObject probe = new JsonObject();
+            probe.addProperty("object", "block");
+            probe.addProperty("type", key);
+            probe.add(key, new JsonObject());
+            try {
+                Block block = delegate.toBlock(probe.toString());
+                return block == null ? Optional.empty() : Optional.of(new ObjectBinding<>(block.getClass()));
+            } catch (RuntimeException e) {
+                log.debug("Block type {} is bound by the SDK serializer", key, e);
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Fields every block declares, read with the adapters of the paragraph block until the type of a block is known
+     */
+    private ObjectBinding<Block> commonBlockFields() {
+        ObjectBinding<Block> binding = commonBlockFields;
+        if (binding == null) {
+            binding = blockBinding(BlockType.Paragraph.getValue())
+                    .orElseThrow(() -> new JsonParseException("Paragraph blocks are bound by the SDK serializer"));
+            commonBlockFields = binding;
+        }
+        return binding;
+    }
+
+    private static Map<String, BlockType> blockTypes() {
+        Map<String, BlockType> blockTypes = new HashMap<>();
+        for (BlockType blockType : BlockType.values()) {
+            blockTypes.put(blockType.getValue(), blockType);
+        }
+        return Map.copyOf(blockTypes);
+    }
+
+    /**
+     * Binds every {@link Block} and {@link Page} of a response, at any depth of the envelope,
+     * through the pruning adapters. Other types get Gson's reflective adapters.
+     */
+    private final class PrunedTypeAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() == Block.class) {
+                return (TypeAdapter<T>) new BlockAdapter();
+            }
+            if (type.getRawType() == Page.class) {
+                return (TypeAdapter<T>) new PageAdapter(new ObjectBinding<>(Page.class));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads a block into the class of its type. Notion writes {@code type} ahead of the type's own field,
+     * after the fields every block shares; those are kept aside until the class is known.
+     */
+    private final class BlockAdapter extends ReadOnlyAdapter<Block> {
+        @Override
+        public Block read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ObjectBinding<Block> binding = null;
+            Block block = null;
+            List<String> pendingNames = new ArrayList<>();
+            List<Object> pendingValues = new ArrayList<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skippedFields.contains(name)) {
+                    in.skipValue();
+                    continue;
+                }
+                Object value;
+                if ("type".equals(name) && in.peek() == JsonToken.STRING) {
+                    String type = in.nextString();
+                    value = BLOCK_TYPES.get(type);
+                    if (binding == null) {
+                        binding = value == null ? null : blockBinding(type).orElse(null);
+                    }
+                    if (binding == null) {
+                        throw new JsonParseException("Block type " + type + " is bound by the SDK serializer");
+                    }
+                } else {
+                    if (binding == null && BLOCK_TYPES.containsKey(name)) {
+                        binding = blockBinding(name).orElse(null);
+                    }
+                    FieldBinding field = (binding == null ? commonBlockFields() : binding).field(name);
+                    if (field == null) {
+                        in.skipValue();
+                        continue;
+                    }
+                    value = field.adapter.read(in);
+                }
+                if (block == null && binding != null) {
+                    block = binding.newInstance();
+                    for (int i = 0; i < pendingNames.size(); i++) {
+                        binding.set(block, pendingNames.get(i), pendingValues.get(i));
+                    }
+                }
+                if (block != null) {
+                    binding.set(block, name, value);
+                } else {
+                    pendingNames.add(name);
+                    pendingValues.add(value);
+                }
+            }
+            in.endObject();
+            if (block == null) {
+                throw new JsonParseException("Block without a type is bound by the SDK serializer");
+            }
+            return block;
+        }
+    }
+
+    private final class PageAdapter extends ReadOnlyAdapter<Page> {
+        private final ObjectBinding<Page> binding;
+
+        private PageAdapter(ObjectBinding<Page> binding) {
+            this.binding = binding;
+        }
+
+        @Override
+        public Page read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Page page = binding.newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                FieldBinding field = skippedFields.contains(name) ? null : binding.field(name);
+                if (field == null) {
+                    in.skipValue();
+                } else {
+                    binding.set(page, name, field.adapter.read(in));
+                }
+            }
+            in.endObject();
+            return page;
+        }
+    }
+
+    /**
+     * Fields of a model class by their JSON name, named the way the SDK serializer names them.
+     * The SDK models are Kotlin classes, most of them without a no-argument constructor; like Gson,
+     * instances are created without running a constructor and every field is set from the response.
+     */
+    private final class ObjectBinding<T> {
+        private final Constructor<? extends T> constructor;
+        private final Map<String, FieldBinding> fields = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        private ObjectBinding(Class<? extends T> type) {
+            try {
+                this.constructor = (Constructor<? extends T>) ReflectionFactory.getReflectionFactory()
+                        .newConstructorForSerialization(type, Object.class.getDeclaredConstructor());
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Object has no constructor", e);
+            }
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                            || field.isSynthetic()) {
+                        continue;
+                    }
+                    SerializedName serializedName = field.getAnnotation(SerializedName.class);
+                    String name = serializedName == null
+                            ? FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES.translateName(field)
+                            : serializedName.value();
+                    field.setAccessible(true);
+                    fields.putIfAbsent(name, new FieldBinding(field, gson.getAdapter(TypeToken.get(field.getGenericType()))));
+                }
+            }
+        }
+
+        private FieldBinding field(String name) {
+            return fields.get(name);
+        }
+
+        private T newInstance() {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new JsonParseException("Cannot create " + constructor.getDeclaringClass().getName(), e);
+            }
+        }
+
+        /**
+         * Sets a field read before the class was known; fields the class does not declare are dropped
+         */
+        private void set(Object target, String name, Object value) {
+            FieldBinding field = fields.get(name);
+            if (field == null) {
+                return;
+            }
+            try {
+                field.field.set(target, value);
+            } catch (IllegalAccessException e) {
+                throw new JsonParseException("Cannot set " + name, e);
+            }
+        }
+    }
+
+    private static final class FieldBinding {
+        private final Field field;
+        private final TypeAdapter<?> adapter;
+
+        private FieldBinding(Field field, TypeAdapter<?> adapter) {
+            this.field = field;
+            this.adapter = adapter;
+        }
+    }
+
+    /**
+     * Requests are serialized by the SDK serializer, so the adapters only ever read
+     */
+    private abstract static class ReadOnlyAdapter<T> extends TypeAdapter<T> {
+        @Override
+        public void write(JsonWriter out, T value) {
+            throw new UnsupportedOperationException("Serialization is handled by the SDK serializer");
+        }
+    }
+}
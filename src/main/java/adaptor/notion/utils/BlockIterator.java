@@ -0,0 +1,106 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import notion.api.v1.NotionClient;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.Blocks;
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Lazily iterates over the child blocks of a Notion block.
+ * Pages of children are requested one at a time by following {@code next_cursor},
+ * and the next page is only fetched once the current one has been consumed.
+ */
+public class BlockIterator implements Iterator<Block> {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(BlockIterator.class);
+
+    /**
+     * Maximum page size accepted by the block children endpoint
+     */
+    public static final int PAGE_SIZE = 100;
+
+    private final String blockId;
+    private final Function<String, Blocks> pageFetcher;
+    private Iterator<Block> currentPage = Collections.emptyIterator();
+    private String nextCursor;
+    private boolean hasMore = true;
+    private int pageCount;
+
+    /**
+     * Creates an iterator over the children of the given block.
+     * No request is issued until {@link #hasNext()} or {@link #next()} is called.
+     *
+     * @param blockId ID of the parent block
+     * @param notionClient NotionClient instance to use for API calls
+     * @throws IllegalArgumentException if blockId is null/empty or notionClient is null
+     */
+    public BlockIterator(String blockId, NotionClient notionClient) {
+        if (blockId == null || blockId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Block ID cannot be null or empty");
+        }
+        if (notionClient == null) {
+            throw new IllegalArgumentException("NotionClient cannot be null");
+        }
+        this.blockId = blockId;
+        this.pageFetcher = cursor -> notionClient.retrieveBlockChildren(blockId, cursor, PAGE_SIZE);
+    }
+
+    /**
+     * Creates an iterator over the children of the given block, fetching every page of children
+     * through the given function, e.g. to run the requests within a request limit.
+     * No request is issued until {@link #hasNext()} or {@link #next()} is called.
+     *
+     * @param blockId ID of the parent block
+     * @param pageFetcher Fetches the page of children starting at a cursor, or the first page for a null cursor
+     * @throws IllegalArgumentException if blockId is null/empty or pageFetcher is null
+     */
+    public BlockIterator(String blockId, Function<String, Blocks> pageFetcher) {
+        if (blockId == null || blockId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Block ID cannot be null or empty");
+        }
+        if (pageFetcher == null) {
+            throw new IllegalArgumentException("Page fetcher cannot be null");
+        }
+        this.blockId = blockId;
+        this.pageFetcher = pageFetcher;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext() && hasMore) {
+            fetchNextPage();
+        }
+        return currentPage.hasNext();
+    }
+
+    @Override
+    public Block next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more child blocks for blockId: " + blockId);
+        }
+        return currentPage.next();
+    }
+
+    private void fetchNextPage() {
+        Blocks blocks = pageFetcher.apply(nextCursor);
+        List<Block> results = blocks.getResults();
+        pageCount++;
+
+        hasMore = Boolean.TRUE.equals(blocks.getHasMore());
+        nextCursor = blocks.getNextCursor();
+        if (hasMore && nextCursor == null) {
+            log.warn("Block children page {} for blockId: {} reported more results without a cursor", pageCount, blockId);
+            hasMore = false;
+        }
+        log.debug("Fetched block children page {} for blockId: {}, size: {}, hasMore: {}",
+                pageCount, blockId, results == null ? 0 : results.size(), hasMore);
+
+        currentPage = results == null ? Collections.emptyIterator() : results.iterator();
+    }
+}
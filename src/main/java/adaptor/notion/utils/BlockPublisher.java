@@ -0,0 +1,254 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.Blocks;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the converted blocks of a page in document order, honoring subscriber demand.
+ * Each subscription follows the page's children cursor by cursor, so the next page of children
+ * is only requested from the API once the subscriber has asked for more blocks.
+ * Up to {@code prefetch} requested blocks are converted concurrently, and each is emitted as
+ * soon as it and every block before it are converted. The title, every page of children and every
+ * conversion are futures whose completion drives emission, so no thread waits for a request.
+ *
+ * <p>The publisher is cold: every subscriber gets its own pass over the page.</p>
+ */
+public class BlockPublisher implements Flow.Publisher<MdBlocks> {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(BlockPublisher.class);
+
+    private final Supplier<CompletableFuture<MdBlocks>> title;
+    private final Function<String, CompletableFuture<Blocks>> pages;
+    private final Function<Block, CompletableFuture<MdBlocks>> converter;
+    private final Executor executor;
+    private final int prefetch;
+
+    /**
+     * Creates a new BlockPublisher
+     *
+     * @param title Requests the page title block, called first on every subscription; may complete with null
+     * @param pages Requests the page of top-level blocks starting at a cursor, or the first page for a null cursor
+     * @param converter Converts a block with its descendants, completing with null for blocks rendering to nothing
+     * @param executor Executor delivering the signals
+     * @param prefetch Maximum number of blocks converted ahead of the subscriber
+     * @throws IllegalArgumentException if an argument is null or prefetch is not positive
+     */
+    public BlockPublisher(Supplier<CompletableFuture<MdBlocks>> title, Function<String, CompletableFuture<Blocks>> pages,
+                          Function<Block, CompletableFuture<MdBlocks>> converter, Executor executor, int prefetch) {
+        if (title == null || pages == null || converter == null || executor == null) {
+            throw new IllegalArgumentException("Title, pages, converter and executor cannot be null");
+        }
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be positive");
+        }
+        this.title = title;
+        this.pages = pages;
+        this.converter = converter;
+        this.executor = executor;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super MdBlocks> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        BlockSubscription subscription = new BlockSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class BlockSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super MdBlocks> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private final Queue<CompletableFuture<MdBlocks>> inFlight = new ArrayDeque<>();
+        private boolean started;
+        private Iterator<Block> currentPage = Collections.emptyIterator();
+        private CompletableFuture<Blocks> nextPage;
+        private String nextCursor;
+        private boolean hasMore = true;
+        private int pageCount;
+        private CompletableFuture<?> awaited;
+        private volatile Throwable requestError;
+        private volatile boolean done;
+
+        private BlockSubscription(Flow.Subscriber<? super MdBlocks> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Requested blocks must be positive, got " + n);
+                scheduleDrain();
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            scheduleDrain();
+        }
+
+        /**
+         * Stops the publication; the draining thread then cancels the requests and conversions in flight
+         */
+        @Override
+        public void cancel() {
+            done = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Runs on one thread at a time; further requests and completing futures meanwhile make it loop again
+         */
+        private void drain() {
+            int missed = 1;
+            try {
+                do {
+                    emitAvailable();
+                    missed = pendingDrains.addAndGet(-missed);
+                } while (missed != 0);
+            } catch (RuntimeException e) {
+                fail(ConcurrencyUtil.unwrap(e));
+            }
+        }
+
+        private void emitAvailable() {
+            if (requestError != null) {
+                fail(requestError);
+                return;
+            }
+            if (done) {
+                release();
+                return;
+            }
+            if (!started) {
+                started = true;
+                inFlight.add(title.get());
+            }
+            while (!done && demand.get() > 0) {
+                if (!convertRequested()) {
+                    return;
+                }
+                CompletableFuture<MdBlocks> next = inFlight.peek();
+                if (next == null) {
+                    done = true;
+                    log.debug("Published every block of the page");
+                    subscriber.onComplete();
+                    return;
+                }
+                if (!next.isDone()) {
+                    await(next);
+                    return;
+                }
+                inFlight.poll();
+                MdBlocks mdBlock = next.join();
+                if (mdBlock != null) {
+                    emit(mdBlock);
+                }
+            }
+        }
+
+        /**
+         * Starts converting blocks until {@code prefetch} or the requested number are in flight,
+         * requesting the next page of children when the current one runs out. A failed page is only
+         * read once the blocks before it are emitted.
+         *
+         * @return false if nothing is in flight while the next page of children is being requested
+         */
+        private boolean convertRequested() {
+            while (inFlight.size() < Math.min(demand.get(), prefetch)) {
+                if (currentPage.hasNext()) {
+                    inFlight.add(converter.apply(currentPage.next()));
+                } else if (nextPage != null && nextPage.isDone()
+                        && (inFlight.isEmpty() || !nextPage.isCompletedExceptionally())) {
+                    readPage(nextPage.join());
+                    nextPage = null;
+                } else if (nextPage != null) {
+                    if (inFlight.isEmpty()) {
+                        await(nextPage);
+                        return false;
+                    }
+                    return true;
+                } else if (hasMore) {
+                    nextPage = pages.apply(nextCursor);
+                } else {
+                    return true;
+                }
+            }
+            return true;
+        }
+
+        private void readPage(Blocks blocks) {
+            List<Block> results = blocks.getResults();
+            pageCount++;
+            hasMore = Boolean.TRUE.equals(blocks.getHasMore());
+            nextCursor = blocks.getNextCursor();
+            if (hasMore && nextCursor == null) {
+                log.warn("Block children page {} reported more results without a cursor", pageCount);
+                hasMore = false;
+            }
+            log.debug("Fetched block children page {}, size: {}, hasMore: {}",
+                    pageCount, results == null ? 0 : results.size(), hasMore);
+            currentPage = results == null ? Collections.emptyIterator() : results.iterator();
+        }
+
+        private void await(CompletableFuture<?> future) {
+            if (awaited != future) {
+                awaited = future;
+                future.whenComplete((result, error) -> scheduleDrain());
+            }
+        }
+
+        private void emit(MdBlocks mdBlock) {
+            demand.decrementAndGet();
+            subscriber.onNext(mdBlock);
+        }
+
+        private void fail(Throwable error) {
+            if (!done) {
+                done = true;
+                log.error("Block publication failed", error);
+                subscriber.onError(error);
+            }
+            release();
+        }
+
+        /**
+         * Cancels the conversions and the page request still in flight once the publication has stopped
+         */
+        private void release() {
+            for (CompletableFuture<MdBlocks> mdBlock : inFlight) {
+                mdBlock.cancel(false);
+            }
+            inFlight.clear();
+            if (nextPage != null) {
+                nextPage.cancel(false);
+                nextPage = null;
+            }
+            currentPage = Collections.emptyIterator();
+        }
+    }
+}
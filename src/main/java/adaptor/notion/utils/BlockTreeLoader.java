@@ -0,0 +1,334 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.behavior.BehaviorRegistry;
+import adaptor.notion.cache.IncrementalBlockCache;
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.http.CachingHttpClient;
+import adaptor.notion.log.LoggerFactoryWrapper;
+import notion.api.v1.NotionClient;
+import notion.api.v1.exception.NotionAPIError;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.BlockType;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads nested Notion blocks and assembles them into a tree of markdown blocks.
+ * The tree is fetched one depth at a time, with the children of every container block at a
+ * depth requested as one concurrent batch through a {@link RequestExecutor}, which caps the
+ * number of requests in flight at any time.
+ * The resulting tree keeps document order regardless of completion order.
+ *
+ * <p>When the client caches block children on disk, every container's children are keyed by the
+ * container's {@code last_edited_time}, and children already on disk are read right away instead of
+ * being queued behind the requests that do reach Notion.</p>
+ */
+public class BlockTreeLoader {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(BlockTreeLoader.class);
+
+    private final NotionClient notionClient;
+    private final NotionClientWrapper clientWrapper;
+    private final RequestExecutor requestExecutor;
+    private final IncrementalBlockCache blockCache;
+    private final BehaviorRegistry behaviors;
+
+    /**
+     * Creates a new BlockTreeLoader
+     *
+     * @param notionClient NotionClient instance to use for API calls
+     * @param requestExecutor Executor running the block children requests
+     * @throws IllegalArgumentException if notionClient or requestExecutor is null
+     */
+    public BlockTreeLoader(NotionClient notionClient, RequestExecutor requestExecutor) {
+        this(notionClient, requestExecutor, null);
+    }
+
+    /**
+     * Creates a new BlockTreeLoader that reuses unchanged blocks from a cache
+     *
+     * @param notionClient NotionClient instance to use for API calls
+     * @param requestExecutor Executor running the block children requests
+     * @param blockCache Cache of converted blocks, or null to always convert
+     * @throws IllegalArgumentException if notionClient or requestExecutor is null
+     */
+    public BlockTreeLoader(NotionClient notionClient, RequestExecutor requestExecutor,
+                           IncrementalBlockCache blockCache) {
+        this(notionClient, requestExecutor, blockCache, BehaviorRegistry.create());
+    }
+
+    /**
+     * Creates a new BlockTreeLoader rendering blocks with the given behaviors
+     *
+     * @param notionClient NotionClient instance to use for API calls
+     * @param requestExecutor Executor running the block children requests
+     * @param blockCache Cache of converted blocks, or null to always convert.
+     *                   Cached blocks are only valid for the behaviors they were rendered with.
+     * @param behaviors Behaviors rendering each block type
+     * @throws IllegalArgumentException if notionClient, requestExecutor or behaviors is null
+     */
+    public BlockTreeLoader(NotionClient notionClient, RequestExecutor requestExecutor,
+                           IncrementalBlockCache blockCache, BehaviorRegistry behaviors) {
+        this(notionClient, null, requestExecutor, blockCache, behaviors);
+    }
+
+    /**
+     * Creates a new BlockTreeLoader fetching through a client wrapper, whose disk cache, if any,
+     * keys the children of every block by the block's version
+     *
+     * @param clientWrapper Wrapper of the client to use for API calls
+     * @param requestExecutor Executor running the block children requests
+     * @param blockCache Cache of converted blocks, or null to always convert.
+     *                   Cached blocks are only valid for the behaviors they were rendered with.
+     * @param behaviors Behaviors rendering each block type
+     * @throws IllegalArgumentException if clientWrapper, requestExecutor or behaviors is null
+     */
+    public BlockTreeLoader(NotionClientWrapper clientWrapper, RequestExecutor requestExecutor,
+                           IncrementalBlockCache blockCache, BehaviorRegistry behaviors) {
+        this(clientWrapper == null ? null : clientWrapper.getClient(), clientWrapper, requestExecutor, blockCache,
+                behaviors);
+    }
+
+    private BlockTreeLoader(NotionClient notionClient, NotionClientWrapper clientWrapper,
+                            RequestExecutor requestExecutor, IncrementalBlockCache blockCache,
+                            BehaviorRegistry behaviors) {
+        if (notionClient == null || requestExecutor == null || behaviors == null) {
+            throw new IllegalArgumentException("NotionClient, request executor and behaviors cannot be null");
+        }
+        this.notionClient = notionClient;
+        this.clientWrapper = clientWrapper != null && clientWrapper.cachesBlockChildren() ? clientWrapper : null;
+        this.requestExecutor = requestExecutor;
+        this.blockCache = blockCache;
+        this.behaviors = behaviors;
+    }
+
+    /**
+     * Converts the given blocks and all of their descendants to markdown blocks.
+     *
+     * @param blocks Top-level Notion blocks in document order
+     * @return Markdown blocks with their children populated
+     */
+    public List<MdBlocks> loadTree(List<Block> blocks) {
+        return ConcurrencyUtil.await(loadTreeAsync(blocks));
+    }
+
+    /**
+     * Converts a single block and all of its descendants to a markdown block.
+     *
+     * @param block Notion block to convert
+     * @return Markdown block with its children populated, or null if the block renders to nothing
+     */
+    public MdBlocks loadBlock(Block block) {
+        return ConcurrencyUtil.await(loadBlockAsync(block));
+    }
+
+    /**
+     * Asynchronously fetches the children of a block or page and converts them,
+     * with all of their descendants, to markdown blocks.
+     *
+     * @param blockId ID of the parent block or page
+     * @return Future completing with the markdown blocks in document order
+     */
+    public CompletableFuture<List<MdBlocks>> loadChildrenAsync(String blockId) {
+        return loadChildrenAsync(blockId, false);
+    }
+
+    /**
+     * Asynchronously fetches the children of a block or page and converts them, with all of their descendants.
+     * When fresh, cached blocks and block children cached on disk are not reused; they are replaced
+     * with the fetched ones.
+     *
+     * @param blockId ID of the parent block or page
+     * @param fresh Whether to bypass the caches, e.g. for a page known to have changed
+     * @return Future completing with the markdown blocks in document order
+     */
+    public CompletableFuture<List<MdBlocks>> loadChildrenAsync(String blockId, boolean fresh) {
+        return loadChildrenAsync(blockId, null, fresh);
+    }
+
+    /**
+     * Asynchronously fetches the children of a block or page and converts them, with all of their descendants.
+     * Children cached on disk are keyed by the parent's last_edited_time, so an edit to the parent
+     * invalidates them. When fresh, cached blocks and block children are not reused; they are replaced
+     * with the fetched ones.
+     *
+     * @param blockId ID of the parent block or page
+     * @param lastEditedTime last_edited_time of the parent, or null if unknown
+     * @param fresh Whether to bypass the caches, e.g. for a page known to have changed
+     * @return Future completing with the markdown blocks in document order
+     */
+    public CompletableFuture<List<MdBlocks>> loadChildrenAsync(String blockId, String lastEditedTime, boolean fresh) {
+        return fetchChildren(blockId, lastEditedTime, fresh).thenCompose(blocks -> loadLevel(blocks, fresh))
+                .thenApply(BlockTreeLoader::withoutEmptyBlocks);
+    }
+
+    /**
+     * Asynchronously converts the given blocks and all of their descendants to markdown blocks.
+     * The tree is loaded level by level: the children of every container block at one depth are
+     * requested together as one concurrent batch, then the next depth is loaded the same way.
+     *
+     * @param blocks Top-level Notion blocks in document order
+     * @return Future completing with the markdown blocks in document order
+     */
+    public CompletableFuture<List<MdBlocks>> loadTreeAsync(List<Block> blocks) {
+        return loadLevel(blocks, false).thenApply(BlockTreeLoader::withoutEmptyBlocks);
+    }
+
+    private static List<MdBlocks> withoutEmptyBlocks(List<MdBlocks> level) {
+        List<MdBlocks> mdBlocks = new ArrayList<>(level.size());
+        for (MdBlocks mdBlock : level) {
+            if (mdBlock != null) {
+                mdBlocks.add(mdBlock);
+            }
+        }
+        return mdBlocks;
+    }
+
+    /**
+     * Asynchronously converts a single block and all of its descendants to a markdown block.
+     * With a block cache, a block whose last_edited_time has not moved is reused instead of being
+     * rendered again. Notion does not move a parent's timestamp when a nested block is edited, so the
+     * children of a container are always listed again; the cached container is only reused when
+     * every child was reused as well. The cache saves rendering, not requests: the number of
+     * requests is the same as without it.
+     *
+     * @param block Notion block to convert
+     * @return Future completing with the markdown block, or null if the block renders to nothing
+     */
+    public CompletableFuture<MdBlocks> loadBlockAsync(Block block) {
+        return loadLevel(List.of(block), false).thenApply(level -> level.get(0));
+    }
+
+    /**
+     * Converts one level of blocks, positionally: the result holds the markdown block of every
+     * input block at the same index, or null where a block renders to nothing.
+     */
+    private CompletableFuture<List<MdBlocks>> loadLevel(List<Block> blocks, boolean fresh) {
+        MdBlocks[] converted = new MdBlocks[blocks.size()];
+        MdBlocks[] cachedParents = new MdBlocks[blocks.size()];
+        String[] versions = new String[blocks.size()];
+        List<Integer> parents = new ArrayList<>();
+        List<CompletableFuture<List<Block>>> batch = new ArrayList<>();
+        StringBuilder buffer = new StringBuilder();
+
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            versions[i] = blockCache == null ? null : cacheVersion(block);
+            MdBlocks cached = versions[i] == null || fresh ? null : blockCache.get(block.getId(), versions[i]);
+            if (hasNestedBlocks(block)) {
+                cachedParents[i] = cached;
+                parents.add(i);
+                batch.add(fetchChildren(block.getId(), block.getLastEditedTime(), fresh));
+            } else if (cached != null) {
+                log.trace("Reusing unchanged block: {}", block.getId());
+                converted[i] = cached;
+            } else {
+                converted[i] = convert(block, List.of(), versions[i], buffer);
+            }
+        }
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(converted));
+        }
+        log.debug("Fetching children of {} blocks in one batch", batch.size());
+
+        return CompletableFuture.allOf(batch.toArray(new CompletableFuture[0]))
+                .thenCompose(ignored -> {
+                    List<Block> nextLevel = new ArrayList<>();
+                    int[] childCounts = new int[batch.size()];
+                    for (int p = 0; p < batch.size(); p++) {
+                        List<Block> children = batch.get(p).join();
+                        childCounts[p] = children.size();
+                        nextLevel.addAll(children);
+                    }
+                    return loadLevel(nextLevel, fresh).thenApply(convertedChildren -> {
+                        StringBuilder parentBuffer = new StringBuilder();
+                        int offset = 0;
+                        for (int p = 0; p < parents.size(); p++) {
+                            int i = parents.get(p);
+                            List<MdBlocks> children = new ArrayList<>(childCounts[p]);
+                            for (MdBlocks child : convertedChildren.subList(offset, offset + childCounts[p])) {
+                                if (child != null) {
+                                    children.add(child);
+                                }
+                            }
+                            offset += childCounts[p];
+                            MdBlocks cached = cachedParents[i];
+                            if (cached != null && cached.getChildren().equals(children)) {
+                                log.trace("Reusing unchanged block: {}", blocks.get(i).getId());
+                                converted[i] = cached;
+                            } else {
+                                converted[i] = convert(blocks.get(i), children, versions[i], parentBuffer);
+                            }
+                        }
+                        return Arrays.asList(converted);
+                    });
+                });
+    }
+
+    /**
+     * Converts a block, rendering it into a buffer shared by the blocks of one level
+     */
+    private MdBlocks convert(Block block, List<MdBlocks> children, String version, StringBuilder buffer) {
+        MdBlocks mdBlock = NotionUtil.notionBlockToMdBlocks(block, children, behaviors, buffer);
+        if (version != null) {
+            blockCache.put(block.getId(), version, block.getLastEditedTime(), mdBlock);
+        }
+        return mdBlock;
+    }
+
+    /**
+     * The children of child pages and child databases are separate pages, not part of this page
+     */
+    private static boolean hasNestedBlocks(Block block) {
+        return Boolean.TRUE.equals(block.getHasChildren())
+                && block.getType() != BlockType.ChildPage
+                && block.getType() != BlockType.ChildDatabase;
+    }
+
+    private static String cacheVersion(Block block) {
+        if (block.getLastEditedTime() == null || block.getId() == null) {
+            return null;
+        }
+        return block.getLastEditedTime();
+    }
+
+    /**
+     * Children cached on disk are keyed by the last_edited_time of their parent, when known.
+     * Cached children are read on the calling thread; only the requests that reach Notion go through the executor.
+     */
+    private CompletableFuture<List<Block>> fetchChildren(String blockId, String lastEditedTime, boolean fresh) {
+        if (clientWrapper == null) {
+            return requestExecutor.submit(() -> {
+                log.trace("Fetching children for blockId: {}", blockId);
+                return NotionUtil.getNotionBlocks(blockId, notionClient);
+            });
+        }
+        if (!fresh) {
+            List<Block> cached = cachedChildren(blockId, lastEditedTime);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        NotionClient client = clientWrapper.getClient(lastEditedTime,
+                fresh ? CachingHttpClient.Mode.REFRESH : CachingHttpClient.Mode.CACHED);
+        return requestExecutor.submit(() -> {
+            log.trace("Fetching children for blockId: {}", blockId);
+            return NotionUtil.getNotionBlocks(blockId, client);
+        });
+    }
+
+    private List<Block> cachedChildren(String blockId, String lastEditedTime) {
+        NotionClient client = clientWrapper.getClient(lastEditedTime, CachingHttpClient.Mode.ONLY_IF_CACHED);
+        List<Block> children = new ArrayList<>();
+        try {
+            new BlockIterator(blockId, client).forEachRemaining(children::add);
+        } catch (NotionAPIError e) {
+            return null;
+        }
+        log.trace("Read children of blockId: {} from disk cache", blockId);
+        return children;
+    }
+}
@@ -0,0 +1,110 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class for the executors and futures used by concurrent conversions.
+ */
+public class ConcurrencyUtil {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(ConcurrencyUtil.class);
+
+    /**
+     * Largest number of platform threads an executor falls back to by default
+     */
+    public static final int DEFAULT_MAX_PLATFORM_THREADS = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Creates an executor that starts a new virtual thread per task, falling back to at most
+     * {@link #DEFAULT_MAX_PLATFORM_THREADS} platform threads
+     *
+     * @param namePrefix Prefix for the names of fallback platform threads
+     * @return Executor running each task on its own thread
+     * @see #newVirtualThreadExecutor(String, int)
+     */
+    public static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        return newVirtualThreadExecutor(namePrefix, DEFAULT_MAX_PLATFORM_THREADS);
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread per task.
+     * The library targets Java 17, so virtual threads are looked up reflectively. On runtimes that
+     * do not provide them, a bounded pool of daemon platform threads is used instead: tasks beyond
+     * the bound wait in a queue rather than each getting a thread, and idle threads are released.
+     *
+     * @param namePrefix Prefix for the names of fallback platform threads
+     * @param maxPlatformThreads Maximum number of fallback platform threads
+     * @return Executor running each task on its own thread
+     * @throws IllegalArgumentException if maxPlatformThreads is not positive
+     */
+    public static ExecutorService newVirtualThreadExecutor(String namePrefix, int maxPlatformThreads) {
+        if (maxPlatformThreads < 1) {
+            throw new IllegalArgumentException("maxPlatformThreads must be positive");
+        }
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.debug("Virtual threads are not available, using up to {} platform threads for {}",
+                    maxPlatformThreads, namePrefix);
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxPlatformThreads, maxPlatformThreads,
+                    IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * Waits for a future and rethrows its failure unwrapped, so callers see the same
+     * exceptions as the equivalent synchronous call.
+     *
+     * @param future Future to wait for
+     * @return Result of the future
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Returns the original cause of a failure raised through a future.
+     *
+     * @param throwable Failure reported by a future
+     * @return Unwrapped runtime exception or error
+     */
+    public static RuntimeException unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new CompletionException(cause);
+    }
+}
@@ -1,5 +1,10 @@
 package adaptor.notion.utils;
 
+import adaptor.notion.cache.DiskBlockCache;
+import adaptor.notion.http.CachingHttpClient;
+import adaptor.notion.http.JavaNetHttpClient;
+import adaptor.notion.http.RateLimitedHttpClient;
+import adaptor.notion.http.RateLimiter;
 import notion.api.v1.NotionClient;
 import notion.api.v1.http.NotionHttpClient;
 import notion.api.v1.json.NotionJsonSerializer;
@@ -16,6 +21,9 @@ public class NotionClientWrapper implements Closeable {
     private NotionLogger logger;
     private NotionJsonSerializer jsonSerializer;
     private String baseUrl;
+    private RateLimiter rateLimiter;
+    private DiskBlockCache diskCache;
+    private CachingHttpClient cachingHttpClient;
     private volatile NotionClient notionClient;
 
     private NotionClientWrapper() {
@@ -30,25 +38,57 @@ public class NotionClientWrapper implements Closeable {
         if (notionClient == null) {
             synchronized (this) {
                 if (notionClient == null) {
-                    notionClient = createClient();
-                    if (httpClient != null) {
-                        notionClient.setHttpClient(httpClient);
-                    }
+                    NotionClient client = createClient();
+                    client.setHttpClient(httpClient != null ? httpClient : JavaNetHttpClient.shared());
                     if (jsonSerializer != null) {
-                        notionClient.setJsonSerializer(jsonSerializer);
+                        client.setJsonSerializer(jsonSerializer);
                     }
                     if (baseUrl != null) {
-                        notionClient.setBaseUrl(baseUrl);
+                        client.setBaseUrl(baseUrl);
                     }
                     if (logger != null) {
-                        notionClient.setLogger(logger);
+                        client.setLogger(logger);
+                    }
+                    if (rateLimiter != null) {
+                        client.setHttpClient(new RateLimitedHttpClient(client.getHttpClient(), rateLimiter));
                     }
+                    if (diskCache != null) {
+                        cachingHttpClient = new CachingHttpClient(client.getHttpClient(), diskCache, rateLimiter);
+                        client.setHttpClient(cachingHttpClient);
+                    }
+                    notionClient = client;
                 }
             }
         }
         return notionClient;
     }
 
+    /**
+     * @return Whether block children responses are served from a disk cache
+     */
+    public boolean cachesBlockChildren() {
+        return diskCache != null;
+    }
+
+    /**
+     * Gets a client whose cached block children are keyed by the given version of their parent.
+     * The client shares the configuration, connections and cache of {@link #getClient()};
+     * without a disk cache, it is that client.
+     *
+     * @param parentVersion last_edited_time of the parent block or page, or null for unversioned entries
+     * @param mode How the client uses the disk cache
+     * @return Client for the block children of one parent version
+     */
+    public NotionClient getClient(String parentVersion, CachingHttpClient.Mode mode) {
+        NotionClient client = getClient();
+        if (cachingHttpClient == null) {
+            return client;
+        }
+        return new NotionClient(client.getToken(), client.getClientId(), client.getClientSecret(),
+                client.getRedirectUri(), cachingHttpClient.forParentVersion(parentVersion, mode),
+                client.getLogger(), client.getJsonSerializer(), client.getBaseUrl());
+    }
+
     private NotionClient createClient() {
         if (token != null) {
             return new NotionClient(token);
@@ -92,6 +132,9 @@ public class NotionClientWrapper implements Closeable {
             return this;
         }
 
+        /**
+         * Sets the http client sending the requests. Defaults to the shared {@link JavaNetHttpClient#shared()} client.
+         */
         public Builder httpClient(NotionHttpClient httpClient) {
             wrapper.httpClient = httpClient;
             return this;
@@ -112,6 +155,24 @@ public class NotionClientWrapper implements Closeable {
             return this;
         }
 
+        /**
+         * Throttles every request of the client with the given rate limiter.
+         * The limiter wraps the configured http client, or the default one if none is set.
+         */
+        public Builder rateLimiter(RateLimiter rateLimiter) {
+            wrapper.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Serves block children responses from a persistent cache before hitting the API.
+         * Cache hits are not counted against the rate limiter.
+         */
+        public Builder diskCache(DiskBlockCache diskCache) {
+            wrapper.diskCache = diskCache;
+            return this;
+        }
+
         public NotionClientWrapper build() {
             return wrapper;
         }
@@ -1,6 +1,7 @@
 package adaptor.notion.utils;
 
-import adaptor.notion.behavior.EnumBehaviorManager;
+import adaptor.notion.behavior.BehaviorRegistry;
+import adaptor.notion.domain.MdBlockKind;
 import adaptor.notion.domain.MdBlocks;
 import adaptor.notion.domain.SerialNumberedListBlock;
 
@@ -8,16 +9,24 @@ import adaptor.notion.log.LoggerFactoryWrapper;
 import notion.api.v1.NotionClient;
 import notion.api.v1.model.blocks.Block;
 import notion.api.v1.model.blocks.BlockType;
+import notion.api.v1.model.blocks.FileBlock;
+import notion.api.v1.model.blocks.ImageBlock;
 import notion.api.v1.model.blocks.NumberedListItemBlock;
 import notion.api.v1.model.pages.Page;
 import notion.api.v1.model.pages.PageProperty;
 import notion.api.v1.model.pages.PageProperty.RichText;
 import org.slf4j.Logger;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility class for converting Notion blocks to Markdown format.
@@ -27,6 +36,15 @@ import java.util.Optional;
 public class NotionUtil {
     private static final Logger log = LoggerFactoryWrapper.getLogger(NotionUtil.class);
 
+    private static final int BOLD = 1;
+    private static final int ITALIC = 1 << 1;
+    private static final int STRIKETHROUGH = 1 << 2;
+    private static final int CODE = 1 << 3;
+    private static final String[][] ANNOTATION_MARKERS = buildAnnotationMarkers();
+    private static final String[] ANNOTATION_PREFIXES = ANNOTATION_MARKERS[0];
+    private static final String[] ANNOTATION_SUFFIXES = ANNOTATION_MARKERS[1];
+    private static final BehaviorRegistry DEFAULT_BEHAVIORS = BehaviorRegistry.create();
+
     /**
      * Converts a list of Notion blocks and page properties to markdown blocks.
      *
@@ -42,25 +60,16 @@ public class NotionUtil {
         }
         List<MdBlocks> mdBlocks = new ArrayList<>();
 
-        PageProperty titleProperty = pageInfo.get("title");
-        if (titleProperty != null) {
-            String titleContent = "# " + richTextParser(titleProperty.getTitle());
-            mdBlocks.add(new MdBlocks("0", "pageTitle", titleContent, new ArrayList<>(0)));
-            log.debug("Added page title: {}", titleContent);
-        } else {
-            log.warn("No title found in page properties");
+        MdBlocks titleBlock = pageTitleToMdBlocks(pageInfo);
+        if (titleBlock != null) {
+            mdBlocks.add(titleBlock);
         }
 
+        StringBuilder buffer = new StringBuilder();
         for (Block block : notionBlocks) {
-            String id = block.getId();
-            String type = block.getType().toString();
-            String content = markdownParser(block);
-
-            if (content != null && !content.isEmpty()) {
-                mdBlocks.add(new MdBlocks(id, type, content, new ArrayList<>(0)));
-                log.trace("Added block - Type: {}, ID: {}", type, id);
-            } else {
-                log.debug("Skipped empty block - Type: {}, ID: {}", type, id);
+            MdBlocks mdBlock = notionBlockToMdBlocks(block, List.of(), DEFAULT_BEHAVIORS, buffer);
+            if (mdBlock != null) {
+                mdBlocks.add(mdBlock);
             }
         }
 
@@ -69,12 +78,281 @@ public class NotionUtil {
     }
 
     /**
-     * Retrieves child blocks for a given block ID using the Notion API.
+     * Converts the title property of a page to a markdown heading block.
+     *
+     * @param pageInfo Map of page properties containing title and other metadata
+     * @return Markdown block holding the page title, or null if the page has no title
+     * @throws IllegalArgumentException if pageInfo is null
+     */
+    public static MdBlocks pageTitleToMdBlocks(Map<String, PageProperty> pageInfo) {
+        if (pageInfo == null) {
+            log.error("Page info cannot be null");
+            throw new IllegalArgumentException("Page info cannot be null");
+        }
+        PageProperty titleProperty = findTitleProperty(pageInfo);
+        if (titleProperty == null) {
+            log.warn("No title found in page properties");
+            return null;
+        }
+        String titleContent = "# " + richTextParser(titleProperty.getTitle());
+        log.debug("Added page title: {}", titleContent);
+        return new MdBlocks("0", MdBlockKind.PAGE_TITLE, titleContent, List.of());
+    }
+
+    /**
+     * Gets the title of a page as plain text, without its formatting
+     *
+     * @param pageInfo Map of page properties
+     * @return Title of the page, or null if the page has no title
+     * @throws IllegalArgumentException if pageInfo is null
+     */
+    public static String getPageTitle(Map<String, PageProperty> pageInfo) {
+        if (pageInfo == null) {
+            log.error("Page info cannot be null");
+            throw new IllegalArgumentException("Page info cannot be null");
+        }
+        PageProperty titleProperty = findTitleProperty(pageInfo);
+        return titleProperty == null ? null : plainText(titleProperty.getTitle());
+    }
+
+    /**
+     * Converts the properties of a page to a YAML front matter block.
+     * Text, number, select, status, multi-select, date, checkbox, URL, email, phone number and
+     * timestamp properties are written in map order; properties of other types are left out.
+     *
+     * @param pageInfo Map of page properties, e.g. the properties of a database row
+     * @return Markdown block holding the front matter, or null if no property can be written
+     * @throws IllegalArgumentException if pageInfo is null
+     */
+    public static MdBlocks pagePropertiesToFrontMatter(Map<String, PageProperty> pageInfo) {
+        if (pageInfo == null) {
+            log.error("Page info cannot be null");
+            throw new IllegalArgumentException("Page info cannot be null");
+        }
+        StringBuilder frontMatter = new StringBuilder("---\n");
+        int written = 0;
+        for (Map.Entry<String, PageProperty> property : pageInfo.entrySet()) {
+            String value = propertyToYaml(property.getValue());
+            if (value == null) {
+                log.trace("Skipping property {} in front matter", property.getKey());
+                continue;
+            }
+            appendYamlKey(property.getKey(), frontMatter);
+            frontMatter.append(": ").append(value).append('\n');
+            written++;
+        }
+        if (written == 0) {
+            return null;
+        }
+        frontMatter.append("---");
+        return new MdBlocks("frontMatter", MdBlockKind.FRONT_MATTER, frontMatter.toString(), List.of());
+    }
+
+    /**
+     * Pages have their title under the {@code title} key; database rows under the name of their title column
+     */
+    private static PageProperty findTitleProperty(Map<String, PageProperty> pageInfo) {
+        PageProperty titleProperty = pageInfo.get("title");
+        if (titleProperty != null) {
+            return titleProperty;
+        }
+        for (PageProperty property : pageInfo.values()) {
+            if (property != null && property.getTitle() != null) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    private static String propertyToYaml(PageProperty property) {
+        if (property == null) {
+            return null;
+        }
+        if (property.getTitle() != null) {
+            return yamlString(plainText(property.getTitle()));
+        }
+        if (property.getRichText() != null) {
+            return yamlString(plainText(property.getRichText()));
+        }
+        if (property.getNumber() != null) {
+            return property.getNumber().toString();
+        }
+        if (property.getCheckbox() != null) {
+            return property.getCheckbox().toString();
+        }
+        if (property.getSelect() != null) {
+            return yamlString(property.getSelect().getName());
+        }
+        if (property.getStatus() != null) {
+            return yamlString(property.getStatus().getName());
+        }
+        if (property.getMultiSelect() != null) {
+            StringBuilder names = new StringBuilder("[");
+            for (int i = 0; i < property.getMultiSelect().size(); i++) {
+                if (i > 0) {
+                    names.append(", ");
+                }
+                names.append(yamlString(property.getMultiSelect().get(i).getName()));
+            }
+            return names.append(']').toString();
+        }
+        if (property.getDate() != null) {
+            String start = property.getDate().getStart();
+            String end = property.getDate().getEnd();
+            return yamlString(end == null ? start : start + "/" + end);
+        }
+        if (property.getUrl() != null) {
+            return yamlString(property.getUrl());
+        }
+        if (property.getEmail() != null) {
+            return yamlString(property.getEmail());
+        }
+        if (property.getPhoneNumber() != null) {
+            return yamlString(property.getPhoneNumber());
+        }
+        if (property.getCreatedTime() != null) {
+            return yamlString(property.getCreatedTime());
+        }
+        if (property.getLastEditedTime() != null) {
+            return yamlString(property.getLastEditedTime());
+        }
+        return null;
+    }
+
+    private static String plainText(List<RichText> richTexts) {
+        StringBuilder text = new StringBuilder();
+        for (RichText richText : richTexts) {
+            if (richText != null && richText.getPlainText() != null) {
+                text.append(richText.getPlainText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Keys made of letters, digits, spaces, dashes and underscores are written as they are, others are quoted
+     */
+    private static void appendYamlKey(String key, StringBuilder out) {
+        if (key.matches("[A-Za-z_][A-Za-z0-9_ -]*") && !key.endsWith(" ")) {
+            out.append(key);
+        } else {
+            out.append(yamlString(key));
+        }
+    }
+
+    private static String yamlString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Converts a single Notion block to a markdown block without children.
+     *
+     * @param block Notion block to convert
+     * @return Converted markdown block, or null if the block renders to empty content
+     * @throws IllegalArgumentException if block is null
+     */
+    public static MdBlocks notionBlockToMdBlocks(Block block) {
+        return notionBlockToMdBlocks(block, List.of());
+    }
+
+    /**
+     * Converts a single Notion block and its already converted children to a markdown block.
+     * Blocks with empty content are kept when they have children, so container blocks
+     * do not drop their nested content, and so are empty list items, which still take a number.
+     *
+     * @param block Notion block to convert
+     * @param children Converted child blocks in document order
+     * @return Converted markdown block, or null if the block has neither content nor children
+     * @throws IllegalArgumentException if block or children is null
+     */
+    public static MdBlocks notionBlockToMdBlocks(Block block, List<MdBlocks> children) {
+        return notionBlockToMdBlocks(block, children, DEFAULT_BEHAVIORS);
+    }
+
+    /**
+     * Converts a single Notion block and its already converted children to a markdown block,
+     * rendering the block with the given behaviors.
+     *
+     * @param block Notion block to convert
+     * @param children Converted child blocks in document order
+     * @param behaviors Behaviors rendering each block type
+     * @return Converted markdown block, or null if the block has neither content nor children
+     * @throws IllegalArgumentException if block, children or behaviors is null
+     * @see #notionBlockToMdBlocks(Block, List)
+     */
+    public static MdBlocks notionBlockToMdBlocks(Block block, List<MdBlocks> children, BehaviorRegistry behaviors) {
+        return notionBlockToMdBlocks(block, children, behaviors, new StringBuilder());
+    }
+
+    /**
+     * Converts a single Notion block and its already converted children to a markdown block,
+     * rendering the block into the given buffer. Callers converting many blocks pass the same
+     * buffer for each of them, so only the content string of each block is allocated.
+     *
+     * @param block Notion block to convert
+     * @param children Converted child blocks in document order
+     * @param behaviors Behaviors rendering each block type
+     * @param buffer Builder the block is rendered into, cleared first
+     * @return Converted markdown block, or null if the block has neither content nor children
+     * @throws IllegalArgumentException if an argument is null
+     * @see #notionBlockToMdBlocks(Block, List, BehaviorRegistry)
+     */
+    public static MdBlocks notionBlockToMdBlocks(Block block, List<MdBlocks> children, BehaviorRegistry behaviors,
+                                                 StringBuilder buffer) {
+        if (children == null || buffer == null) {
+            log.error("Children and buffer cannot be null");
+            throw new IllegalArgumentException("Children and buffer cannot be null");
+        }
+        buffer.setLength(0);
+        String content = appendMarkdown(block, behaviors, buffer) ? buffer.toString() : "";
+        String id = block.getId();
+        MdBlockKind kind = MdBlockKind.of(block.getType());
+
+        if ((content == null || content.isEmpty()) && children.isEmpty() && !kind.isListItem()) {
+            log.debug("Skipped empty block - Type: {}, ID: {}", kind, id);
+            return null;
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Added block - Type: {}, ID: {}, children: {}", kind, id, children.size());
+        }
+        return new MdBlocks(id, kind, content, children);
+    }
+
+    /**
+     * Retrieves all child blocks for a given block ID using the Notion API.
+     * Follows {@code next_cursor} until every page of children has been fetched.
      *
      * @param blockId ID of the parent block to retrieve children for
      * @param notionClient NotionClient instance to use for API calls
      * @return List of child blocks, empty list if no children found
      * @throws IllegalArgumentException if blockId is null/empty or notionClient is null
+     * @see #streamNotionBlocks(String, NotionClient)
      */
     public static List<Block> getNotionBlocks(String blockId, NotionClient notionClient) {
         if (blockId == null || blockId.trim().isEmpty()) {
@@ -89,13 +367,10 @@ public class NotionUtil {
         }
         log.debug("NotionClient validation passed");
 
-        List<Block> results;
+        List<Block> results = new ArrayList<>();
         try {
-            results = notionClient.retrieveBlockChildren(blockId, null, null).getResults();
-            log.debug("Raw blocks retrieved: {}", results);
-            modifyNumberedList(results);
-            log.debug("Numbered list modification completed");
-
+            new BlockIterator(blockId, notionClient).forEachRemaining(results::add);
+            log.debug("Raw blocks retrieved: {}", results.size());
         } catch (Exception e) {
             log.error("Failed to retrieve blocks for blockId: {}", blockId, e);
             throw e;
@@ -103,6 +378,33 @@ public class NotionUtil {
         return results;
     }
 
+    /**
+     * Lazily streams child blocks for a given block ID using the Notion API.
+     * The next page of children is only requested once the consumer has drained the current one,
+     * so at most one page of blocks is held in memory at a time.
+     *
+     * @param blockId ID of the parent block to retrieve children for
+     * @param notionClient NotionClient instance to use for API calls
+     * @return Sequential, ordered stream of child blocks
+     * @throws IllegalArgumentException if blockId is null/empty or notionClient is null
+     * @see BlockIterator
+     */
+    public static Stream<Block> streamNotionBlocks(String blockId, NotionClient notionClient) {
+        if (blockId == null || blockId.trim().isEmpty()) {
+            log.error("Block ID cannot be null or empty");
+            throw new IllegalArgumentException("Block ID cannot be null or empty");
+        }
+        if (notionClient == null) {
+            log.error("NotionClient cannot be null");
+            throw new IllegalArgumentException("NotionClient cannot be null");
+        }
+
+        BlockIterator iterator = new BlockIterator(blockId, notionClient);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
     /**
      * Retrieves page properties from Notion API for a given page ID.
      *
@@ -112,6 +414,20 @@ public class NotionUtil {
      * @throws IllegalArgumentException if pageId is null/empty or notionClient is null
      */
     public static Map<String, PageProperty> getNotionPageInfo(String pageId, NotionClient notionClient) {
+        Map<String, PageProperty> properties = getNotionPage(pageId, notionClient).getProperties();
+        log.debug("Page properties: {}", properties.keySet());
+        return properties;
+    }
+
+    /**
+     * Retrieves a page from Notion API for a given page ID, including its properties and last_edited_time.
+     *
+     * @param pageId The ID of the Notion page to retrieve
+     * @param notionClient The Notion API client
+     * @return Retrieved page
+     * @throws IllegalArgumentException if pageId is null/empty or notionClient is null
+     */
+    public static Page getNotionPage(String pageId, NotionClient notionClient) {
         log.info("Retrieving Notion page info for pageId: {}", pageId);
 
         if (pageId == null || pageId.trim().isEmpty()) {
@@ -126,11 +442,7 @@ public class NotionUtil {
         }
 
         try {
-            Page page = notionClient.retrievePage(pageId, null);
-            Map<String, PageProperty> properties = page.getProperties();
-            log.debug("Page properties: {}", properties.keySet());
-
-            return properties;
+            return notionClient.retrievePage(pageId, null);
         } catch (Exception e) {
             log.error("Failed to retrieve page info for pageId: {}", pageId, e);
             throw e;
@@ -145,33 +457,50 @@ public class NotionUtil {
      * @throws IllegalArgumentException if block is null
      */
     public static String markdownParser(Block block) {
-        if (block == null) {
-            log.error("Block cannot be null");
-            throw new IllegalArgumentException("Block cannot be null");
+        return markdownParser(block, DEFAULT_BEHAVIORS);
+    }
+
+    /**
+     * Converts a Notion block to its markdown representation with the given behaviors.
+     *
+     * @param block Notion block to parse
+     * @param behaviors Behaviors rendering each block type
+     * @return Markdown formatted string, empty if the block type has no behavior
+     * @throws IllegalArgumentException if block or behaviors is null
+     */
+    public static String markdownParser(Block block, BehaviorRegistry behaviors) {
+        if (block == null || behaviors == null) {
+            log.error("Block and behaviors cannot be null");
+            throw new IllegalArgumentException("Block and behaviors cannot be null");
         }
-        log.debug("Block validation passed");
 
-        try {
-            String result = switch (block.getType()) {
-                case HeadingOne -> EnumBehaviorManager.executeBehavior(BlockType.HeadingOne, block);
-                case HeadingTwo -> EnumBehaviorManager.executeBehavior(BlockType.HeadingTwo, block);
-                case HeadingThree -> EnumBehaviorManager.executeBehavior(BlockType.HeadingThree, block);
-                case Paragraph -> EnumBehaviorManager.executeBehavior(BlockType.Paragraph, block);
-                case Quote -> EnumBehaviorManager.executeBehavior(BlockType.Quote, block);
-                case NumberedListItem -> EnumBehaviorManager.executeBehavior(BlockType.NumberedListItem, block);
-                case BulletedListItem -> EnumBehaviorManager.executeBehavior(BlockType.BulletedListItem, block);
-                case Code -> EnumBehaviorManager.executeBehavior(BlockType.Code, block);
-                case Bookmark -> EnumBehaviorManager.executeBehavior(BlockType.Bookmark, block);
-                case Divider -> EnumBehaviorManager.executeBehavior(BlockType.Divider, block);
-                case Image -> EnumBehaviorManager.executeBehavior(BlockType.Image, block);
-
-                default -> {
-                    log.warn("Unsupported block type: {}, block ID: {}", block.getType(), block.getId());
-                    yield "";
-                }
-            };
+        StringBuilder markdown = new StringBuilder();
+        if (!appendMarkdown(block, behaviors, markdown)) {
+            return "";
+        }
+        return markdown.toString();
+    }
 
-            return result;
+    /**
+     * Writes the markdown representation of a Notion block into a document.
+     *
+     * @param block Notion block to render
+     * @param behaviors Behaviors rendering each block type
+     * @param out Document receiving the markdown content
+     * @return true if the block was rendered, false if its type has no behavior
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static boolean appendMarkdown(Block block, BehaviorRegistry behaviors, StringBuilder out) {
+        if (block == null || behaviors == null || out == null) {
+            log.error("Block, behaviors and output cannot be null");
+            throw new IllegalArgumentException("Block, behaviors and output cannot be null");
+        }
+        try {
+            if (!behaviors.render(block, out)) {
+                log.warn("Unsupported block type: {}, block ID: {}", block.getType(), block.getId());
+                return false;
+            }
+            return true;
         } catch (Exception e) {
             log.error("Failed to parse block to markdown", e);
             throw e;
@@ -184,51 +513,113 @@ public class NotionUtil {
      *
      * @param richTexts List of RichText objects to parse
      * @return Markdown formatted string
+     * @see #appendRichText(List, StringBuilder)
      */
     public static String richTextParser(List<RichText> richTexts) {
-        log.debug("Starting rich text parsing for {} elements", richTexts != null ? richTexts.size() : 0);
-
         if (richTexts == null) {
             log.warn("Rich text list is null");
             return "";
         }
         StringBuilder result = new StringBuilder();
+        appendRichText(richTexts, result);
+        return result.toString();
+    }
+
+    /**
+     * Appends a list of RichText objects to a builder as Markdown formatted text.
+     * Each span is written in a single pass: the markers for its combination of annotations
+     * are looked up in a precomputed table and appended around its text, so no temporary
+     * objects are created per span. Null elements and elements without plain text are skipped.
+     *
+     * @param richTexts List of RichText objects to render, ignored if null
+     * @param out Builder receiving the Markdown formatted text
+     */
+    public static void appendRichText(List<RichText> richTexts, StringBuilder out) {
+        if (richTexts == null) {
+            log.warn("Rich text list is null");
+            return;
+        }
+        int start = out.length();
         for (RichText richText : richTexts) {
             if (richText == null) {
                 log.warn("Rich text element is null, skipping");
                 continue;
             }
-            log.trace("Processing rich text: {}", richText.getPlainText());
-            StringBuilder text = new StringBuilder(richText.getPlainText());
-            if (Boolean.TRUE.equals(richText.getAnnotations().getBold())) {
-                text.insert(0, "**")
-                        .insert(text.length(), "**");
-            }
-            if (Boolean.TRUE.equals(richText.getAnnotations().getItalic())) {
-                text.insert(0, "*")
-                        .insert(text.length(), "*");
+            String plainText = richText.getPlainText();
+            if (plainText == null) {
+                log.warn("Rich text element has no plain text, skipping");
+                continue;
             }
-            if (Boolean.TRUE.equals(richText.getAnnotations().getStrikethrough())) {
-                text.insert(0, "~~")
-                        .insert(text.length(), "~~");
+            int annotations = annotationMask(richText);
+            boolean hasLink = richText.getText() != null && richText.getText().getLink() != null;
+
+            if (hasLink) {
+                out.append('[');
             }
-            if (Boolean.TRUE.equals(richText.getAnnotations().getCode())) {
-                text.insert(0, "`")
-                        .insert(text.length(), "`");
+            out.append(ANNOTATION_PREFIXES[annotations])
+                    .append(plainText)
+                    .append(ANNOTATION_SUFFIXES[annotations]);
+            if (hasLink) {
+                out.append("](").append(richText.getText().getLink().getUrl()).append(')');
             }
-            if (richText.getText().getLink() != null) {
-                text.insert(0, "[").
-                        insert(text.length(), "](" + richText.getText().getLink().getUrl() + ")");
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Rendered {} rich text elements, length: {}", richTexts.size(), out.length() - start);
+        }
+    }
+
+    private static int annotationMask(RichText richText) {
+        if (richText.getAnnotations() == null) {
+            return 0;
+        }
+        int mask = 0;
+        if (Boolean.TRUE.equals(richText.getAnnotations().getBold())) {
+            mask |= BOLD;
+        }
+        if (Boolean.TRUE.equals(richText.getAnnotations().getItalic())) {
+            mask |= ITALIC;
+        }
+        if (Boolean.TRUE.equals(richText.getAnnotations().getStrikethrough())) {
+            mask |= STRIKETHROUGH;
+        }
+        if (Boolean.TRUE.equals(richText.getAnnotations().getCode())) {
+            mask |= CODE;
+        }
+        return mask;
+    }
+
+    /**
+     * Builds the opening and closing markers of every annotation combination.
+     * Bold is the innermost marker and code the outermost, links wrap around all of them.
+     */
+    private static String[][] buildAnnotationMarkers() {
+        String[] prefixes = new String[CODE << 1];
+        String[] suffixes = new String[CODE << 1];
+        String[] markers = {"**", "*", "~~", "`"};
+        for (int mask = 0; mask < prefixes.length; mask++) {
+            StringBuilder prefix = new StringBuilder();
+            StringBuilder suffix = new StringBuilder();
+            for (int bit = 0; bit < markers.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    prefix.insert(0, markers[bit]);
+                    suffix.append(markers[bit]);
+                }
             }
-            result.append(text);
+            prefixes[mask] = prefix.toString();
+            suffixes[mask] = suffix.toString();
         }
-        log.debug("Completed rich text parsing. Result length: {}", result.length());
-        return result.toString();
+        return new String[][]{prefixes, suffixes};
     }
 
     /**
      * Generates a markdown string from a list of markdown blocks. The method handles special
      * formatting for consecutive list items by removing extra line breaks between them.
+     * Children of list items are indented so nested lists keep their structure, while
+     * children of other blocks follow their parent at the same indentation.
+     * Numbered list items are numbered here: every run of consecutive items counts from 1,
+     * and each nesting level keeps its own counter, so nested lists restart at every level.
+     * Tables are written as their rows with a header separator, and toggles as details
+     * elements wrapping their children.
      *
      * @param mdBlocks List of markdown blocks to convert to a string. Each block represents
      *                 a distinct markdown element (e.g., paragraph, list item, heading)
@@ -241,20 +632,127 @@ public class NotionUtil {
             throw new IllegalArgumentException("mdBlocks cannot be null");
         }
         StringBuilder markdown = new StringBuilder();
-        for (int i = 0; i < mdBlocks.size() ; i++) {
-            MdBlocks currentBlock = mdBlocks.get(i);
-            boolean isLastBlock = (i + 1 == mdBlocks.size());
-            boolean isConsecutiveListItem = !isLastBlock && isConsecutiveListItems(currentBlock, mdBlocks.get(i + 1));
+        try {
+            writeMarkdown(mdBlocks.iterator(), markdown);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringBuilder cannot fail to append", e);
+        }
+        return markdown.toString();
+    }
 
-            markdown.append(currentBlock.getContent())
-                   .append("\n");
+    /**
+     * Writes markdown blocks to an output as they are consumed, using the same layout as
+     * {@link #generateMarkdownString(List)}. Only one block of lookahead is needed to decide
+     * the spacing between consecutive list items, so the blocks can come from a lazy source.
+     *
+     * @param mdBlocks Markdown blocks in document order
+     * @param out Output receiving the markdown text
+     * @throws IOException if the output fails
+     * @throws IllegalArgumentException if mdBlocks or out is null
+     */
+    public static void writeMarkdown(Iterator<MdBlocks> mdBlocks, Appendable out) throws IOException {
+        if (mdBlocks == null || out == null) {
+            throw new IllegalArgumentException("mdBlocks and output cannot be null");
+        }
+        writeMarkdown(mdBlocks, 0, true, out);
+    }
 
-            if (!isConsecutiveListItem) {
-                markdown.append("\n");
+    /**
+     * Writes one level of blocks. Each recursion level holds the counter of the numbered list
+     * at its depth, which together form the counter stack of the nested lists being written.
+     */
+    private static void writeMarkdown(Iterator<MdBlocks> mdBlocks, int depth, boolean blankLineAfterLast,
+                                      Appendable out) throws IOException {
+        int listNumber = 0;
+        MdBlocks nextBlock = mdBlocks.hasNext() ? mdBlocks.next() : null;
+        while (nextBlock != null) {
+            MdBlocks currentBlock = nextBlock;
+            nextBlock = mdBlocks.hasNext() ? mdBlocks.next() : null;
+            boolean consecutive = nextBlock != null && isConsecutiveListItems(currentBlock, nextBlock);
+            boolean blankLineAfter = nextBlock == null ? blankLineAfterLast : !consecutive;
+            List<MdBlocks> children = currentBlock.getChildren();
+            boolean hasChildren = !children.isEmpty();
+            boolean isNumbered = currentBlock.getKind() == MdBlockKind.NUMBERED_LIST_ITEM;
+            boolean hasContent = isNumbered || !currentBlock.getContent().isEmpty();
+
+            if (currentBlock.getKind() == MdBlockKind.TABLE) {
+                writeTable(currentBlock, depth, out);
+                if (blankLineAfter) {
+                    out.append('\n');
+                }
+                continue;
+            }
+            if (currentBlock.getKind() == MdBlockKind.TOGGLE) {
+                writeIndented(currentBlock.getContent(), depth, true, out);
+                out.append("\n\n");
+                writeMarkdown(children.iterator(), depth, true, out);
+                writeIndentation(depth, out);
+                out.append("</details>\n");
+                if (blankLineAfter) {
+                    out.append('\n');
+                }
+                continue;
+            }
+            if (isNumbered) {
+                listNumber++;
+                writeIndentation(depth, out);
+                out.append(Integer.toString(listNumber)).append(". ");
+                writeIndented(currentBlock.getContent(), depth, false, out);
+                out.append('\n');
+            } else if (hasContent) {
+                writeIndented(currentBlock.getContent(), depth, true, out);
+                out.append('\n');
+            }
+            if (!consecutive) {
+                listNumber = 0;
+            }
+
+            if (hasChildren) {
+                boolean isListItem = currentBlock.getKind().isListItem();
+                if (hasContent && !isListItem) {
+                    out.append('\n');
+                }
+                writeMarkdown(children.iterator(), isListItem ? depth + 1 : depth, blankLineAfter, out);
+            } else if (blankLineAfter) {
+                out.append('\n');
             }
         }
+    }
 
-        return markdown.toString();
+    /**
+     * Writes the rows of a table, which are its children, with the table's own content
+     * as the header separator after the first row.
+     */
+    private static void writeTable(MdBlocks table, int depth, Appendable out) throws IOException {
+        boolean headerWritten = false;
+        for (MdBlocks row : table.getChildren()) {
+            writeIndented(row.getContent(), depth, true, out);
+            out.append('\n');
+            if (!headerWritten) {
+                writeIndented(table.getContent(), depth, true, out);
+                out.append('\n');
+                headerWritten = true;
+            }
+        }
+    }
+
+    private static void writeIndented(String content, int depth, boolean indentFirstLine, Appendable out)
+            throws IOException {
+        int lineStart = 0;
+        boolean indent = indentFirstLine;
+        while (true) {
+            if (indent) {
+                writeIndentation(depth, out);
+            }
+            indent = true;
+            int lineEnd = content.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                out.append(content, lineStart, content.length());
+                return;
+            }
+            out.append(content, lineStart, lineEnd + 1);
+            lineStart = lineEnd + 1;
+        }
     }
 
     /**
@@ -267,9 +765,24 @@ public class NotionUtil {
      *         false otherwise
      * @see #generateMarkdownString(List)
      */
-    private static boolean isConsecutiveListItems(MdBlocks current, MdBlocks next) {
-        return (current.getType().equals("bulleted_list_item") && next.getType().equals("bulleted_list_item")) ||
-               (current.getType().equals("numbered_list_item") && next.getType().equals("numbered_list_item"));
+    static boolean isConsecutiveListItems(MdBlocks current, MdBlocks next) {
+        return current.getKind() == next.getKind() && current.getKind().isListItem();
+    }
+
+    private static void writeIndentation(int depth, Appendable out) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            out.append("    ");
+        }
+    }
+
+    /**
+     * Gets the Notion URL of a page, as linked from child page and link to page blocks
+     *
+     * @param pageId ID of the page, with or without dashes
+     * @return URL of the page
+     */
+    public static String getPageUrl(String pageId) {
+        return "https://www.notion.so/" + pageId.replace("-", "");
     }
 
     /**
@@ -278,7 +791,10 @@ public class NotionUtil {
      *
      * @param blocks The list of blocks to process
      * @throws IllegalArgumentException if blocks is null
+     * @deprecated Numbered list items are numbered by {@link #writeMarkdown(Iterator, Appendable)},
+     *             so the blocks no longer need to be modified before conversion
      */
+    @Deprecated
     public static void modifyNumberedList(List<Block> blocks) {
         if (blocks == null) {
             log.warn("Null blocks list provided to modifyNumberedList");
@@ -304,6 +820,37 @@ public class NotionUtil {
         }
     }
 
+    /**
+     * Extracts the URL of the asset shown by an image or file block. Files uploaded to Notion
+     * have a signed URL that expires after about an hour, external files keep their own URL.
+     *
+     * @param block The block to extract the URL from
+     * @return Optional containing the URL, or empty if the block is not an image or file block or has no URL
+     * @throws IllegalArgumentException if block is null
+     */
+    public static Optional<String> getAssetUrl(Block block) {
+        if (block == null) {
+            log.warn("Null block provided to getAssetUrl");
+            throw new IllegalArgumentException("block cannot be null");
+        }
+
+        if (BlockType.Image.equals(block.getType()) && block.asImage().getImage() != null) {
+            ImageBlock.Element image = block.asImage().getImage();
+            if (image.getFile() != null) {
+                return Optional.ofNullable(image.getFile().getUrl());
+            }
+            return image.getExternal() == null ? Optional.empty() : Optional.ofNullable(image.getExternal().getUrl());
+        }
+        if (BlockType.File.equals(block.getType()) && block.asFile().getFile() != null) {
+            FileBlock.Element file = block.asFile().getFile();
+            if (file.getFile() != null) {
+                return Optional.ofNullable(file.getFile().getUrl());
+            }
+            return file.getExternal() == null ? Optional.empty() : Optional.ofNullable(file.getExternal().getUrl());
+        }
+        return Optional.empty();
+    }
+
     /**
      * Extracts the programming language from a Code block.
      *
@@ -0,0 +1,154 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.http.RateLimiter;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs Notion API requests asynchronously while capping how many of them are in flight.
+ * A single instance is shared by every request a converter issues, so page, block and
+ * batch requests all draw from the same concurrency budget.
+ *
+ * <p>Requests wait in a FIFO queue until a permit is free and are only then handed to the executor,
+ * so queued requests never hold a thread, however many are submitted. A request's permit is released
+ * before its future completes, so work chained onto the future does not count against the limit.</p>
+ *
+ * <p>With a {@link RateLimiter}, every request reserves its rate token when it is submitted and only
+ * joins the queue once the token is due, so waiting for the rate limit holds neither a permit nor a thread.</p>
+ */
+public class RequestExecutor {
+    private final Executor executor;
+    private final Semaphore permits;
+    private final RateLimiter rateLimiter;
+    private final Queue<Request<?>> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new RequestExecutor
+     *
+     * @param executor Executor running the requests
+     * @param maxConcurrency Maximum number of concurrent requests
+     * @throws IllegalArgumentException if executor is null or maxConcurrency is not positive
+     */
+    public RequestExecutor(Executor executor, int maxConcurrency) {
+        this(executor, maxConcurrency, null);
+    }
+
+    /**
+     * Creates a new RequestExecutor whose requests wait for their rate token before taking a permit
+     *
+     * @param executor Executor running the requests
+     * @param maxConcurrency Maximum number of concurrent requests
+     * @param rateLimiter Rate limiter of the client the requests are sent with, or null if it has none
+     * @throws IllegalArgumentException if executor is null or maxConcurrency is not positive
+     */
+    public RequestExecutor(Executor executor, int maxConcurrency, RateLimiter rateLimiter) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency);
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Submits a request, which starts as soon as its rate token is due, a permit is available and every
+     * request queued before it has started.
+     *
+     * @param request Request to run
+     * @return Future completing with the result of the request
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> request) {
+        Request<T> queued = new Request<>(request);
+        long waitNanos = rateLimiter == null ? 0 : rateLimiter.reserve();
+        if (waitNanos > 0) {
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(() -> enqueue(queued));
+        } else {
+            enqueue(queued);
+        }
+        return queued.result;
+    }
+
+    private void enqueue(Request<?> request) {
+        queue.add(request);
+        dispatch();
+    }
+
+    /**
+     * @return Number of requests waiting for a permit
+     */
+    public int getQueuedRequests() {
+        return queue.size();
+    }
+
+    /**
+     * @return Executor running the requests
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Starts queued requests while permits are free. Called after every submission and after every
+     * completed request: a permit released just after a submitter found none is picked up by the releaser.
+     */
+    private void dispatch() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Request<?> request = queue.poll();
+            if (request == null) {
+                permits.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    Runnable completion;
+                    try {
+                        completion = request.run();
+                    } finally {
+                        permits.release();
+                        dispatch();
+                    }
+                    completion.run();
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Request<T> {
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Request(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        /**
+         * Runs the request and returns the completion of its result, which the caller runs once the
+         * permit is released, so dependents completing synchronously never hold a request slot.
+         * A request whose result was cancelled while it was queued is not sent.
+         */
+        private Runnable run() {
+            if (result.isDone()) {
+                return () -> { };
+            }
+            try {
+                T value = supplier.get();
+                return () -> result.complete(value);
+            } catch (Throwable e) {
+                return () -> result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer that encodes characters as UTF-8 straight into a {@link WritableByteChannel}.
+ * Characters are staged in a fixed char buffer and encoded into a byte buffer that is
+ * drained to the channel whenever it fills up, so no intermediate strings or byte arrays
+ * are created. The byte buffer can be supplied by the caller and reused across writers, and a writer
+ * can be {@link #reset(WritableByteChannel) reset} onto another channel to reuse both of its buffers.
+ *
+ * <p>Malformed input, such as an unpaired surrogate, is replaced with {@code ?}, as
+ * {@link String#getBytes(java.nio.charset.Charset)} does. A high surrogate is held back until the
+ * next character arrives, so output that ends without {@link #close()} must end with {@link #finish()}.</p>
+ */
+public class Utf8ChannelWriter extends Writer {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(Utf8ChannelWriter.class);
+
+    /**
+     * Default size of the char and byte buffers
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private boolean closed;
+
+    public Utf8ChannelWriter(WritableByteChannel channel) {
+        this(channel, ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Creates a writer encoding into the given byte buffer
+     *
+     * @param channel Channel receiving the encoded bytes
+     * @param buffer Buffer to encode into, cleared before use; at least 4 bytes
+     * @throws IllegalArgumentException if channel or buffer is null, or the buffer is too small
+     */
+    public Utf8ChannelWriter(WritableByteChannel channel, ByteBuffer buffer) {
+        if (channel == null || buffer == null) {
+            throw new IllegalArgumentException("Channel and buffer cannot be null");
+        }
+        if (buffer.capacity() < 4) {
+            throw new IllegalArgumentException("Buffer must hold at least one encoded character");
+        }
+        this.channel = channel;
+        this.bytes = buffer;
+        this.bytes.clear();
+        this.chars = CharBuffer.allocate(Math.max(16, buffer.capacity()));
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int count = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, count);
+            off += count;
+            len -= count;
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        int end = off + len;
+        while (off < end) {
+            int count = Math.min(end - off, chars.remaining());
+            chars.put(str, off, off + count);
+            off += count;
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        chars.put((char) c);
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        CharSequence sequence = csq == null ? "null" : csq;
+        return append(sequence, 0, sequence.length());
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            return append("null", start, end);
+        }
+        if (csq instanceof String) {
+            write((String) csq, start, end - start);
+            return this;
+        }
+        for (int i = start; i < end; i++) {
+            write(csq.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Encodes and writes the buffered characters. A trailing high surrogate stays buffered until the
+     * character completing it is written; use {@link #finish()} once the output is complete.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        drain();
+    }
+
+    /**
+     * Ends the output without closing the channel: the remaining characters are encoded as the end of
+     * the input and written. A high surrogate left unpaired at the end is reported and replaced.
+     * Nothing more can be written until the writer is {@link #reset(WritableByteChannel) reset}.
+     *
+     * @throws IOException if the channel fails
+     */
+    public void finish() throws IOException {
+        ensureOpen();
+        endOfInput();
+        closed = true;
+    }
+
+    /**
+     * Rebinds the writer to another channel so its buffers can be reused for another output.
+     * Characters not yet written to the previous channel are discarded.
+     *
+     * @param channel Channel receiving the encoded bytes
+     * @return This writer
+     * @throws IllegalArgumentException if channel is null
+     */
+    public Utf8ChannelWriter reset(WritableByteChannel channel) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        this.channel = channel;
+        chars.clear();
+        bytes.clear();
+        encoder.reset();
+        closed = false;
+        return this;
+    }
+
+    /**
+     * Flushes the remaining characters and closes the channel
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        endOfInput();
+        closed = true;
+        channel.close();
+    }
+
+    private void endOfInput() throws IOException {
+        encode(false);
+        if (chars.position() > 0) {
+            log.warn("Output ends with an unpaired high surrogate, replacing it");
+        }
+        encode(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (!result.isOverflow()) {
+                break;
+            }
+            drain();
+        }
+        chars.compact();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package adaptor.notion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConverterRegistryTest {
+    private static final Duration IDLE_TIMEOUT = Duration.ofMillis(20);
+
+    private final ConverterRegistry registry = ConverterRegistry.builder().idleTimeout(Duration.ofHours(1)).build();
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void sharesOneConverterPerSecret() {
+        try (MarkdownConverter first = registry.acquire("secret_a");
+             MarkdownConverter second = registry.acquire("secret_a");
+             MarkdownConverter other = registry.acquire("secret_b")) {
+            assertSame(first, second);
+            assertNotSame(first, other);
+            assertEquals(2, registry.size());
+        }
+    }
+
+    @Test
+    void evictsTenantsOnceEveryReferenceIsClosedAndIdle() throws Exception {
+        try (ConverterRegistry idleRegistry = ConverterRegistry.builder().idleTimeout(IDLE_TIMEOUT).build()) {
+            MarkdownConverter first = idleRegistry.acquire("secret_a");
+            MarkdownConverter second = idleRegistry.acquire("secret_a");
+            first.close();
+            Thread.sleep(IDLE_TIMEOUT.toMillis() * 2);
+            idleRegistry.evictIdle();
+            assertEquals(1, idleRegistry.size());
+
+            second.close();
+            Thread.sleep(IDLE_TIMEOUT.toMillis() * 2);
+            idleRegistry.evictIdle();
+            assertEquals(0, idleRegistry.size());
+
+            second.close();
+            assertNotSame(second, idleRegistry.acquire("secret_a"));
+        }
+    }
+
+    @Test
+    void neverEvictsPinnedTenants() throws Exception {
+        try (ConverterRegistry idleRegistry = ConverterRegistry.builder().idleTimeout(IDLE_TIMEOUT).build()) {
+            MarkdownConverter pinned = idleRegistry.getPinned("secret_a");
+            idleRegistry.acquire("secret_a").close();
+            pinned.close();
+            Thread.sleep(IDLE_TIMEOUT.toMillis() * 2);
+            idleRegistry.evictIdle();
+
+            assertEquals(1, idleRegistry.size());
+            assertSame(pinned, idleRegistry.getPinned("secret_a"));
+        }
+    }
+
+    @Test
+    void getInstanceReturnsTheSamePinnedConverterAfterClose() {
+        MarkdownConverter converter = MarkdownConverter.getInstance("secret_instance");
+        converter.close();
+
+        assertSame(converter, MarkdownConverter.getInstance("secret_instance"));
+        assertSame(converter, ConverterRegistry.getDefault().getPinned("secret_instance"));
+    }
+
+    @Test
+    void rejectsAcquiresOnceClosed() {
+        registry.acquire("secret_a");
+        registry.close();
+
+        assertEquals(0, registry.size());
+        assertThrows(IllegalStateException.class, () -> registry.acquire("secret_a"));
+        assertThrows(IllegalArgumentException.class, () -> ConverterRegistry.getDefault().acquire(" "));
+    }
+}
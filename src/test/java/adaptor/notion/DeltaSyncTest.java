@@ -0,0 +1,73 @@
+package adaptor.notion;
+
+import adaptor.notion.domain.BatchResult;
+import adaptor.notion.testing.FakeNotionServer;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaSyncTest {
+    private static final String FIRST_PAGE = NotionFixtures.id(1, 0);
+    private static final String SECOND_PAGE = NotionFixtures.id(2, 0);
+    private static final String THIRD_PAGE = NotionFixtures.id(3, 0);
+
+    @TempDir
+    Path directory;
+
+    private FakeNotionServer server;
+    private MarkdownConverter converter;
+    private DeltaSync deltaSync;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeNotionServer.builder().maxPageSize(2).build()
+                .addGeneratedPage(FIRST_PAGE, PageShape.SMALL, 1)
+                .addGeneratedPage(SECOND_PAGE, PageShape.SMALL, 2)
+                .addGeneratedPage(THIRD_PAGE, PageShape.SMALL, 3)
+                .start();
+        converter = MarkdownConverter.builder().token("secret_test").baseUrl(server.getBaseUrl()).build();
+        deltaSync = new DeltaSync(converter, directory.resolve("watermark"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        converter.close();
+        server.close();
+    }
+
+    @Test
+    void convertsOnlyPagesEditedSincePreviousSync() {
+        assertEquals(Set.of(FIRST_PAGE, SECOND_PAGE, THIRD_PAGE), deltaSync.sync().getResults().keySet());
+        assertTrue(deltaSync.sync().getResults().isEmpty());
+
+        server.editPage(SECOND_PAGE, Instant.parse("2024-01-02T00:00:00Z"), NotionFixtures.blockJsons(PageShape.SMALL, 4));
+        BatchResult batchResult = deltaSync.sync();
+
+        assertEquals(Set.of(SECOND_PAGE), batchResult.getResults().keySet());
+        assertEquals(converter.pageToMarkdownBlocks(SECOND_PAGE), batchResult.getResults().get(SECOND_PAGE));
+        assertTrue(deltaSync.sync().getResults().isEmpty());
+    }
+
+    @Test
+    void syncsAgainPagesTheListenerFailedFor() {
+        BatchResult failed = deltaSync.sync(pageResult -> {
+            if (pageResult.getPageId().equals(FIRST_PAGE)) {
+                throw new IllegalStateException("cannot store page");
+            }
+        });
+        assertEquals(Set.of(FIRST_PAGE), failed.getFailures().keySet());
+
+        assertEquals(Set.of(FIRST_PAGE), deltaSync.sync().getResults().keySet());
+        assertTrue(deltaSync.sync().getResults().isEmpty());
+    }
+}
@@ -0,0 +1,145 @@
+package adaptor.notion;
+
+import adaptor.notion.cache.DiskBlockCache;
+import adaptor.notion.domain.BatchResult;
+import adaptor.notion.domain.MdBlockKind;
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.testing.FakeNotionServer;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class MarkdownConverterTest {
+    private static final String DATABASE_ID = NotionFixtures.id(7, 0);
+
+    @TempDir
+    Path directory;
+
+    private FakeNotionServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void streamsTheSameBlocksAsAFullConversion() throws Exception {
+        server = FakeNotionServer.builder().maxPageSize(2).build().start();
+        String pageId = NotionFixtures.id(1, 0);
+        server.addGeneratedPage(pageId, PageShape.TYPICAL, 1);
+
+        try (MarkdownConverter converter = converter(null)) {
+            List<MdBlocks> converted = converter.pageToMarkdownBlocks(pageId);
+            List<MdBlocks> streamed;
+            try (Stream<MdBlocks> mdBlocks = converter.streamMarkdownBlocks(pageId)) {
+                streamed = mdBlocks.collect(Collectors.toList());
+            }
+
+            assertEquals(converted, streamed);
+        }
+    }
+
+    @Test
+    void exportsEveryRowAcrossQueryPages() throws Exception {
+        server = FakeNotionServer.builder().maxPageSize(2).build().start();
+        List<String> pageIds = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            String pageId = NotionFixtures.id(i, 0);
+            server.addGeneratedPage(pageId, PageShape.SMALL, i).addDatabaseRow(DATABASE_ID, pageId);
+            pageIds.add(pageId);
+        }
+
+        try (MarkdownConverter converter = converter(null)) {
+            BatchResult batchResult = converter.exportDatabase(DATABASE_ID);
+
+            assertFalse(batchResult.hasFailures());
+            assertEquals(pageIds, List.copyOf(batchResult.getResults().keySet()));
+        }
+    }
+
+    @Test
+    void writesTheSameBytesToChannelsAsTheMarkdownString() throws Exception {
+        server = FakeNotionServer.builder().build().start();
+        String pageId = NotionFixtures.id(1, 0);
+        server.addGeneratedPage(pageId, PageShape.TYPICAL, 1);
+
+        try (MarkdownConverter converter = converter(null)) {
+            List<MdBlocks> mdBlocks = new ArrayList<>(converter.pageToMarkdownBlocks(pageId));
+            mdBlocks.add(new MdBlocks("end", MdBlockKind.PARAGRAPH, "Ends with \uD83D\uDE00 and \uD83D", List.of()));
+            byte[] expected = converter.toMarkdownString(mdBlocks).getBytes(StandardCharsets.UTF_8);
+
+            for (int i = 0; i < 2; i++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                converter.writeMarkdown(mdBlocks, Channels.newChannel(out));
+                assertArrayEquals(expected, out.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    void servesRepeatedConversionsFromDiskCache() throws Exception {
+        server = FakeNotionServer.builder().build().start();
+        String pageId = NotionFixtures.id(1, 0);
+        server.addGeneratedPage(pageId, PageShape.TYPICAL, 1);
+
+        try (DiskBlockCache cache = DiskBlockCache.open(directory);
+             MarkdownConverter converter = converter(cache)) {
+            String first = converter.toMarkdownString(converter.pageToMarkdownBlocks(pageId));
+            long firstRequests = server.getRequestCount();
+            String second = converter.toMarkdownString(converter.pageToMarkdownBlocks(pageId));
+            String streamed;
+            try (Stream<MdBlocks> mdBlocks = converter.streamMarkdownBlocks(pageId)) {
+                streamed = converter.toMarkdownString(mdBlocks.collect(Collectors.toList()));
+            }
+
+            assertEquals(first, second);
+            assertEquals(first, streamed);
+            assertEquals(firstRequests + 2, server.getRequestCount(), "only the page itself is requested again");
+        }
+    }
+
+    @Test
+    void refetchesThePageBlocksOnceThePageIsEdited() throws Exception {
+        server = FakeNotionServer.builder().build().start();
+        String pageId = NotionFixtures.id(1, 0);
+        server.addGeneratedPage(pageId, PageShape.SMALL, 1);
+
+        try (DiskBlockCache cache = DiskBlockCache.open(directory);
+             MarkdownConverter converter = converter(cache)) {
+            String before = converter.toMarkdownString(converter.pageToMarkdownBlocks(pageId));
+            server.editPage(pageId, Instant.parse("2024-01-02T00:00:00Z"),
+                    NotionFixtures.blockJsons(PageShape.SMALL, 1).subList(0, 2));
+            String after = converter.toMarkdownString(converter.pageToMarkdownBlocks(pageId));
+
+            assertNotEquals(before, after);
+        }
+    }
+
+    private MarkdownConverter converter(DiskBlockCache cache) {
+        return MarkdownConverter.builder()
+                .token("secret_test")
+                .baseUrl(server.getBaseUrl())
+                .maxConcurrency(1)
+                .diskCache(cache)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package adaptor.notion;
+
+import adaptor.notion.domain.PageResult;
+import adaptor.notion.testing.FakeNotionServer;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SyncSchedulerTest {
+    private static final String PAGE_ID = NotionFixtures.id(1, 0);
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private FakeNotionServer server;
+    private MarkdownConverter converter;
+    private SyncScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeNotionServer.builder().build().addGeneratedPage(PAGE_ID, PageShape.SMALL, 1).start();
+        converter = MarkdownConverter.builder().token("secret_test").baseUrl(server.getBaseUrl()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+        converter.close();
+        server.close();
+    }
+
+    @Test
+    void convertsPagesWhenTheyAreEdited() {
+        List<PageResult> converted = new CopyOnWriteArrayList<>();
+        scheduler = scheduler(converted::add);
+        scheduler.add(PAGE_ID);
+        scheduler.start();
+
+        awaitUntil(() -> scheduler.getConversionCount() == 1);
+        server.editPage(PAGE_ID, Instant.parse("2024-01-02T00:00:00Z"), NotionFixtures.blockJsons(PageShape.SMALL, 2));
+        awaitUntil(() -> scheduler.getConversionCount() == 2);
+
+        assertEquals(2, converted.size());
+        assertTrue(converted.get(1).isSuccess());
+        assertTrue(converted.get(1).getMdBlocks().stream()
+                .anyMatch(mdBlock -> NotionFixtures.id(2, 0).equals(mdBlock.getBlockId())));
+    }
+
+    @Test
+    void checksUnchangedPagesWithoutConvertingThem() {
+        scheduler = scheduler(pageResult -> { });
+        scheduler.add(PAGE_ID);
+        scheduler.start();
+
+        awaitUntil(() -> scheduler.getCheckCount() >= 3);
+
+        assertEquals(1, scheduler.getConversionCount());
+        assertEquals(1, scheduler.getPageCount());
+    }
+
+    @Test
+    void convertsPagesAgainWhenTheListenerFails() {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<PageResult> accepted = new CopyOnWriteArrayList<>();
+        scheduler = scheduler(pageResult -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("cannot store page");
+            }
+            accepted.add(pageResult);
+        });
+        scheduler.add(PAGE_ID);
+        scheduler.start();
+
+        awaitUntil(() -> scheduler.getConversionCount() == 1);
+
+        assertEquals(1, accepted.size());
+        assertTrue(scheduler.getCheckCount() >= 2);
+    }
+
+    @Test
+    void stopsCheckingRemovedPages() {
+        scheduler = scheduler(pageResult -> { });
+        scheduler.add(PAGE_ID);
+        scheduler.start();
+        awaitUntil(() -> scheduler.getConversionCount() == 1);
+
+        scheduler.remove(PAGE_ID);
+        awaitUntil(() -> scheduler.getActiveWorkers() == 0);
+        long checks = scheduler.getCheckCount();
+        sleep(Duration.ofMillis(200));
+
+        assertEquals(0, scheduler.getPageCount());
+        assertEquals(checks, scheduler.getCheckCount());
+    }
+
+    private SyncScheduler scheduler(Consumer<PageResult> listener) {
+        return SyncScheduler.builder()
+                .converter(converter)
+                .listener(listener)
+                .workers(2)
+                .minInterval(Duration.ofMillis(20))
+                .maxInterval(Duration.ofMillis(50))
+                .jitter(0)
+                .build();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within " + TIMEOUT);
+            }
+            sleep(Duration.ofMillis(10));
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package adaptor.notion;
+
+import adaptor.notion.domain.CrawlResult;
+import adaptor.notion.journal.ExportJournal;
+import adaptor.notion.testing.FakeNotionServer;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkspaceCrawlerTest {
+    private static final String ROOT_ID = NotionFixtures.id(1, 0);
+    private static final String CHILD_ID = NotionFixtures.id(2, 0);
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    Path directory;
+
+    private FakeNotionServer server;
+    private MarkdownConverter converter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = FakeNotionServer.builder().build().start();
+        List<String> rootBlocks = new ArrayList<>(NotionFixtures.blockJsons(PageShape.SMALL, 1));
+        rootBlocks.add(NotionFixtures.blockJson(CHILD_ID, "child_page", "{\"title\":\"Child\"}", true));
+        server.addPage(ROOT_ID, NotionFixtures.pageJson(ROOT_ID, "Root"), rootBlocks)
+                .addPage(CHILD_ID, NotionFixtures.pageJson(CHILD_ID, "Child"), NotionFixtures.blockJsons(PageShape.SMALL, 2));
+        converter = MarkdownConverter.builder()
+                .token("secret_test")
+                .baseUrl(server.getBaseUrl())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        converter.close();
+        server.close();
+    }
+
+    @Test
+    void exportsSubPagesBesideTheirParent() throws Exception {
+        CrawlResult crawlResult = crawl(null);
+
+        assertTrue(crawlResult.getFailures().isEmpty());
+        assertEquals(Path.of("Root.md"), crawlResult.getPages().get(ROOT_ID));
+        assertEquals(Path.of("Root", "Child.md"), crawlResult.getPages().get(CHILD_ID));
+        assertTrue(Files.isRegularFile(output().resolve("Root").resolve("Child.md")));
+    }
+
+    @Test
+    void resumesFromACompletedJournalWithoutRequests() throws Exception {
+        Path journalFile = directory.resolve("export.journal");
+        try (ExportJournal journal = ExportJournal.open(journalFile)) {
+            crawl(journal);
+        }
+        long requests = server.getRequestCount();
+
+        CrawlResult crawlResult;
+        try (ExportJournal journal = ExportJournal.open(journalFile)) {
+            assertTrue(journal.getPending().isEmpty());
+            crawlResult = assertTimeoutPreemptively(TIMEOUT, () -> crawl(journal));
+        }
+
+        assertEquals(requests, server.getRequestCount());
+        assertEquals(2, crawlResult.getPages().size());
+        assertTrue(crawlResult.getFailures().isEmpty());
+    }
+
+    @Test
+    void exportsMissingAndChangedFilesAgainOnResume() throws Exception {
+        Path journalFile = directory.resolve("export.journal");
+        try (ExportJournal journal = ExportJournal.open(journalFile)) {
+            crawl(journal);
+        }
+        Path rootFile = output().resolve("Root.md");
+        Path childFile = output().resolve("Root").resolve("Child.md");
+        String root = Files.readString(rootFile);
+        Files.writeString(rootFile, "edited by hand");
+        Files.delete(childFile);
+        long requests = server.getRequestCount();
+
+        CrawlResult crawlResult;
+        try (ExportJournal journal = ExportJournal.open(journalFile)) {
+            crawlResult = assertTimeoutPreemptively(TIMEOUT, () -> crawl(journal));
+        }
+
+        assertTrue(server.getRequestCount() > requests);
+        assertEquals(Path.of("Root.md"), crawlResult.getPages().get(ROOT_ID));
+        assertEquals(Path.of("Root", "Child.md"), crawlResult.getPages().get(CHILD_ID));
+        assertEquals(root, Files.readString(rootFile));
+        assertTrue(Files.isRegularFile(childFile));
+    }
+
+    private CrawlResult crawl(ExportJournal journal) {
+        return WorkspaceCrawler.builder()
+                .converter(converter)
+                .outputDirectory(output())
+                .maxConcurrency(2)
+                .journal(journal)
+                .build()
+                .crawl(ROOT_ID);
+    }
+
+    private Path output() {
+        return directory.resolve("out");
+    }
+}
@@ -0,0 +1,161 @@
+package adaptor.notion.asset;
+
+import adaptor.notion.domain.MdBlockKind;
+import adaptor.notion.domain.MdBlocks;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssetPipelineTest {
+    private static final String NOTION_FILE = "https://prod-files-secure.s3.us-west-2.amazonaws.com/space/block/image.png";
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, ignored -> new AtomicInteger()).incrementAndGet();
+            byte[] body = path.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(path.contains("missing") ? 404 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void dropsTheSignatureOfNotionHostedFiles() {
+        assertEquals(NOTION_FILE, AssetPipeline.assetKey(NOTION_FILE
+                + "?X-Amz-Algorithm=AWS4-HMAC-SHA256&X-Amz-Credential=key&X-Amz-Date=20240101T000000Z"
+                + "&X-Amz-Expires=3600&X-Amz-Signature=abc&X-Amz-SignedHeaders=host&x-id=GetObject"));
+        assertEquals(NOTION_FILE + "?version=2&size=large",
+                AssetPipeline.assetKey(NOTION_FILE + "?x-amz-signature=abc&version=2&&X-ID=GetObject&size=large"));
+        assertEquals("https://s3.us-west-2.amazonaws.com/secure.notion-static.com/file.pdf",
+                AssetPipeline.assetKey("https://s3.us-west-2.amazonaws.com/secure.notion-static.com/file.pdf"
+                        + "?X-Amz-Signature=abc"));
+    }
+
+    @Test
+    void keepsOtherUrlsWhole() {
+        assertEquals("https://example.com/image.png?X-Amz-Signature=abc",
+                AssetPipeline.assetKey("https://example.com/image.png?X-Amz-Signature=abc"));
+        assertEquals("https://example.com/image.png?id=1", AssetPipeline.assetKey("https://example.com/image.png?id=1"));
+        assertEquals(NOTION_FILE, AssetPipeline.assetKey(NOTION_FILE));
+    }
+
+    @Test
+    void pointsAssetLinksAtTheStoredFiles() throws Exception {
+        String image = baseUrl + "/image.png";
+        String missing = baseUrl + "/missing.pdf";
+        MdBlocks paragraph = new MdBlocks("p", MdBlockKind.PARAGRAPH, "[link](" + image + ")", List.of());
+        List<MdBlocks> mdBlocks = List.of(
+                new MdBlocks("i", MdBlockKind.IMAGE, "![Image](" + image + ")", List.of()),
+                new MdBlocks("t", MdBlockKind.TOGGLE, "<details>", List.of(
+                        new MdBlocks("f", MdBlockKind.FILE, "[File](" + missing + ")", List.of()),
+                        new MdBlocks("i2", MdBlockKind.IMAGE, "![Image](" + image + ")", List.of()))),
+                paragraph);
+
+        try (AssetPipeline assets = AssetPipeline.builder().directory(directory).linkPrefix("assets/").build()) {
+            List<MdBlocks> localized = assets.localize(mdBlocks).get();
+
+            Path stored = assets.fetch(image).get();
+            String localLink = "assets/" + stored.toString().replace('\\', '/');
+            assertEquals("![Image](" + localLink + ")", localized.get(0).getContent());
+            assertEquals("[File](" + missing + ")", localized.get(1).getChildren().get(0).getContent());
+            assertEquals("![Image](" + localLink + ")", localized.get(1).getChildren().get(1).getContent());
+            assertSame(paragraph, localized.get(2));
+            assertEquals("/image.png", Files.readString(directory.resolve(stored)));
+            assertEquals(1, requests.get("/image.png").get());
+        }
+    }
+
+    @Test
+    void leavesBlocksWithoutRemoteAssetsUnchanged() throws Exception {
+        List<MdBlocks> mdBlocks = List.of(new MdBlocks("i", MdBlockKind.IMAGE, "![Image](assets/local.png)", List.of()));
+
+        try (AssetPipeline assets = AssetPipeline.builder().directory(directory).build()) {
+            assertSame(mdBlocks, assets.localize(mdBlocks).get());
+            assertEquals(0, assets.size());
+        }
+    }
+
+    @Test
+    void downloadsEachSignedFileOnce() throws Exception {
+        String file = baseUrl + "/prod-files-secure/image.png";
+
+        try (AssetPipeline assets = AssetPipeline.builder().directory(directory).build()) {
+            Path first = assets.fetch(file + "?X-Amz-Signature=1").get();
+            Path second = assets.fetch(file + "?X-Amz-Signature=2").get();
+
+            assertEquals(first, second);
+            assertEquals(1, requests.get("/prod-files-secure/image.png").get());
+            assertEquals(1, assets.size());
+        }
+    }
+
+    @Test
+    void forgetsTheLeastRecentlyUsedAssetsBeyondTheLimit() throws Exception {
+        try (AssetPipeline assets = AssetPipeline.builder().directory(directory).maxCachedAssets(2).build()) {
+            for (String name : List.of("a", "b", "a", "c", "b")) {
+                assets.fetch(baseUrl + "/" + name + ".png").get();
+            }
+
+            assertEquals(1, requests.get("/a.png").get());
+            assertEquals(2, requests.get("/b.png").get());
+            assertEquals(1, requests.get("/c.png").get());
+            assertTrue(assets.size() <= 2);
+        }
+    }
+
+    @Test
+    void downloadsFailedAssetsAgain() throws Exception {
+        String missing = baseUrl + "/missing.png";
+
+        try (AssetPipeline assets = AssetPipeline.builder().directory(directory).build()) {
+            assertThrows(Exception.class, () -> assets.fetch(missing).get());
+            assertThrows(Exception.class, () -> assets.fetch(missing).get());
+
+            assertEquals(2, requests.get("/missing.png").get());
+            assertEquals(0, assets.size());
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> AssetPipeline.builder().maxCachedAssets(0));
+        assertThrows(IllegalArgumentException.class, () -> AssetPipeline.builder().build());
+    }
+}
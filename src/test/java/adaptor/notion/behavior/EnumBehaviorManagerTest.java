@@ -0,0 +1,93 @@
+package adaptor.notion.behavior;
+
+import adaptor.notion.testing.NotionFixtures;
+import notion.api.v1.json.GsonSerializer;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.BlockType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EnumBehaviorManagerTest {
+    private static final GsonSerializer SERIALIZER = new GsonSerializer(false);
+
+    @Test
+    void rendersTableHeaderSeparators() {
+        assertEquals("| --- | --- | --- |", render("table", "{\"table_width\":3,\"has_column_header\":true}"));
+        assertEquals("| --- |", render("table", "{}"));
+    }
+
+    @Test
+    void rendersTableRowsEscapingPipesAndLineBreaks() {
+        String cells = "{\"cells\":[[" + text("a|b", null) + "],[" + text("line\\nbreak", null) + "],[]"
+                + ",[" + text("bold", "\"bold\":true") + "," + text(" tail", null) + "]]}";
+
+        assertEquals("| a\\|b | line<br>break |  | **bold** tail |", render("table_row", cells));
+    }
+
+    @Test
+    void rendersToggleSummaries() {
+        assertEquals("<details>\n<summary>*More*</summary>",
+                render("toggle", "{\"rich_text\":[" + text("More", "\"italic\":true") + "],\"color\":\"default\"}"));
+    }
+
+    @Test
+    void rendersCalloutsWithTheirEmoji() {
+        String emoji = "{\"rich_text\":[" + text("Note", null) + "]"
+                + ",\"icon\":{\"type\":\"emoji\",\"emoji\":\"\\ud83d\\udca1\"},\"color\":\"gray_background\"}";
+        String external = "{\"rich_text\":[" + text("Note", null) + "]"
+                + ",\"icon\":{\"type\":\"external\",\"external\":{\"url\":\"https://example.com/i.png\"}}}";
+
+        assertEquals("> \uD83D\uDCA1 Note", render("callout", emoji));
+        assertEquals("> Note", render("callout", external));
+        assertEquals("> Note", render("callout", "{\"rich_text\":[" + text("Note", null) + "]}"));
+    }
+
+    @Test
+    void rendersNothingForColumns() {
+        assertEquals("", render("column_list", "{}"));
+        assertEquals("", render("column", "{}"));
+    }
+
+    @Test
+    void rendersCodeWithItsLanguage() {
+        assertEquals("```kotlin\nval x = 1\n```",
+                render("code", "{\"rich_text\":[" + text("val x = 1", null) + "],\"language\":\"kotlin\",\"caption\":[]}"));
+        assertEquals("```\nplain\n```", render("code", "{\"rich_text\":[" + text("plain", null) + "],\"caption\":[]}"));
+    }
+
+    @Test
+    void rendersToDosAndEquations() {
+        assertEquals("- [x] done", render("to_do", "{\"rich_text\":[" + text("done", null) + "],\"checked\":true}"));
+        assertEquals("- [ ] open", render("to_do", "{\"rich_text\":[" + text("open", null) + "],\"checked\":false}"));
+        assertEquals("$$\ne=mc^2\n$$", render("equation", "{\"expression\":\"e=mc^2\"}"));
+    }
+
+    @Test
+    void rejectsTypesWithoutBehavior() {
+        Block block = block("breadcrumb", "{}");
+
+        assertThrows(IllegalArgumentException.class, () -> EnumBehaviorManager.executeBehavior(block.getType(), block));
+    }
+
+    private static String render(String type, String payload) {
+        Block block = block(type, payload);
+        return EnumBehaviorManager.executeBehavior(block.getType(), block);
+    }
+
+    private static Block block(String type, String payload) {
+        Block block = SERIALIZER.toBlock(NotionFixtures.blockJson(NotionFixtures.id(6, 0), type, payload, false));
+        assertEquals(type, block.getType() == null ? null : block.getType().getValue());
+        return block;
+    }
+
+    /**
+     * @param annotations JSON members of the annotations object, or null for none
+     */
+    static String text(String content, String annotations) {
+        return "{\"type\":\"text\",\"text\":{\"content\":\"" + content + "\",\"link\":null}"
+                + (annotations == null ? "" : ",\"annotations\":{" + annotations + "}")
+                + ",\"plain_text\":\"" + content + "\",\"href\":null}";
+    }
+}
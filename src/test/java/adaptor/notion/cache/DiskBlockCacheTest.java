@@ -0,0 +1,91 @@
+package adaptor.notion.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskBlockCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void servesEntriesAfterReopening() throws Exception {
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            cache.put("token|block|null|100", "{\"results\":[]}");
+            assertEquals("{\"results\":[]}", cache.get("token|block|null|100"));
+        }
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            assertEquals(1, cache.size());
+            assertEquals("{\"results\":[]}", cache.get("token|block|null|100"));
+            assertNull(cache.get("token|other|null|100"));
+        }
+    }
+
+    @Test
+    void replacesEntries() throws Exception {
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            cache.put("key", "old");
+            cache.put("key", "new");
+            assertEquals("new", cache.get("key"));
+        }
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            assertEquals("new", cache.get("key"));
+        }
+    }
+
+    @Test
+    void expiresEntries() throws Exception {
+        try (DiskBlockCache cache = DiskBlockCache.open(directory, Duration.ofMillis(1), DiskBlockCache.DEFAULT_MAX_BYTES)) {
+            cache.put("key", "value");
+            Thread.sleep(20);
+            assertNull(cache.get("key"));
+        }
+    }
+
+    @Test
+    void readsEntriesAppendedPastTheMappedChunk() throws Exception {
+        String value = "x".repeat(64 * 1024);
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            for (int i = 0; i < 48; i++) {
+                cache.put("key" + i, value + i);
+                assertEquals(value + i, cache.get("key" + i));
+                assertEquals(value + 0, cache.get("key0"));
+            }
+        }
+        assertEquals(Files.size(directory.resolve("blocks.seg")), sizeAfterReopening());
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            assertEquals(48, cache.size());
+            assertEquals(value + 47, cache.get("key47"));
+        }
+    }
+
+    @Test
+    void ignoresThePaddingOfASegmentThatWasNotClosed() throws Exception {
+        Path copy = directory.resolve("copy");
+        Files.createDirectories(copy);
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            cache.put("key", "value");
+            assertEquals("value", cache.get("key"));
+            assertTrue(Files.size(directory.resolve("blocks.seg")) > cache.sizeInBytes());
+            Files.copy(directory.resolve("blocks.seg"), copy.resolve("blocks.seg"));
+        }
+        try (DiskBlockCache cache = DiskBlockCache.open(copy)) {
+            assertEquals(cache.sizeInBytes(), Files.size(copy.resolve("blocks.seg")));
+            assertEquals(1, cache.size());
+            assertEquals("value", cache.get("key"));
+        }
+    }
+
+    private long sizeAfterReopening() throws Exception {
+        try (DiskBlockCache cache = DiskBlockCache.open(directory)) {
+            return cache.sizeInBytes();
+        }
+    }
+}
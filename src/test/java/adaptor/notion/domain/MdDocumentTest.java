@@ -0,0 +1,88 @@
+package adaptor.notion.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MdDocumentTest {
+
+    @Test
+    void roundTripsNestedBlocks() {
+        List<MdBlocks> mdBlocks = List.of(
+                new MdBlocks("0", MdBlockKind.PAGE_TITLE, "# Title", List.of()),
+                new MdBlocks("a", MdBlockKind.NUMBERED_LIST_ITEM, "1. first", List.of(
+                        new MdBlocks("a1", MdBlockKind.BULLETED_LIST_ITEM, "- nested", List.of(
+                                new MdBlocks("a11", MdBlockKind.PARAGRAPH, "deepest", List.of()))),
+                        new MdBlocks("a2", MdBlockKind.CODE, "```java\nint x;\n```", List.of()))),
+                new MdBlocks("b", MdBlockKind.DIVIDER, "---", List.of()),
+                new MdBlocks("c", MdBlockKind.TOGGLE, "", List.of(
+                        new MdBlocks("c1", MdBlockKind.PARAGRAPH, "\u00E9\uD83D\uDE00", List.of()))));
+
+        MdDocument document = MdDocument.of(mdBlocks);
+
+        assertEquals(mdBlocks, document.toMdBlocks());
+        assertEquals(8, document.size());
+    }
+
+    @Test
+    void exposesBlocksAsPreOrderRows() {
+        MdDocument document = MdDocument.of(List.of(
+                new MdBlocks("a", MdBlockKind.TOGGLE, "toggle", List.of(
+                        new MdBlocks("a1", MdBlockKind.PARAGRAPH, "inside", List.of()))),
+                new MdBlocks("b", MdBlockKind.QUOTE, "> quote", List.of())));
+
+        assertEquals("a1", document.getBlockId(1));
+        assertEquals(MdBlockKind.PARAGRAPH, document.getKind(1));
+        assertEquals("inside", document.getContent(1));
+        assertEquals(2, document.getSubtreeEnd(0));
+        assertEquals(3, document.getSubtreeEnd(2));
+        assertEquals("atogglea1insideb> quote".length(), document.textLength());
+    }
+
+    @Test
+    void materializesOneTopLevelBlockAtATime() {
+        List<MdBlocks> mdBlocks = List.of(
+                new MdBlocks("a", MdBlockKind.PARAGRAPH, "first", List.of()),
+                new MdBlocks("b", MdBlockKind.BULLETED_LIST_ITEM, "- second", List.of(
+                        new MdBlocks("b1", MdBlockKind.BULLETED_LIST_ITEM, "- child", List.of()))));
+
+        List<MdBlocks> iterated = new ArrayList<>();
+        MdDocument.of(mdBlocks).forEach(iterated::add);
+
+        assertEquals(mdBlocks, iterated);
+    }
+
+    @Test
+    void roundTripsEmptyAndDefaultedValues() {
+        MdBlocks typed = MdBlocks.ofType("t", "not_a_notion_type", null, null);
+        List<MdBlocks> mdBlocks = List.of(typed, new MdBlocks(null, null, "", List.of()));
+
+        List<MdBlocks> roundTripped = MdDocument.of(mdBlocks).toMdBlocks();
+
+        assertEquals(MdBlockKind.UNSUPPORTED, typed.getKind());
+        assertEquals(typed, roundTripped.get(0));
+        assertEquals(new MdBlocks("", MdBlockKind.UNSUPPORTED, "", List.of()), roundTripped.get(1));
+        assertTrue(MdDocument.of(List.of()).toMdBlocks().isEmpty());
+        assertFalse(MdDocument.of(List.of()).iterator().hasNext());
+    }
+
+    @Test
+    void readsLegacyTypeNames() {
+        MdBlocks mdBlock = MdBlocks.ofType("h", "heading_2", "## Heading", List.of());
+
+        assertEquals(MdBlockKind.HEADING_2, mdBlock.getKind());
+        assertEquals("heading_2", mdBlock.getType());
+        assertEquals(mdBlock, MdDocument.of(List.of(mdBlock)).toMdBlocks().get(0));
+    }
+
+    @Test
+    void rejectsNullBlocks() {
+        assertThrows(IllegalArgumentException.class, () -> MdDocument.of(null));
+    }
+}
@@ -0,0 +1,120 @@
+package adaptor.notion.http;
+
+import adaptor.notion.cache.DiskBlockCache;
+import adaptor.notion.log.NotionLoggerWrapper;
+import adaptor.notion.testing.FakeNotionServer;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import notion.api.v1.http.NotionHttpResponse;
+import notion.api.v1.logging.NotionLogger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CachingHttpClientTest {
+    private static final String PAGE_ID = NotionFixtures.id(9, 1);
+    private static final NotionLogger LOGGER = new NotionLoggerWrapper();
+    private static final Map<String, List<String>> QUERY = Map.of("page_size", List.of("100"));
+
+    @TempDir
+    Path directory;
+
+    private FakeNotionServer server;
+    private DiskBlockCache cache;
+    private CachingHttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeNotionServer.builder().build().addGeneratedPage(PAGE_ID, PageShape.SMALL, 1).start();
+        cache = DiskBlockCache.open(directory);
+        client = new CachingHttpClient(new JavaNetHttpClient(), cache);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        cache.close();
+        server.close();
+    }
+
+    @Test
+    void servesRepeatedBlockChildrenFromCache() {
+        NotionHttpResponse first = getChildren("secret_a");
+        NotionHttpResponse second = getChildren("secret_a");
+
+        assertEquals(200, first.getStatus());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void keysEntriesByToken() {
+        getChildren("secret_a");
+        getChildren("secret_b");
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void keysEntriesByParentVersion() {
+        CachingHttpClient first = client.forParentVersion("2024-01-01T00:00:00.000Z", CachingHttpClient.Mode.CACHED);
+        CachingHttpClient edited = client.forParentVersion("2024-01-02T00:00:00.000Z", CachingHttpClient.Mode.CACHED);
+
+        getChildren(first, "secret_a");
+        getChildren(first, "secret_a");
+        getChildren(edited, "secret_a");
+        getChildren(client, "secret_a");
+
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void refreshingReplacesCachedEntries() {
+        String before = getChildren("secret_a").getBody();
+        server.editPage(PAGE_ID, Instant.parse("2024-01-02T00:00:00Z"), NotionFixtures.blockJsons(PageShape.SMALL, 2));
+
+        String refreshed = getChildren(client.forParentVersion(null, CachingHttpClient.Mode.REFRESH), "secret_a").getBody();
+        String cached = getChildren("secret_a").getBody();
+
+        assertNotEquals(before, refreshed);
+        assertEquals(refreshed, cached);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void answersMissesWithoutContactingNotionWhenOnlyCachedEntriesAreWanted() {
+        CachingHttpClient onlyIfCached = client.forParentVersion("2024-01-01T00:00:00.000Z",
+                CachingHttpClient.Mode.ONLY_IF_CACHED);
+
+        assertEquals(504, getChildren(onlyIfCached, "secret_a").getStatus());
+        getChildren(client.forParentVersion("2024-01-01T00:00:00.000Z", CachingHttpClient.Mode.CACHED), "secret_a");
+
+        assertEquals(200, getChildren(onlyIfCached, "secret_a").getStatus());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void keepsTheDelegateOpenWhenAVersionedClientIsClosed() {
+        client.forParentVersion(null, CachingHttpClient.Mode.CACHED).close();
+
+        assertEquals(200, getChildren("secret_a").getStatus());
+    }
+
+    private NotionHttpResponse getChildren(String token) {
+        return getChildren(client, token);
+    }
+
+    private NotionHttpResponse getChildren(CachingHttpClient cachingClient, String token) {
+        return cachingClient.get(LOGGER, server.getBaseUrl() + "/blocks/" + PAGE_ID + "/children", QUERY,
+                Map.of("Authorization", "Bearer " + token));
+    }
+}
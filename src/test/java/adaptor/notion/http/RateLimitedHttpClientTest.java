@@ -0,0 +1,122 @@
+package adaptor.notion.http;
+
+import notion.api.v1.http.NotionHttpResponse;
+import notion.api.v1.logging.NotionLogger;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitedHttpClientTest {
+
+    @Test
+    void retriesRateLimitedResponses() {
+        ScriptedHttpClient delegate = new ScriptedHttpClient(rateLimited("0"), rateLimited("0"), ok());
+        RateLimiter rateLimiter = fastLimiter().maxRetries(5).build();
+
+        NotionHttpResponse response = new RateLimitedHttpClient(delegate, rateLimiter)
+                .get(null, "https://api.notion.com/v1/pages/p", Map.of(), Map.of());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(3, delegate.calls);
+        assertEquals(0, rateLimiter.getInFlight());
+    }
+
+    @Test
+    void returnsTheRateLimitedResponseAfterTheLastRetry() {
+        ScriptedHttpClient delegate = new ScriptedHttpClient(rateLimited("0"), rateLimited("0"), rateLimited("0"));
+
+        NotionHttpResponse response = new RateLimitedHttpClient(delegate, fastLimiter().maxRetries(1).build())
+                .get(null, "https://api.notion.com/v1/pages/p", Map.of(), Map.of());
+
+        assertEquals(429, response.getStatus());
+        assertEquals(2, delegate.calls);
+    }
+
+    @Test
+    void readsRetryAfterInSeconds() {
+        assertEquals(TimeUnit.SECONDS.toNanos(2), RateLimitedHttpClient.retryAfterNanos(rateLimited("2")));
+    }
+
+    @Test
+    void readsRetryAfterAsAnHttpDate() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.now().plusSeconds(60).atOffset(ZoneOffset.UTC));
+
+        long retryAfter = RateLimitedHttpClient.retryAfterNanos(rateLimited(date));
+
+        assertTrue(retryAfter > TimeUnit.SECONDS.toNanos(55) && retryAfter <= TimeUnit.SECONDS.toNanos(60),
+                "unexpected pause: " + retryAfter);
+    }
+
+    @Test
+    void treatsAPastHttpDateAsNoPause() {
+        assertEquals(0, RateLimitedHttpClient.retryAfterNanos(rateLimited("Wed, 21 Oct 2015 07:28:00 GMT")));
+    }
+
+    @Test
+    void fallsBackToTheDefaultPauseForMalformedRetryAfter() {
+        assertEquals(TimeUnit.SECONDS.toNanos(1), RateLimitedHttpClient.retryAfterNanos(rateLimited("soon")));
+        assertEquals(0, RateLimitedHttpClient.retryAfterNanos(ok()));
+    }
+
+    private static RateLimiter.Builder fastLimiter() {
+        return RateLimiter.builder().requestsPerSecond(1_000).burst(1_000);
+    }
+
+    private static NotionHttpResponse rateLimited(String retryAfter) {
+        return new NotionHttpResponse(429, "{}", Map.of("Retry-After", List.of(retryAfter)));
+    }
+
+    private static NotionHttpResponse ok() {
+        return new NotionHttpResponse(200, "{}", Map.of());
+    }
+
+    private static final class ScriptedHttpClient extends ForwardingHttpClient {
+        private final Deque<NotionHttpResponse> responses;
+        private int calls;
+
+        private ScriptedHttpClient(NotionHttpResponse... responses) {
+            this.responses = new ArrayDeque<>(List.of(responses));
+        }
+
+        private NotionHttpResponse next() {
+            calls++;
+            return responses.size() > 1 ? responses.poll() : responses.peek();
+        }
+
+        @Override
+        public NotionHttpResponse get(NotionLogger logger, String url,
+                                      Map<String, ? extends List<String>> query, Map<String, String> headers) {
+            return next();
+        }
+
+        @Override
+        public NotionHttpResponse postTextBody(NotionLogger logger, String url,
+                                               Map<String, ? extends List<String>> query, String body,
+                                               Map<String, String> headers) {
+            return next();
+        }
+
+        @Override
+        public NotionHttpResponse patchTextBody(NotionLogger logger, String url,
+                                                Map<String, ? extends List<String>> query, String body,
+                                                Map<String, String> headers) {
+            return next();
+        }
+
+        @Override
+        public NotionHttpResponse delete(NotionLogger logger, String url,
+                                         Map<String, ? extends List<String>> query, Map<String, String> headers) {
+            return next();
+        }
+    }
+}
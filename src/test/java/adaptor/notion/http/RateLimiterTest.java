@@ -0,0 +1,107 @@
+package adaptor.notion.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void halvesTheConcurrencyLimitOnRateLimitedResponsesAndRecoversAdditively() throws Exception {
+        RateLimiter rateLimiter = fastLimiter().maxConcurrency(8).build();
+
+        complete(rateLimiter, 429);
+        assertEquals(4, rateLimiter.getConcurrencyLimit());
+
+        complete(rateLimiter, 200);
+        assertEquals(4, rateLimiter.getConcurrencyLimit());
+
+        int successes = 1;
+        while (rateLimiter.getConcurrencyLimit() < 8) {
+            complete(rateLimiter, 200);
+            successes++;
+        }
+        assertTrue(successes >= 4 + 5 + 6 + 7 - 1, "grew faster than one per window: " + successes);
+
+        complete(rateLimiter, 200);
+        assertEquals(8, rateLimiter.getConcurrencyLimit());
+    }
+
+    @Test
+    void lowersTheConcurrencyLimitOnSlowResponses() throws Exception {
+        RateLimiter rateLimiter = fastLimiter().maxConcurrency(8).latencyThresholdMillis(10).build();
+
+        rateLimiter.acquire();
+        rateLimiter.release(200, TimeUnit.MILLISECONDS.toNanos(20), 0);
+
+        assertEquals(7, rateLimiter.getConcurrencyLimit());
+        assertEquals(0, rateLimiter.getInFlight());
+    }
+
+    @Test
+    void neverLowersTheConcurrencyLimitBelowOne() throws Exception {
+        RateLimiter rateLimiter = fastLimiter().maxConcurrency(2).build();
+
+        for (int i = 0; i < 5; i++) {
+            complete(rateLimiter, 429);
+        }
+
+        assertEquals(1, rateLimiter.getConcurrencyLimit());
+    }
+
+    @Test
+    void waitsForTheTokenWithoutHoldingASlot() throws Exception {
+        RateLimiter rateLimiter = RateLimiter.builder().requestsPerSecond(4).burst(1).maxConcurrency(1).build();
+        complete(rateLimiter, 200);
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+
+        assertEquals(0, rateLimiter.getInFlight());
+        waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(1, rateLimiter.getInFlight());
+    }
+
+    @Test
+    void acquiresWithAReservedTokenWithoutWaitingAgain() throws Exception {
+        RateLimiter rateLimiter = RateLimiter.builder().requestsPerSecond(1).burst(1).build();
+
+        assertEquals(0, rateLimiter.reserve());
+        assertTrue(rateLimiter.reserve() > TimeUnit.MILLISECONDS.toNanos(500));
+
+        long start = System.nanoTime();
+        rateLimiter.acquire();
+        rateLimiter.acquire();
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void givesBackRefundedTokens() {
+        RateLimiter rateLimiter = RateLimiter.builder().requestsPerSecond(1).burst(1).build();
+
+        assertEquals(0, rateLimiter.reserve());
+        rateLimiter.refund();
+
+        assertEquals(0, rateLimiter.reserve());
+    }
+
+    private static RateLimiter.Builder fastLimiter() {
+        return RateLimiter.builder().requestsPerSecond(1_000).burst(1_000);
+    }
+
+    private static void complete(RateLimiter rateLimiter, int status) throws InterruptedException {
+        rateLimiter.acquire();
+        rateLimiter.release(status, 0, 0);
+    }
+}
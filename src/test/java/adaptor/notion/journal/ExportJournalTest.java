@@ -0,0 +1,86 @@
+package adaptor.notion.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresProgressWhenReopened() throws Exception {
+        Path file = directory.resolve("export.journal");
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            assertTrue(journal.isEmpty());
+            journal.pending("page-a", "out/a");
+            journal.pending("page-b", "out/b");
+            journal.completed("page-a", "out/a.md", ExportJournal.hash("# A"));
+        }
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            assertTrue(journal.isCompleted("page-a"));
+            assertFalse(journal.isCompleted("page-b"));
+            assertEquals(Map.of("page-b", "out/b"), journal.getPending());
+            assertEquals("out/a.md", journal.getCompleted().get("page-a").getLocation());
+            assertEquals(ExportJournal.hash("# A"), journal.getCompleted().get("page-a").getOutputHash());
+        }
+    }
+
+    @Test
+    void keepsCompletedPagesCompleted() throws Exception {
+        Path file = directory.resolve("export.journal");
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            journal.completed("page-a", null, ExportJournal.hash(""));
+            journal.pending("page-a", "out/a");
+        }
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            assertTrue(journal.isCompleted("page-a"));
+            assertTrue(journal.getPending().isEmpty());
+        }
+    }
+
+    @Test
+    void escapesLocations() throws Exception {
+        Path file = directory.resolve("export.journal");
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            journal.pending("page-a", "out\\with\ttab\nand line");
+        }
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            assertEquals("out\\with\ttab\nand line", journal.getPending().get("page-a"));
+        }
+    }
+
+    @Test
+    void dropsTornRecordWhenReopened() throws Exception {
+        Path file = directory.resolve("export.journal");
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            journal.pending("page-a", "out/a");
+            journal.pending("page-b", "out/b");
+            journal.completed("page-b", "out/b.md", ExportJournal.hash("# B"));
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            assertFalse(journal.isCompleted("page-b"));
+            assertEquals(List.of("page-a", "page-b"), List.copyOf(journal.getPending().keySet()));
+            journal.completed("page-a", "out/a.md", ExportJournal.hash("# A"));
+        }
+        try (ExportJournal journal = ExportJournal.open(file)) {
+            assertTrue(journal.isCompleted("page-a"));
+            assertEquals(Map.of("page-b", "out/b"), journal.getPending());
+        }
+    }
+}
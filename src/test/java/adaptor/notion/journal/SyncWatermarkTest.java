@@ -0,0 +1,65 @@
+package adaptor.notion.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyncWatermarkTest {
+    private static final Instant WATERMARK = Instant.parse("2024-01-01T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsNoneWithoutFile() throws Exception {
+        assertSame(SyncWatermark.NONE, SyncWatermark.load(directory.resolve("missing")));
+    }
+
+    @Test
+    void loadsNoneFromUnreadableFile() throws Exception {
+        Path file = directory.resolve("watermark");
+        Files.writeString(file, "not a timestamp\npage-a\n");
+        assertSame(SyncWatermark.NONE, SyncWatermark.load(file));
+    }
+
+    @Test
+    void loadsSavedWatermark() throws Exception {
+        Path file = directory.resolve("sync/watermark");
+        new SyncWatermark(WATERMARK, Set.of("page-a")).save(file);
+
+        SyncWatermark watermark = SyncWatermark.load(file);
+
+        assertEquals(WATERMARK, watermark.getLastEditedTime());
+        assertEquals(Set.of("page-a"), watermark.getPageIds());
+        assertFalse(Files.exists(directory.resolve("sync/watermark.tmp")));
+    }
+
+    @Test
+    void tellsChangedPagesApart() {
+        SyncWatermark watermark = new SyncWatermark(WATERMARK, Set.of("page-a"));
+
+        assertTrue(watermark.isChanged("page-b", WATERMARK.plusSeconds(60)));
+        assertTrue(watermark.isChanged("page-b", WATERMARK));
+        assertFalse(watermark.isChanged("page-a", WATERMARK));
+        assertFalse(watermark.isChanged("page-b", WATERMARK.minusSeconds(60)));
+        assertTrue(SyncWatermark.NONE.isChanged("page-a", WATERMARK));
+    }
+
+    @Test
+    void ordersPagesBeforeWatermark() {
+        SyncWatermark watermark = new SyncWatermark(WATERMARK, Set.of());
+
+        assertTrue(watermark.isBefore(WATERMARK.minusSeconds(60)));
+        assertFalse(watermark.isBefore(WATERMARK));
+        assertFalse(SyncWatermark.NONE.isBefore(WATERMARK));
+    }
+}
@@ -0,0 +1,116 @@
+package adaptor.notion.json;
+
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import adaptor.notion.utils.NotionUtil;
+import notion.api.v1.json.GsonSerializer;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.Blocks;
+import notion.api.v1.model.databases.QueryResults;
+import notion.api.v1.model.pages.Page;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingJsonSerializerTest {
+    private static final String CALLOUT_PAYLOAD = "{\"rich_text\":[{\"type\":\"text\",\"text\":{\"content\":\"Note\",\"link\":null}"
+            + ",\"annotations\":{\"bold\":true,\"italic\":false,\"strikethrough\":false,\"underline\":false,\"code\":false"
+            + ",\"color\":\"default\"},\"plain_text\":\"Note\",\"href\":null}]"
+            + ",\"icon\":{\"type\":\"emoji\",\"emoji\":\"\\ud83d\\udca1\"},\"color\":\"gray_background\"}";
+
+    private final GsonSerializer gsonSerializer = new GsonSerializer(false);
+    private final StreamingJsonSerializer streamingSerializer = StreamingJsonSerializer.create();
+
+    @Test
+    void bindsBlocksLikeTheSdkSerializer() {
+        List<String> blocks = new ArrayList<>(NotionFixtures.blockJsons(PageShape.TYPICAL));
+        blocks.add(NotionFixtures.blockJson(NotionFixtures.id(2, 0), "callout", CALLOUT_PAYLOAD, true));
+        String json = NotionFixtures.blockListJson(blocks, "cursor");
+
+        Blocks expected = gsonSerializer.toBlocks(json);
+        Blocks actual = streamingSerializer.toBlocks(json);
+
+        assertEquals(expected.getNextCursor(), actual.getNextCursor());
+        assertEquals(expected.getHasMore(), actual.getHasMore());
+        assertEquals(expected.getResults().size(), actual.getResults().size());
+        for (int i = 0; i < expected.getResults().size(); i++) {
+            assertSameBlock(expected.getResults().get(i), actual.getResults().get(i));
+        }
+    }
+
+    @Test
+    void bindsBlocksWhoseTypeFollowsTheirContent() {
+        String json = "{\"object\":\"block\",\"id\":\"" + NotionFixtures.id(2, 1) + "\""
+                + ",\"callout\":" + CALLOUT_PAYLOAD + ",\"has_children\":false,\"type\":\"callout\"}";
+
+        assertSameBlock(gsonSerializer.toBlock(json), streamingSerializer.toBlock(json));
+    }
+
+    @Test
+    void bindsPagesWithoutTheirMetadata() {
+        String pageId = NotionFixtures.id(3, 0);
+        String json = NotionFixtures.pageListJson(List.of(NotionFixtures.pageJson(pageId, "Streaming page")), null);
+
+        Page expected = gsonSerializer.toQueryResults(json).getResults().get(0);
+        QueryResults results = streamingSerializer.toQueryResults(json);
+        Page actual = results.getResults().get(0);
+
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getLastEditedTime(), actual.getLastEditedTime());
+        assertEquals(expected.getUrl(), actual.getUrl());
+        assertEquals("Streaming page", NotionUtil.getPageTitle(actual.getProperties()));
+        assertNotNull(expected.getCreatedBy());
+        assertNull(actual.getCreatedBy());
+        assertNull(actual.getParent());
+    }
+
+    @Test
+    void keepsFieldsThatAreNotSkipped() {
+        String json = NotionFixtures.blockJson(NotionFixtures.id(2, 2), "divider", "{}", false);
+
+        Block block = StreamingJsonSerializer.create(Set.of()).toBlock(json);
+
+        assertEquals(NotionFixtures.id(0, 0), block.getCreatedBy().getId());
+        assertNotNull(block.getParent());
+    }
+
+    @Test
+    void usesTheSdkSerializerForUnknownBlockTypes() {
+        String json = NotionFixtures.blockListJson(List.of(
+                NotionFixtures.blockJson(NotionFixtures.id(2, 3), "not_a_block_type", "{}", false),
+                NotionFixtures.blockJson(NotionFixtures.id(2, 4), "divider", "{}", false)), null);
+
+        List<Block> expected = gsonSerializer.toBlocks(json).getResults();
+        List<Block> actual = streamingSerializer.toBlocks(json).getResults();
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i) == null ? null : expected.get(i).getClass(),
+                    actual.get(i) == null ? null : actual.get(i).getClass());
+        }
+    }
+
+    @Test
+    void rejectsNullSkippedFields() {
+        assertThrows(IllegalArgumentException.class, () -> StreamingJsonSerializer.create(null));
+    }
+
+    private static void assertSameBlock(Block expected, Block actual) {
+        assertSame(expected.getClass(), actual.getClass());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getHasChildren(), actual.getHasChildren());
+        assertEquals(expected.getLastEditedTime(), actual.getLastEditedTime());
+        assertEquals(NotionUtil.markdownParser(expected), NotionUtil.markdownParser(actual));
+        assertNull(actual.getCreatedBy());
+        assertNull(actual.getParent());
+    }
+}
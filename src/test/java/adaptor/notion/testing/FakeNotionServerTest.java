@@ -0,0 +1,131 @@
+package adaptor.notion.testing;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FakeNotionServerTest {
+    private static final String DATABASE_ID = NotionFixtures.id(7, 0);
+    private static final String FIRST_PAGE = NotionFixtures.id(1, 0);
+    private static final String SECOND_PAGE = NotionFixtures.id(2, 0);
+    private static final String THIRD_PAGE = NotionFixtures.id(3, 0);
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private FakeNotionServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = FakeNotionServer.builder().maxPageSize(2).build()
+                .addGeneratedPage(FIRST_PAGE, PageShape.SMALL, 1)
+                .addGeneratedPage(SECOND_PAGE, PageShape.SMALL, 2)
+                .addGeneratedPage(THIRD_PAGE, PageShape.SMALL, 3)
+                .addDatabaseRow(DATABASE_ID, THIRD_PAGE)
+                .addDatabaseRow(DATABASE_ID, FIRST_PAGE)
+                .addDatabaseRow(DATABASE_ID, SECOND_PAGE)
+                .start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void servesPagesWithOrWithoutDashes() throws Exception {
+        JsonObject page = get("/pages/" + FIRST_PAGE.replace("-", "")).getAsJsonObject();
+
+        assertEquals(FIRST_PAGE, page.get("id").getAsString());
+        assertEquals(404, send(HttpRequest.newBuilder(uri("/pages/" + NotionFixtures.id(9, 9))).GET()).statusCode());
+    }
+
+    @Test
+    void paginatesBlockChildren() throws Exception {
+        JsonObject first = get("/blocks/" + FIRST_PAGE + "/children").getAsJsonObject();
+        JsonObject second = get("/blocks/" + FIRST_PAGE + "/children?start_cursor="
+                + first.get("next_cursor").getAsString()).getAsJsonObject();
+
+        assertEquals(2, first.getAsJsonArray("results").size());
+        assertTrue(first.get("has_more").getAsBoolean());
+        assertEquals(NotionFixtures.id(1, 2), second.getAsJsonArray("results").get(0).getAsJsonObject().get("id").getAsString());
+    }
+
+    @Test
+    void queriesDatabaseRowsInOrder() throws Exception {
+        JsonObject first = post("/databases/" + DATABASE_ID + "/query", "{\"page_size\":100}");
+        JsonObject second = post("/databases/" + DATABASE_ID + "/query",
+                "{\"start_cursor\":\"" + first.get("next_cursor").getAsString() + "\"}");
+
+        assertEquals(List.of(THIRD_PAGE, FIRST_PAGE), ids(first.getAsJsonArray("results")));
+        assertEquals(List.of(SECOND_PAGE), ids(second.getAsJsonArray("results")));
+        assertFalse(second.get("has_more").getAsBoolean());
+    }
+
+    @Test
+    void searchesMostRecentlyEditedPagesFirst() throws Exception {
+        server.editPage(SECOND_PAGE, Instant.parse("2024-01-02T00:00:00Z"));
+
+        JsonObject results = post("/search", "{}");
+        JsonObject page = get("/pages/" + SECOND_PAGE).getAsJsonObject();
+
+        assertEquals(SECOND_PAGE, ids(results.getAsJsonArray("results")).get(0));
+        assertEquals("2024-01-02T00:00:00Z", page.get("last_edited_time").getAsString());
+    }
+
+    @Test
+    void injectsRateLimitedResponses() throws Exception {
+        try (FakeNotionServer limited = FakeNotionServer.builder().rateLimitProbability(1, 3).build().start()) {
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(limited.getBaseUrl() + "/pages/" + FIRST_PAGE)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(429, response.statusCode());
+            assertEquals("3", response.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(1, limited.getRateLimitedCount());
+        }
+    }
+
+    private JsonElement get(String path) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(path)).GET());
+        assertEquals(200, response.statusCode());
+        return JsonParser.parseString(response.body());
+    }
+
+    private JsonObject post(String path, String body) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)));
+        assertEquals(200, response.statusCode());
+        return JsonParser.parseString(response.body()).getAsJsonObject();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create(server.getBaseUrl() + path);
+    }
+
+    private static List<String> ids(JsonArray results) {
+        List<String> ids = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ids.add(results.get(i).getAsJsonObject().get("id").getAsString());
+        }
+        return ids;
+    }
+}
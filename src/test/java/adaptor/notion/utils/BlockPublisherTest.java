@@ -0,0 +1,256 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import notion.api.v1.json.GsonSerializer;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.blocks.Blocks;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockPublisherTest {
+    private static final GsonSerializer SERIALIZER = new GsonSerializer(false);
+    private static final Executor DIRECT = Runnable::run;
+    private static final MdBlocks TITLE = MdBlocks.ofType("title", "heading_1", "# Title", null);
+    private static final Supplier<CompletableFuture<MdBlocks>> TITLE_FUTURE = () -> CompletableFuture.completedFuture(TITLE);
+
+    @Test
+    void emitsBlocksInDocumentOrderWhateverOrderTheyConvertIn() {
+        List<String> blockJsons = blockJsons(4);
+        List<Block> blocks = blocks(blockJsons);
+        List<CompletableFuture<MdBlocks>> conversions = new ArrayList<>();
+        BlockPublisher publisher = new BlockPublisher(TITLE_FUTURE, onePage(blockJsons), block -> {
+            CompletableFuture<MdBlocks> conversion = new CompletableFuture<>();
+            conversions.add(conversion);
+            return conversion;
+        }, DIRECT, 4);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(subscriber);
+        assertEquals(List.of("title"), subscriber.blockIds());
+        for (int i = conversions.size() - 1; i >= 0; i--) {
+            conversions.get(i).complete(mdBlock(blocks.get(i)));
+        }
+
+        assertEquals(List.of("title", blocks.get(0).getId(), blocks.get(1).getId(),
+                blocks.get(2).getId(), blocks.get(3).getId()), subscriber.blockIds());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void convertsNoMoreThanRequested() {
+        List<Block> converted = new ArrayList<>();
+        BlockPublisher publisher = new BlockPublisher(TITLE_FUTURE, onePage(blockJsons(4)), block -> {
+            converted.add(block);
+            return CompletableFuture.completedFuture(mdBlock(block));
+        }, DIRECT, 16);
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+
+        publisher.subscribe(subscriber);
+        assertEquals(2, subscriber.received.size());
+        assertEquals(1, converted.size());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(10);
+        assertEquals(5, subscriber.received.size());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void requestsTheNextPageOfChildrenOnlyOnDemand() {
+        List<String> blockJsons = blockJsons(4);
+        List<String> cursors = new ArrayList<>();
+        CompletableFuture<Blocks> secondPage = new CompletableFuture<>();
+        Function<String, CompletableFuture<Blocks>> pages = cursor -> {
+            cursors.add(cursor);
+            return cursor == null
+                    ? CompletableFuture.completedFuture(SERIALIZER.toBlocks(
+                            NotionFixtures.blockListJson(blockJsons.subList(0, 2), "second")))
+                    : secondPage;
+        };
+        BlockPublisher publisher = new BlockPublisher(TITLE_FUTURE, pages,
+                block -> CompletableFuture.completedFuture(mdBlock(block)), DIRECT, 16);
+        RecordingSubscriber subscriber = new RecordingSubscriber(3);
+
+        publisher.subscribe(subscriber);
+        assertEquals(3, subscriber.received.size());
+        assertEquals(1, cursors.size());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList(null, "second"), cursors);
+        assertEquals(3, subscriber.received.size());
+
+        secondPage.complete(SERIALIZER.toBlocks(NotionFixtures.blockListJson(blockJsons.subList(2, 4), null)));
+        assertEquals(5, subscriber.received.size());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void waitsForTheTitleWithoutBlockingTheBlocks() {
+        List<String> blockJsons = blockJsons(2);
+        CompletableFuture<MdBlocks> title = new CompletableFuture<>();
+        List<Block> converted = new ArrayList<>();
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        new BlockPublisher(() -> title, onePage(blockJsons), block -> {
+            converted.add(block);
+            return CompletableFuture.completedFuture(mdBlock(block));
+        }, DIRECT, 4).subscribe(subscriber);
+        assertEquals(2, converted.size());
+        assertTrue(subscriber.received.isEmpty());
+
+        title.complete(TITLE);
+        assertEquals(3, subscriber.received.size());
+        assertEquals("title", subscriber.blockIds().get(0));
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void skipsBlocksRenderingToNothing() {
+        List<String> blockJsons = blockJsons(3);
+        List<Block> blocks = blocks(blockJsons);
+        Function<Block, CompletableFuture<MdBlocks>> converter = block -> CompletableFuture.completedFuture(
+                block.getId().equals(blocks.get(1).getId()) ? null : mdBlock(block));
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        new BlockPublisher(() -> CompletableFuture.completedFuture(null), onePage(blockJsons), converter, DIRECT, 2)
+                .subscribe(subscriber);
+
+        assertEquals(List.of(blocks.get(0).getId(), blocks.get(2).getId()), subscriber.blockIds());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void signalsFailedConversions() {
+        IllegalStateException failure = new IllegalStateException("conversion failed");
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        new BlockPublisher(TITLE_FUTURE, onePage(blockJsons(2)), block -> CompletableFuture.failedFuture(failure),
+                DIRECT, 2).subscribe(subscriber);
+
+        assertEquals(List.of("title"), subscriber.blockIds());
+        assertEquals(failure, subscriber.error);
+    }
+
+    @Test
+    void signalsFailedPageRequests() {
+        IllegalStateException failure = new IllegalStateException("request failed");
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        new BlockPublisher(TITLE_FUTURE, cursor -> CompletableFuture.failedFuture(failure),
+                block -> CompletableFuture.completedFuture(mdBlock(block)), DIRECT, 2).subscribe(subscriber);
+
+        assertEquals(List.of("title"), subscriber.blockIds());
+        assertEquals(failure, subscriber.error);
+    }
+
+    @Test
+    void cancelsConversionsInFlight() {
+        List<CompletableFuture<MdBlocks>> conversions = new ArrayList<>();
+        BlockPublisher publisher = new BlockPublisher(TITLE_FUTURE, onePage(blockJsons(4)), block -> {
+            CompletableFuture<MdBlocks> conversion = new CompletableFuture<>();
+            conversions.add(conversion);
+            return conversion;
+        }, DIRECT, 4);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(subscriber);
+        subscriber.subscription.cancel();
+
+        assertEquals(4, conversions.size());
+        for (CompletableFuture<MdBlocks> conversion : conversions) {
+            assertTrue(conversion.isCancelled());
+        }
+        assertEquals(List.of("title"), subscriber.blockIds());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void rejectsNonPositiveRequests() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        new BlockPublisher(TITLE_FUTURE, onePage(blockJsons(1)),
+                block -> CompletableFuture.completedFuture(mdBlock(block)), DIRECT, 2).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    }
+
+    private static List<String> blockJsons(int count) {
+        return NotionFixtures.blockJsons(PageShape.SMALL).subList(0, count);
+    }
+
+    private static List<Block> blocks(List<String> blockJsons) {
+        List<Block> blocks = new ArrayList<>(blockJsons.size());
+        for (String json : blockJsons) {
+            blocks.add(SERIALIZER.toBlock(json));
+        }
+        return blocks;
+    }
+
+    private static Function<String, CompletableFuture<Blocks>> onePage(List<String> blockJsons) {
+        return cursor -> CompletableFuture.completedFuture(SERIALIZER.toBlocks(NotionFixtures.blockListJson(blockJsons, null)));
+    }
+
+    private static MdBlocks mdBlock(Block block) {
+        return MdBlocks.ofType(block.getId(), "paragraph", block.getId(), null);
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<MdBlocks> {
+        private final long initialDemand;
+        private final List<MdBlocks> received = new CopyOnWriteArrayList<>();
+        private Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(MdBlocks item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        private List<String> blockIds() {
+            List<String> blockIds = new ArrayList<>();
+            for (MdBlocks mdBlock : received) {
+                blockIds.add(mdBlock.getBlockId());
+            }
+            return blockIds;
+        }
+    }
+}
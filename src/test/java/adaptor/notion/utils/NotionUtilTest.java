@@ -0,0 +1,295 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.behavior.BehaviorRegistry;
+import adaptor.notion.domain.MdBlockKind;
+import adaptor.notion.domain.MdBlocks;
+import adaptor.notion.domain.SerialNumberedListBlock;
+import adaptor.notion.testing.NotionFixtures;
+import adaptor.notion.testing.PageShape;
+import notion.api.v1.json.GsonSerializer;
+import notion.api.v1.model.blocks.Block;
+import notion.api.v1.model.common.RichTextLinkType;
+import notion.api.v1.model.common.RichTextType;
+import notion.api.v1.model.pages.PageProperty.RichText;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotionUtilTest {
+    private static final GsonSerializer SERIALIZER = new GsonSerializer(false);
+
+    @Test
+    void rendersEveryAnnotationCombinationLikeTheNestedInserts() {
+        for (int mask = 0; mask < 16; mask++) {
+            for (String url : Arrays.asList(null, "https://example.com/a")) {
+                List<RichText> richTexts = List.of(
+                        richText("plain ", false, false, false, false, null),
+                        richText("span", bit(mask, 0), bit(mask, 1), bit(mask, 2), bit(mask, 3), url),
+                        richText("", bit(mask, 0), false, false, bit(mask, 3), url));
+
+                assertEquals(legacyRichTextParser(richTexts), NotionUtil.richTextParser(richTexts),
+                        "annotations " + mask + ", link " + url);
+            }
+        }
+    }
+
+    @Test
+    void nestsCombinedAnnotationsInsideTheLink() {
+        List<RichText> richTexts = List.of(
+                richText("all", true, true, true, true, "https://example.com"),
+                richText(" and ", false, false, false, false, null),
+                richText("bold italic", true, true, false, false, null),
+                richText(" then ", false, false, false, false, null),
+                richText("struck code", false, false, true, true, null));
+
+        assertEquals("[`~~***all***~~`](https://example.com) and ***bold italic*** then `~~struck code~~`",
+                NotionUtil.richTextParser(richTexts));
+    }
+
+    @Test
+    void appendsAfterExistingContent() {
+        StringBuilder out = new StringBuilder("# ");
+
+        NotionUtil.appendRichText(List.of(richText("Title", false, true, false, false, "https://example.com")), out);
+
+        assertEquals("# [*Title*](https://example.com)", out.toString());
+    }
+
+    @Test
+    void skipsNullListsElementsAndTexts() {
+        RichText withoutText = richText("ignored", true, false, false, false, "https://example.com");
+        withoutText.setPlainText(null);
+        RichText withoutAnnotations = new RichText(RichTextType.Text, new RichText.Text("bare"), null, "bare");
+        List<RichText> richTexts = new ArrayList<>();
+        richTexts.add(null);
+        richTexts.add(withoutText);
+        richTexts.add(withoutAnnotations);
+
+        assertEquals("", NotionUtil.richTextParser(null));
+        assertEquals("bare", NotionUtil.richTextParser(richTexts));
+    }
+
+    @Test
+    void numbersConsecutiveItemsAndRestartsAfterInterruptions() {
+        List<MdBlocks> mdBlocks = List.of(
+                numbered("a"), numbered("b"),
+                block(MdBlockKind.PARAGRAPH, "break"),
+                numbered("c"),
+                block(MdBlockKind.BULLETED_LIST_ITEM, "- bullet"),
+                numbered("d"), numbered("e"));
+
+        assertEquals("1. a\n2. b\n\nbreak\n\n1. c\n\n- bullet\n\n1. d\n2. e\n\n",
+                NotionUtil.generateMarkdownString(mdBlocks));
+    }
+
+    @Test
+    void numbersNestedListsPerLevel() {
+        List<MdBlocks> mdBlocks = List.of(
+                numbered("a", numbered("a.a"), numbered("a.b",
+                        numbered("a.b.a"))),
+                numbered("b", block(MdBlockKind.BULLETED_LIST_ITEM, "- b.bullet"), numbered("b.a")),
+                numbered("c\ncontinued"));
+
+        assertEquals("1. a\n"
+                        + "    1. a.a\n"
+                        + "    2. a.b\n"
+                        + "        1. a.b.a\n"
+                        + "2. b\n"
+                        + "    - b.bullet\n"
+                        + "\n"
+                        + "    1. b.a\n"
+                        + "3. c\n"
+                        + "continued\n"
+                        + "\n",
+                NotionUtil.generateMarkdownString(mdBlocks));
+    }
+
+    @Test
+    void writesTheSameMarkdownToAnyOutput() throws Exception {
+        List<MdBlocks> mdBlocks = List.of(
+                block(MdBlockKind.HEADING_1, "# Title"),
+                block(MdBlockKind.PARAGRAPH, "text", block(MdBlockKind.PARAGRAPH, "child")),
+                numbered("a"), numbered("b"),
+                block(MdBlockKind.TO_DO, "- [ ] task", block(MdBlockKind.TO_DO, "- [x] done")));
+        StringWriter out = new StringWriter();
+
+        NotionUtil.writeMarkdown(mdBlocks.iterator(), out);
+
+        assertEquals(NotionUtil.generateMarkdownString(mdBlocks), out.toString());
+        assertEquals("# Title\n\ntext\n\nchild\n\n1. a\n2. b\n\n- [ ] task\n    - [x] done\n\n", out.toString());
+        assertThrows(IllegalArgumentException.class, () -> NotionUtil.writeMarkdown(null, out));
+        assertThrows(IllegalArgumentException.class, () -> NotionUtil.writeMarkdown(mdBlocks.iterator(), null));
+    }
+
+    @Test
+    void treatsOnlyListItemsOfTheSameKindAsConsecutive() {
+        assertTrue(NotionUtil.isConsecutiveListItems(numbered("a"), numbered("b")));
+        assertTrue(NotionUtil.isConsecutiveListItems(block(MdBlockKind.BULLETED_LIST_ITEM, "- a"),
+                block(MdBlockKind.BULLETED_LIST_ITEM, "- b")));
+        assertTrue(NotionUtil.isConsecutiveListItems(block(MdBlockKind.TO_DO, "- [ ] a"),
+                block(MdBlockKind.TO_DO, "- [ ] b")));
+        assertFalse(NotionUtil.isConsecutiveListItems(numbered("a"), block(MdBlockKind.BULLETED_LIST_ITEM, "- b")));
+        assertFalse(NotionUtil.isConsecutiveListItems(block(MdBlockKind.PARAGRAPH, "a"),
+                block(MdBlockKind.PARAGRAPH, "b")));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void numbersListsLikeTheDeprecatedSerialNumbers() {
+        String[] types = {"numbered_list_item", "numbered_list_item", "numbered_list_item", "paragraph",
+                "numbered_list_item", "bulleted_list_item", "numbered_list_item", "numbered_list_item"};
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            blocks.add(SERIALIZER.toBlock(NotionFixtures.blockJson(NotionFixtures.id(5, i), types[i],
+                    "{\"rich_text\":[{\"type\":\"text\",\"text\":{\"content\":\"item " + i + "\"}"
+                            + ",\"plain_text\":\"item " + i + "\"}],\"color\":\"default\"}", false)));
+        }
+        List<MdBlocks> mdBlocks = new ArrayList<>();
+        for (Block block : blocks) {
+            mdBlocks.add(NotionUtil.notionBlockToMdBlocks(block));
+        }
+
+        NotionUtil.modifyNumberedList(blocks);
+        List<String> serialNumbers = new ArrayList<>();
+        for (Block block : blocks) {
+            if (block instanceof SerialNumberedListBlock) {
+                serialNumbers.add(((SerialNumberedListBlock) block).getSerialNumber() + ". "
+                        + NotionUtil.markdownParser(block));
+            }
+        }
+        List<String> renderedNumbers = new ArrayList<>();
+        Matcher matcher = Pattern.compile("(?m)^\\d+\\. .*$").matcher(NotionUtil.generateMarkdownString(mdBlocks));
+        while (matcher.find()) {
+            renderedNumbers.add(matcher.group());
+        }
+
+        assertEquals(List.of("1. item 0", "2. item 1", "3. item 2", "1. item 4", "1. item 6", "2. item 7"),
+                serialNumbers);
+        assertEquals(serialNumbers, renderedNumbers);
+    }
+
+    @Test
+    void convertsBlocksIntoACallerBuffer() {
+        StringBuilder buffer = new StringBuilder("left over");
+        for (String blockJson : NotionFixtures.blockJsons(PageShape.SMALL)) {
+            Block block = SERIALIZER.toBlock(blockJson);
+
+            assertEquals(NotionUtil.notionBlockToMdBlocks(block),
+                    NotionUtil.notionBlockToMdBlocks(block, List.of(), BehaviorRegistry.create(), buffer));
+        }
+        assertThrows(IllegalArgumentException.class, () -> NotionUtil.notionBlockToMdBlocks(
+                SERIALIZER.toBlock(NotionFixtures.blockJsons(PageShape.SMALL).get(0)), List.of(),
+                BehaviorRegistry.create(), null));
+    }
+
+    @Test
+    void rendersTablesTogglesAndColumnsWithTheirChildren() {
+        List<MdBlocks> mdBlocks = List.of(
+                convert("table", "{\"table_width\":2,\"has_column_header\":true}",
+                        convert("table_row", "{\"cells\":[[" + span("h1") + "],[" + span("h2") + "]]}"),
+                        convert("table_row", "{\"cells\":[[" + span("a") + "],[" + span("b") + "]]}")),
+                convert("toggle", "{\"rich_text\":[" + span("More") + "]}",
+                        convert("paragraph", "{\"rich_text\":[" + span("inside") + "]}"),
+                        convert("bulleted_list_item", "{\"rich_text\":[" + span("item") + "]}",
+                                convert("toggle", "{\"rich_text\":[" + span("Nested") + "]}",
+                                        convert("paragraph", "{\"rich_text\":[" + span("deep") + "]}")))),
+                convert("column_list", "{}",
+                        convert("column", "{}", convert("paragraph", "{\"rich_text\":[" + span("left") + "]}")),
+                        convert("column", "{}", convert("paragraph", "{\"rich_text\":[" + span("right") + "]}"))),
+                convert("paragraph", "{\"rich_text\":[" + span("end") + "]}"));
+
+        assertEquals("| h1 | h2 |\n"
+                        + "| --- | --- |\n"
+                        + "| a | b |\n"
+                        + "\n"
+                        + "<details>\n"
+                        + "<summary>More</summary>\n"
+                        + "\n"
+                        + "inside\n"
+                        + "\n"
+                        + "- item\n"
+                        + "    <details>\n"
+                        + "    <summary>Nested</summary>\n"
+                        + "\n"
+                        + "    deep\n"
+                        + "\n"
+                        + "    </details>\n"
+                        + "\n"
+                        + "</details>\n"
+                        + "\n"
+                        + "left\n"
+                        + "\n"
+                        + "right\n"
+                        + "\n"
+                        + "end\n"
+                        + "\n",
+                NotionUtil.generateMarkdownString(mdBlocks));
+    }
+
+    private static MdBlocks convert(String type, String payload, MdBlocks... children) {
+        Block block = SERIALIZER.toBlock(NotionFixtures.blockJson(NotionFixtures.id(6, 0), type, payload,
+                children.length > 0));
+        return NotionUtil.notionBlockToMdBlocks(block, List.of(children));
+    }
+
+    private static String span(String content) {
+        return "{\"type\":\"text\",\"text\":{\"content\":\"" + content + "\"},\"plain_text\":\"" + content + "\"}";
+    }
+
+    private static MdBlocks numbered(String content, MdBlocks... children) {
+        return block(MdBlockKind.NUMBERED_LIST_ITEM, content, children);
+    }
+
+    private static MdBlocks block(MdBlockKind kind, String content, MdBlocks... children) {
+        return new MdBlocks(content, kind, content, List.of(children));
+    }
+
+    private static boolean bit(int mask, int bit) {
+        return (mask & (1 << bit)) != 0;
+    }
+
+    private static RichText richText(String text, boolean bold, boolean italic, boolean strikethrough,
+                                     boolean code, String url) {
+        RichText.Link link = url == null ? null : new RichText.Link(RichTextLinkType.Url, url);
+        RichText.Annotations annotations = new RichText.Annotations(bold, italic, strikethrough, false, code);
+        return new RichText(RichTextType.Text, new RichText.Text(text, link), annotations, text);
+    }
+
+    /**
+     * The rich text rendering this library shipped before the marker table, which wraps each
+     * span with repeated inserts. Kept as the reference the single pass rendering must match.
+     */
+    private static String legacyRichTextParser(List<RichText> richTexts) {
+        StringBuilder result = new StringBuilder();
+        for (RichText richText : richTexts) {
+            StringBuilder text = new StringBuilder(richText.getPlainText());
+            if (Boolean.TRUE.equals(richText.getAnnotations().getBold())) {
+                text.insert(0, "**").insert(text.length(), "**");
+            }
+            if (Boolean.TRUE.equals(richText.getAnnotations().getItalic())) {
+                text.insert(0, "*").insert(text.length(), "*");
+            }
+            if (Boolean.TRUE.equals(richText.getAnnotations().getStrikethrough())) {
+                text.insert(0, "~~").insert(text.length(), "~~");
+            }
+            if (Boolean.TRUE.equals(richText.getAnnotations().getCode())) {
+                text.insert(0, "`").insert(text.length(), "`");
+            }
+            if (richText.getText().getLink() != null) {
+                text.insert(0, "[").insert(text.length(), "](" + richText.getText().getLink().getUrl() + ")");
+            }
+            result.append(text);
+        }
+        return result.toString();
+    }
+}
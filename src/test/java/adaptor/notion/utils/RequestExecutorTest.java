@@ -0,0 +1,99 @@
+package adaptor.notion.utils;
+
+import adaptor.notion.http.RateLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestExecutorTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void capsRequestsInFlight() throws Exception {
+        RequestExecutor requestExecutor = new RequestExecutor(executor, 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            results.add(requestExecutor.submit(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(2);
+                inFlight.decrementAndGet();
+                return value;
+            }));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void releasesThePermitBeforeCompletingDependents() throws Exception {
+        RequestExecutor requestExecutor = new RequestExecutor(executor, 1);
+
+        CompletableFuture<Integer> chained = requestExecutor.submit(() -> 1)
+                .thenApply(value -> requestExecutor.submit(() -> value + 1).join());
+
+        assertEquals(2, chained.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void completesFailedRequestsExceptionally() throws Exception {
+        RequestExecutor requestExecutor = new RequestExecutor(executor, 1);
+        CountDownLatch failed = new CountDownLatch(1);
+
+        requestExecutor.submit(() -> {
+            throw new IllegalStateException("boom");
+        }).whenComplete((value, error) -> {
+            if (error instanceof IllegalStateException) {
+                failed.countDown();
+            }
+        });
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertEquals(3, requestExecutor.submit(() -> 3).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void startsRequestsOnlyOnceTheirRateTokenIsDue() throws Exception {
+        RateLimiter rateLimiter = RateLimiter.builder().requestsPerSecond(10).burst(1).build();
+        RequestExecutor requestExecutor = new RequestExecutor(executor, 4, rateLimiter);
+        List<CompletableFuture<Long>> starts = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            starts.add(requestExecutor.submit(System::nanoTime));
+        }
+
+        long first = starts.get(0).get(5, TimeUnit.SECONDS);
+        long last = starts.get(2).get(5, TimeUnit.SECONDS);
+        assertTrue(last - first >= TimeUnit.MILLISECONDS.toNanos(150), "started too early: " + (last - first));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
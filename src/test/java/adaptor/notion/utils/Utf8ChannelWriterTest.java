@@ -0,0 +1,85 @@
+package adaptor.notion.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Utf8ChannelWriterTest {
+
+    @Test
+    void encodesSurrogatePairsSplitAcrossBuffers() throws IOException {
+        String text = "a\uD83D\uDE00b".repeat(20) + "\u00E9\u4E2D";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Utf8ChannelWriter writer = new Utf8ChannelWriter(Channels.newChannel(out), ByteBuffer.allocate(5));
+        for (int i = 0; i < text.length(); i++) {
+            writer.write(text.charAt(i));
+        }
+        writer.finish();
+
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    void replacesAHighSurrogateLeftUnpairedAtTheEnd() throws IOException {
+        String text = "markdown \uD83D";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Utf8ChannelWriter writer = new Utf8ChannelWriter(Channels.newChannel(out));
+        writer.write(text);
+        writer.flush();
+        writer.finish();
+
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    void replacesUnpairedSurrogatesInTheMiddle() throws IOException {
+        String text = "a\uDE00b\uD83Dc";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Utf8ChannelWriter writer = new Utf8ChannelWriter(Channels.newChannel(out));
+        writer.append(text);
+        writer.finish();
+
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    void writesToANewChannelAfterReset() throws IOException {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        Utf8ChannelWriter writer = new Utf8ChannelWriter(Channels.newChannel(first));
+        writer.write("first \uD83D");
+        writer.finish();
+        assertThrows(IOException.class, () -> writer.write("late"));
+        writer.reset(Channels.newChannel(second)).write("second");
+        writer.finish();
+
+        assertArrayEquals("first ?".getBytes(StandardCharsets.UTF_8), first.toByteArray());
+        assertArrayEquals("second".getBytes(StandardCharsets.UTF_8), second.toByteArray());
+    }
+
+    @Test
+    void closesTheChannel() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+
+        Utf8ChannelWriter writer = new Utf8ChannelWriter(channel);
+        writer.write("text");
+        writer.close();
+
+        assertArrayEquals("text".getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        assertThrows(IOException.class, () -> writer.write("more"));
+        assertThrows(IOException.class, () -> channel.write(ByteBuffer.allocate(1)));
+    }
+}
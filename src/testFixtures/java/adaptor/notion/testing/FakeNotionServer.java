@@ -0,0 +1,415 @@
+package adaptor.notion.testing;
+
+import adaptor.notion.log.LoggerFactoryWrapper;
+import adaptor.notion.utils.ConcurrencyUtil;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Notion API, for offline tests and load testing.
+ * Serves page objects, paginated block children, database queries and page searches from
+ * recorded or generated JSON, with configurable latency and randomly injected 429 responses.
+ * Pages can be edited while the server runs, moving their last_edited_time, to exercise syncs.
+ * Point a converter at {@link #getBaseUrl()} to use it.
+ *
+ * <p>Supported endpoints are {@code GET /v1/pages/{id}}, {@code GET /v1/blocks/{id}/children},
+ * {@code POST /v1/databases/{id}/query} and {@code POST /v1/search}. Queries and searches honor
+ * {@code start_cursor} and {@code page_size} but ignore filters and sorts: a query returns the rows
+ * in the order they were added and a search returns every page, most recently edited first.
+ * IDs are matched with or without dashes.</p>
+ */
+public class FakeNotionServer implements Closeable {
+    private static final Logger log = LoggerFactoryWrapper.getLogger(FakeNotionServer.class);
+    private static final String API_PREFIX = "/v1";
+
+    private final Map<String, String> pages = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> blockChildren = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> databaseRows = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+    private final long minLatencyNanos;
+    private final long maxLatencyNanos;
+    private final double rateLimitProbability;
+    private final int retryAfterSeconds;
+    private final int maxPageSize;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private FakeNotionServer(Builder builder) throws IOException {
+        this.minLatencyNanos = builder.minLatency.toNanos();
+        this.maxLatencyNanos = builder.maxLatency.toNanos();
+        this.rateLimitProbability = builder.rateLimitProbability;
+        this.retryAfterSeconds = builder.retryAfterSeconds;
+        this.maxPageSize = builder.maxPageSize;
+        this.executor = ConcurrencyUtil.newVirtualThreadExecutor("fake-notion-server");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0);
+        this.server.createContext(API_PREFIX, this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts serving requests
+     * @return This server
+     */
+    public FakeNotionServer start() {
+        server.start();
+        log.info("Fake Notion server listening on {}", getBaseUrl());
+        return this;
+    }
+
+    /**
+     * @return Base URL to pass to the Notion client, including the API version prefix
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + API_PREFIX;
+    }
+
+    /**
+     * Serves a page object and its top-level blocks
+     * @param pageId ID of the page
+     * @param pageJson Recorded or generated JSON of the page object
+     * @param blockJsons JSON of every top-level block of the page, in document order
+     * @return This server
+     */
+    public FakeNotionServer addPage(String pageId, String pageJson, List<String> blockJsons) {
+        pages.put(normalizeId(pageId), pageJson);
+        blockChildren.put(normalizeId(pageId), blockJsons);
+        return this;
+    }
+
+    /**
+     * Serves the children of a block, for pages with nested content
+     * @param blockId ID of the parent block
+     * @param blockJsons JSON of every child block, in document order
+     * @return This server
+     */
+    public FakeNotionServer addBlockChildren(String blockId, List<String> blockJsons) {
+        blockChildren.put(normalizeId(blockId), blockJsons);
+        return this;
+    }
+
+    /**
+     * Serves a page as a row of a database, returned by queries of that database in the order rows are added
+     * @param databaseId ID of the database
+     * @param pageId ID of a page served by {@link #addPage}
+     * @return This server
+     */
+    public FakeNotionServer addDatabaseRow(String databaseId, String pageId) {
+        databaseRows.computeIfAbsent(normalizeId(databaseId), id -> new CopyOnWriteArrayList<>()).add(pageId);
+        return this;
+    }
+
+    /**
+     * Edits a page: its page object reports the given last_edited_time from now on
+     * @param pageId ID of a page served by {@link #addPage}
+     * @param lastEditedTime New last_edited_time of the page
+     * @return This server
+     * @throws IllegalArgumentException if the page is not served
+     */
+    public FakeNotionServer editPage(String pageId, Instant lastEditedTime) {
+        pages.compute(normalizeId(pageId), (id, pageJson) -> {
+            if (pageJson == null) {
+                throw new IllegalArgumentException("Unknown page: " + pageId);
+            }
+            JsonObject page = JsonParser.parseString(pageJson).getAsJsonObject();
+            page.addProperty("last_edited_time", lastEditedTime.toString());
+            return page.toString();
+        });
+        return this;
+    }
+
+    /**
+     * Edits a page and replaces its top-level blocks
+     * @param pageId ID of a page served by {@link #addPage}
+     * @param lastEditedTime New last_edited_time of the page
+     * @param blockJsons JSON of every top-level block of the page, in document order
+     * @return This server
+     * @throws IllegalArgumentException if the page is not served
+     */
+    public FakeNotionServer editPage(String pageId, Instant lastEditedTime, List<String> blockJsons) {
+        editPage(pageId, lastEditedTime);
+        blockChildren.put(normalizeId(pageId), blockJsons);
+        return this;
+    }
+
+    /**
+     * Serves a generated page of the given shape
+     * @param pageId ID of the page
+     * @param shape Shape of the generated content
+     * @param namespace Namespace of the generated block IDs, unique per page
+     * @return This server
+     */
+    public FakeNotionServer addGeneratedPage(String pageId, PageShape shape, int namespace) {
+        return addPage(pageId, NotionFixtures.pageJson(pageId, "Generated page " + namespace),
+                NotionFixtures.blockJsons(shape, namespace));
+    }
+
+    /**
+     * @return Number of requests received, including rate limited ones
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return Number of requests answered with an injected 429
+     */
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            simulateLatency();
+
+            if (rateLimitProbability > 0 && ThreadLocalRandom.current().nextDouble() < rateLimitProbability) {
+                rateLimitedCount.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+                respond(exchange, 429, errorJson(429, "rate_limited", "You have been rate limited."));
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring(API_PREFIX.length()).split("/");
+            if ("GET".equals(method) && path.length == 3 && "pages".equals(path[1])) {
+                respondPage(exchange, path[2]);
+            } else if ("GET".equals(method) && path.length == 4 && "blocks".equals(path[1]) && "children".equals(path[3])) {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                respondBlockChildren(exchange, path[2], query.get("start_cursor"), query.get("page_size"));
+            } else if ("POST".equals(method) && path.length == 4 && "databases".equals(path[1]) && "query".equals(path[3])) {
+                respondDatabaseQuery(exchange, path[2], parseBody(exchange));
+            } else if ("POST".equals(method) && path.length == 2 && "search".equals(path[1])) {
+                respondSearch(exchange, parseBody(exchange));
+            } else if (!"GET".equals(method) && !"POST".equals(method)) {
+                respond(exchange, 405, errorJson(405, "invalid_request", "Unsupported method."));
+            } else {
+                respond(exchange, 400, errorJson(400, "invalid_request_url", "Invalid request URL."));
+            }
+        } catch (RuntimeException e) {
+            log.error("Fake Notion server failed to handle {}", exchange.getRequestURI(), e);
+            respond(exchange, 500, errorJson(500, "internal_server_error", "Unexpected error."));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respondPage(HttpExchange exchange, String pageId) throws IOException {
+        String page = pages.get(normalizeId(pageId));
+        if (page == null) {
+            respond(exchange, 404, errorJson(404, "object_not_found", "Could not find page with ID: " + pageId));
+            return;
+        }
+        respond(exchange, 200, page);
+    }
+
+    private void respondBlockChildren(HttpExchange exchange, String blockId, String startCursor, String pageSize)
+            throws IOException {
+        List<String> children = blockChildren.get(normalizeId(blockId));
+        if (children == null) {
+            respond(exchange, 404, errorJson(404, "object_not_found", "Could not find block with ID: " + blockId));
+            return;
+        }
+        int start = startCursor == null ? 0 : Integer.parseInt(startCursor);
+        int end = Math.min(children.size(), start + pageSize(pageSize));
+        String nextCursor = end < children.size() ? String.valueOf(end) : null;
+        respond(exchange, 200, NotionFixtures.blockListJson(children.subList(start, end), nextCursor));
+    }
+
+    private void respondDatabaseQuery(HttpExchange exchange, String databaseId, JsonObject body) throws IOException {
+        List<String> rows = databaseRows.get(normalizeId(databaseId));
+        if (rows == null) {
+            respond(exchange, 404, errorJson(404, "object_not_found", "Could not find database with ID: " + databaseId));
+            return;
+        }
+        List<String> rowPages = new ArrayList<>(rows.size());
+        for (String pageId : rows) {
+            String page = pages.get(normalizeId(pageId));
+            if (page != null) {
+                rowPages.add(page);
+            }
+        }
+        respondPages(exchange, rowPages, body);
+    }
+
+    private void respondSearch(HttpExchange exchange, JsonObject body) throws IOException {
+        List<JsonObject> found = new ArrayList<>(pages.size());
+        for (String page : pages.values()) {
+            found.add(JsonParser.parseString(page).getAsJsonObject());
+        }
+        found.sort(Comparator.comparing((JsonObject page) -> Instant.parse(page.get("last_edited_time").getAsString()))
+                .reversed()
+                .thenComparing(page -> page.get("id").getAsString()));
+        List<String> foundPages = new ArrayList<>(found.size());
+        for (JsonObject page : found) {
+            foundPages.add(page.toString());
+        }
+        respondPages(exchange, foundPages, body);
+    }
+
+    private void respondPages(HttpExchange exchange, List<String> foundPages, JsonObject body) throws IOException {
+        int start = body.has("start_cursor") && !body.get("start_cursor").isJsonNull()
+                ? Integer.parseInt(body.get("start_cursor").getAsString())
+                : 0;
+        String pageSize = body.has("page_size") && !body.get("page_size").isJsonNull()
+                ? body.get("page_size").getAsString()
+                : null;
+        int end = Math.min(foundPages.size(), start + pageSize(pageSize));
+        String nextCursor = end < foundPages.size() ? String.valueOf(end) : null;
+        respond(exchange, 200, NotionFixtures.pageListJson(foundPages.subList(Math.min(start, end), end), nextCursor));
+    }
+
+    private int pageSize(String requested) {
+        return requested == null ? maxPageSize : Math.min(maxPageSize, Integer.parseInt(requested));
+    }
+
+    private void simulateLatency() {
+        long latencyNanos = maxLatencyNanos > minLatencyNanos
+                ? ThreadLocalRandom.current().nextLong(minLatencyNanos, maxLatencyNanos)
+                : minLatencyNanos;
+        if (latencyNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String errorJson(int status, String code, String message) {
+        return "{\"object\":\"error\",\"status\":" + status
+                + ",\"code\":\"" + code + "\",\"message\":\"" + message + "\"}";
+    }
+
+    private static JsonObject parseBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            JsonElement json = body.isBlank() ? null : JsonParser.parseString(body);
+            return json != null && json.isJsonObject() ? json.getAsJsonObject() : new JsonObject();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static String normalizeId(String id) {
+        return id.replace("-", "");
+    }
+
+    public static class Builder {
+        private int port;
+        private Duration minLatency = Duration.ZERO;
+        private Duration maxLatency = Duration.ZERO;
+        private double rateLimitProbability;
+        private int retryAfterSeconds = 1;
+        private int maxPageSize = 100;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the port to listen on. Defaults to a free port chosen by the system.
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Delays every response by a random time between the given bounds
+         */
+        public Builder latency(Duration minLatency, Duration maxLatency) {
+            if (minLatency == null || maxLatency == null || minLatency.isNegative() || maxLatency.compareTo(minLatency) < 0) {
+                throw new IllegalArgumentException("Latency bounds must be non-negative and ordered");
+            }
+            this.minLatency = minLatency;
+            this.maxLatency = maxLatency;
+            return this;
+        }
+
+        /**
+         * Answers the given share of requests with a 429 and a Retry-After header
+         */
+        public Builder rateLimitProbability(double rateLimitProbability, int retryAfterSeconds) {
+            if (rateLimitProbability < 0 || rateLimitProbability > 1 || retryAfterSeconds < 0) {
+                throw new IllegalArgumentException("Probability must be within [0, 1] and Retry-After non-negative");
+            }
+            this.rateLimitProbability = rateLimitProbability;
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the largest number of results returned per page of block children, query or search results
+         */
+        public Builder maxPageSize(int maxPageSize) {
+            if (maxPageSize < 1) {
+                throw new IllegalArgumentException("maxPageSize must be positive");
+            }
+            this.maxPageSize = maxPageSize;
+            return this;
+        }
+
+        public FakeNotionServer build() throws IOException {
+            return new FakeNotionServer(this);
+        }
+    }
+}
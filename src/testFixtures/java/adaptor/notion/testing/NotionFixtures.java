@@ -0,0 +1,189 @@
+package adaptor.notion.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates synthetic Notion API JSON for pages and blocks.
+ * The output is deterministic for a given shape, so benchmark and load test runs are comparable.
+ */
+public final class NotionFixtures {
+    private static final String TIMESTAMP = "2024-01-01T00:00:00.000Z";
+    private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit"};
+    private static final String[] LANGUAGES = {"java", "kotlin", "python", "bash"};
+    private static final String[] HEADINGS = {"heading_1", "heading_2", "heading_3"};
+
+    private NotionFixtures() {
+
+    }
+
+    /**
+     * @param pageId ID of the page
+     * @param title Plain text title of the page
+     * @return JSON of a page object with a title property
+     */
+    public static String pageJson(String pageId, String title) {
+        return "{\"object\":\"page\",\"id\":\"" + pageId + "\""
+                + ",\"created_time\":\"" + TIMESTAMP + "\",\"last_edited_time\":\"" + TIMESTAMP + "\""
+                + ",\"created_by\":{\"object\":\"user\",\"id\":\"" + id(0, 0) + "\"}"
+                + ",\"last_edited_by\":{\"object\":\"user\",\"id\":\"" + id(0, 0) + "\"}"
+                + ",\"parent\":{\"type\":\"workspace\",\"workspace\":true}"
+                + ",\"archived\":false,\"in_trash\":false"
+                + ",\"properties\":{\"title\":{\"id\":\"title\",\"type\":\"title\",\"title\":["
+                + richText(title, 0, null) + "]}}"
+                + ",\"url\":\"https://www.notion.so/" + pageId.replace("-", "") + "\"}";
+    }
+
+    /**
+     * @param shape Shape of the page
+     * @return JSON of a block children list holding every block of the page
+     */
+    public static String blocksJson(PageShape shape) {
+        return blockListJson(blockJsons(shape), null);
+    }
+
+    /**
+     * @param blocks JSON of the blocks in the list
+     * @param nextCursor Cursor of the next page, or null for the last page
+     * @return JSON of a block children list response
+     */
+    public static String blockListJson(List<String> blocks, String nextCursor) {
+        return listJson(blocks, nextCursor, "block");
+    }
+
+    /**
+     * @param pages JSON of the pages in the list
+     * @param nextCursor Cursor of the next page, or null for the last page
+     * @return JSON of a database query or search response
+     */
+    public static String pageListJson(List<String> pages, String nextCursor) {
+        return listJson(pages, nextCursor, "page_or_database");
+    }
+
+    /**
+     * Generates the blocks of a page in document order. Each cycle starts with a heading,
+     * followed by a numbered list, a short bulleted list, one block of every other
+     * supported type and a few paragraphs.
+     *
+     * @param shape Shape of the page
+     * @return JSON of every block
+     */
+    public static List<String> blockJsons(PageShape shape) {
+        return blockJsons(shape, 1);
+    }
+
+    /**
+     * Generates the blocks of a page, with block IDs in the given namespace so that
+     * several generated pages do not share block IDs.
+     *
+     * @param shape Shape of the page
+     * @param namespace Namespace of the block IDs
+     * @return JSON of every block
+     */
+    public static List<String> blockJsons(PageShape shape, int namespace) {
+        List<String> blocks = new ArrayList<>(shape.getBlockCount());
+        int cycle = shape.getListLength() + 20;
+        for (int i = 0; i < shape.getBlockCount(); i++) {
+            int position = i % cycle;
+            int afterList = position - shape.getListLength();
+            String type;
+            String payload;
+            if (position == 0) {
+                type = HEADINGS[(i / cycle) % HEADINGS.length];
+                payload = "{\"rich_text\":[" + richText("Section " + i, 1, null) + "],\"is_toggleable\":false,\"color\":\"default\"}";
+            } else if (position <= shape.getListLength()) {
+                type = "numbered_list_item";
+                payload = textPayload(shape, i);
+            } else if (afterList <= 5) {
+                type = "bulleted_list_item";
+                payload = textPayload(shape, i);
+            } else if (afterList == 6) {
+                type = "code";
+                payload = "{\"rich_text\":[" + richText("System.out.println(\\\"" + i + "\\\");", 0, null) + "]"
+                        + ",\"language\":\"" + LANGUAGES[i % LANGUAGES.length] + "\",\"caption\":[]}";
+            } else if (afterList == 7) {
+                type = "quote";
+                payload = textPayload(shape, i);
+            } else if (afterList == 8) {
+                type = "divider";
+                payload = "{}";
+            } else if (afterList == 9) {
+                type = "bookmark";
+                payload = "{\"url\":\"https://example.com/bookmark/" + i + "\",\"caption\":[]}";
+            } else if (afterList == 10) {
+                type = "image";
+                payload = "{\"type\":\"file\",\"caption\":[],\"file\":{\"url\":\"https://files.example.com/" + i
+                        + ".png\",\"expiry_time\":\"" + TIMESTAMP + "\"}}";
+            } else {
+                type = "paragraph";
+                payload = textPayload(shape, i);
+            }
+            blocks.add(blockJson(id(namespace, i), type, payload, false));
+        }
+        return blocks;
+    }
+
+    /**
+     * @return JSON of a single block object
+     */
+    public static String blockJson(String blockId, String type, String payload, boolean hasChildren) {
+        return "{\"object\":\"block\",\"id\":\"" + blockId + "\""
+                + ",\"parent\":{\"type\":\"page_id\",\"page_id\":\"" + id(0, 0) + "\"}"
+                + ",\"created_time\":\"" + TIMESTAMP + "\",\"last_edited_time\":\"" + TIMESTAMP + "\""
+                + ",\"created_by\":{\"object\":\"user\",\"id\":\"" + id(0, 0) + "\"}"
+                + ",\"last_edited_by\":{\"object\":\"user\",\"id\":\"" + id(0, 0) + "\"}"
+                + ",\"has_children\":" + hasChildren + ",\"archived\":false,\"in_trash\":false"
+                + ",\"type\":\"" + type + "\",\"" + type + "\":" + payload + "}";
+    }
+
+    /**
+     * @return Deterministic UUID for the given namespace and index
+     */
+    public static String id(int namespace, int index) {
+        return String.format("%08x-0000-4000-8000-%012x", namespace, index);
+    }
+
+    private static String listJson(List<String> results, String nextCursor, String type) {
+        StringBuilder json = new StringBuilder("{\"object\":\"list\",\"results\":[");
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(results.get(i));
+        }
+        json.append("],\"next_cursor\":")
+                .append(nextCursor == null ? "null" : "\"" + nextCursor + "\"")
+                .append(",\"has_more\":").append(nextCursor != null)
+                .append(",\"type\":\"").append(type).append("\",\"").append(type).append("\":{}}");
+        return json.toString();
+    }
+
+    private static String textPayload(PageShape shape, int blockIndex) {
+        StringBuilder payload = new StringBuilder("{\"rich_text\":[");
+        for (int span = 0; span < shape.getSpansPerBlock(); span++) {
+            if (span > 0) {
+                payload.append(',');
+            }
+            int annotations = span < shape.getAnnotatedSpans() ? 1 + (blockIndex + span) % 15 : 0;
+            String link = span % 5 == 4 ? "https://example.com/" + blockIndex + "/" + span : null;
+            payload.append(richText(WORDS[(blockIndex + span) % WORDS.length] + " ", annotations, link));
+        }
+        return payload.append("],\"color\":\"default\"}").toString();
+    }
+
+    /**
+     * @param annotations Bit mask of bold (1), italic (2), strikethrough (4) and code (8)
+     */
+    private static String richText(String content, int annotations, String link) {
+        String linkJson = link == null ? "null" : "{\"url\":\"" + link + "\"}";
+        return "{\"type\":\"text\",\"text\":{\"content\":\"" + content + "\",\"link\":" + linkJson + "}"
+                + ",\"annotations\":{\"bold\":" + ((annotations & 1) != 0)
+                + ",\"italic\":" + ((annotations & 2) != 0)
+                + ",\"strikethrough\":" + ((annotations & 4) != 0)
+                + ",\"underline\":false"
+                + ",\"code\":" + ((annotations & 8) != 0)
+                + ",\"color\":\"default\"}"
+                + ",\"plain_text\":\"" + content + "\""
+                + ",\"href\":" + (link == null ? "null" : "\"" + link + "\"") + "}";
+    }
+}
@@ -0,0 +1,52 @@
+package adaptor.notion.testing;
+
+/**
+ * Synthetic page shapes used by the benchmarks and the fake Notion server.
+ */
+public enum PageShape {
+    /**
+     * A short note: a handful of lightly formatted blocks
+     */
+    SMALL(10, 2, 1, 5),
+
+    /**
+     * A typical document: a few hundred mixed blocks with moderate formatting
+     */
+    TYPICAL(300, 6, 2, 12),
+
+    /**
+     * A pathological page: thousands of blocks, heavily annotated text and very long numbered lists
+     */
+    PATHOLOGICAL(5000, 24, 24, 500);
+
+    private final int blockCount;
+    private final int spansPerBlock;
+    private final int annotatedSpans;
+    private final int listLength;
+
+    PageShape(int blockCount, int spansPerBlock, int annotatedSpans, int listLength) {
+        this.blockCount = blockCount;
+        this.spansPerBlock = spansPerBlock;
+        this.annotatedSpans = annotatedSpans;
+        this.listLength = listLength;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public int getSpansPerBlock() {
+        return spansPerBlock;
+    }
+
+    /**
+     * @return How many of the spans of each block carry annotations, the rest are plain text
+     */
+    public int getAnnotatedSpans() {
+        return annotatedSpans;
+    }
+
+    public int getListLength() {
+        return listLength;
+    }
+}